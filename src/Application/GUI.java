@@ -1,7 +1,10 @@
 package Application;
 
 import Maze.Board;
-import Maze.Items.Key;
+import Maze.BoardEvent;
+import Maze.Direction;
+import Maze.LevelCatalogue;
+import Maze.Chip;
 import RecordAndReplay.RecordGame;
 import RecordAndReplay.Replay;
 import Render.MazeRenderer;
@@ -56,7 +59,7 @@ public class GUI extends JFrame implements ActionListener, KeyListener {
     private JMenu menuHelp;
 
     /** All the menu items in the menu bar. */
-    private JMenuItem i1, i2, i3, i4, i5, i6, i7, i8, i9, i10, i11;
+    private JMenuItem i1, i2, i3, i4, i7, i8, i9, i10, i11;
 
     /** Menu bar. */
     private JMenuBar mb;
@@ -94,15 +97,32 @@ public class GUI extends JFrame implements ActionListener, KeyListener {
     /** Default value of level is 1. */
     private int level = 1;
 
+    /** The levels that can be played, found in the levels folder. */
+    private final LevelCatalogue catalogue = LevelCatalogue.getDefault();
+
     /** Number of keys that have been collected. */
     int keysize = 0;
 
     /** Number of chips at the start of the game. */
     private int originalChipNumber = 0;
 
+    /**
+     * The chip, inventory version and chips left that the infoCanvas was last drawn for.
+     */
+    private Chip hudChip = null;
+    private long hudInventoryVersion = 0;
+    private int hudTreasureRemaining = 0;
+
     /** Record the game. */
     private RecordGame recordGame = new RecordGame();
 
+    /** The bits of the board events published since checkMovedRedraw last ran. */
+    private int pendingEvents = 0;
+
+    /** The board events after which the board canvas has to be redrawn. */
+    private static final int REDRAW_EVENTS = BoardEvent.CHARACTER_MOVED.bit() | BoardEvent.ITEM_PICKED_UP.bit()
+            | BoardEvent.DOOR_OPENED.bit() | BoardEvent.TILE_CONSUMED.bit();
+
     /** This colour is used to draw the frame of the information-display window. */
     private Color Light_Gray = new Color(232, 232, 232);
 
@@ -207,6 +227,7 @@ public class GUI extends JFrame implements ActionListener, KeyListener {
             @Override
             public void actionPerformed(ActionEvent actionEvent) {
                 muteMusic = true; // don't play music
+                music.setMuted(muteMusic);
                 music.stopPlayingAudio("All");
             }
         });
@@ -216,6 +237,7 @@ public class GUI extends JFrame implements ActionListener, KeyListener {
             @Override
             public void actionPerformed(ActionEvent actionEvent) {
                 muteMusic = false;  // start to play music
+                music.setMuted(muteMusic);
                 music.playAudio(musicName);
             }
         });
@@ -224,34 +246,22 @@ public class GUI extends JFrame implements ActionListener, KeyListener {
         menuOptions.add(i11);
         menuOptions.add(i3);
 
-        // Level menu: Level 1, and Level 2. Start the corresponding level when clicking one of the two JMenuItems.
+        // Level menu: one item per playable level of the catalogue. Start the corresponding level when clicking it.
         menuLevel = new JMenu("Level");
-        i5 = new JMenuItem("Level 1");
-        i5.addActionListener(new ActionListener() {
-            @Override
-            public void actionPerformed(ActionEvent actionEvent) {
-                // board at level 1
-                try {
-                    startGameByLevel(1);
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
-            }
-        });
-        i6 = new JMenuItem("Level 2");
-        i6.addActionListener(new ActionListener() {
-            @Override
-            public void actionPerformed(ActionEvent actionEvent) {
-                // board at level 2
-                try {
-                    startGameByLevel(2);
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
+        for (LevelCatalogue.Entry entry : catalogue.getPlayableLevels()) {
+            JMenuItem item = new JMenuItem(entry.getName());
+            item.addActionListener(new ActionListener() {
+                @Override
+                public void actionPerformed(ActionEvent actionEvent) {
+                    try {
+                        startGameByLevel(entry.getNumber());
+                    } catch (InterruptedException e) {
+                        e.printStackTrace();
+                    }
                 }
-            }
-        });
-        menuLevel.add(i5);
-        menuLevel.add(i6);
+            });
+            menuLevel.add(item);
+        }
 
         // Help menu: Instruction of the game.
         menuHelp = new JMenu("Help");
@@ -395,23 +405,38 @@ public class GUI extends JFrame implements ActionListener, KeyListener {
             music.playAudio("LevelMusic");
         }
         musicName = "LevelMusic";
-        setTitle("Chip's Challenge: Level " + level);
+        setTitle(levelTitle(level));
         replay.clearMovement();
         exited = false;
+        LevelCatalogue.Entry entry = catalogue.get(level);
         timeRuunableThread.setDrawNumber(true);
-        timeRuunableThread.setSecond(101);
+        timeRuunableThread.setSecond((entry == null ? LevelCatalogue.DEFAULT_TIME_LIMIT : entry.getTimeLimit()) + 1);
         gameStarted = true;
         gamePaused = false;
         timeRuunableThread.setPause(gamePaused);
         timeRuunableThread.setGameStart(gameStarted);
         infoCanvas.drawLevelNumber(level);
-        board = new Board(level);
+        setBoard(new Board(level));
         keysize = 0;
         originalChipNumber = board.getTreasureRemainingAmount();
         infoCanvas.drawChipsLeftNumber(board.getTreasureRemainingAmount());
         infoCanvas.drawSquares((Graphics2D) infoCanvas.getGraphics(), 14 * infoCanvas.getHeight() / 20, infoCanvas.getWidth(), infoCanvas.getHeight());
         renderer = new MazeRenderer(boardCanvas.getGraphics());
         renderer.redraw(board, boardCanvas.getWidth(),  boardCanvas.getHeight());
+        // parse the next level while this one is played so moving on to it doesn't pause
+        LevelCatalogue.Entry next = catalogue.next(level);
+        if(next != null){
+            catalogue.prefetch(next);
+        }
+    }
+
+    /**
+     * @param level a level number.
+     * @return the window title while the level is played.
+     */
+    private String levelTitle(int level) {
+        LevelCatalogue.Entry entry = catalogue.get(level);
+        return "Chip's Challenge: " + (entry == null ? "Level " + level : entry.getName());
     }
 
 
@@ -430,7 +455,7 @@ public class GUI extends JFrame implements ActionListener, KeyListener {
             timeTread.start();
         }
         this.level = level;
-        setTitle("Chip's Challenge: Level " + level);
+        setTitle(levelTitle(level));
         newGameStart(level);
     }
 
@@ -616,14 +641,16 @@ public class GUI extends JFrame implements ActionListener, KeyListener {
 
         // RatioButton panel
         JPanel jp1 = new JPanel();
-        JRadioButton jrb1 = new JRadioButton("Level 1");
-        JRadioButton jrb2 = new JRadioButton("Level 2");
         ButtonGroup bg1 = new ButtonGroup();
-        bg1.add(jrb1);
-        bg1.add(jrb2);
-        jp1.add(jrb1);
-        jp1.add(jrb2);
-        jp1.setLayout(new GridLayout(2, 1));
+        List<LevelCatalogue.Entry> levels = catalogue.getPlayableLevels();
+        for (LevelCatalogue.Entry entry : levels) {
+            JRadioButton jrb = new JRadioButton(entry.getName());
+            // levels can share a name, so the button keeps its level
+            jrb.putClientProperty(LevelCatalogue.Entry.class, entry);
+            bg1.add(jrb);
+            jp1.add(jrb);
+        }
+        jp1.setLayout(new GridLayout(levels.size(), 1));
         jp1.setBorder(BorderFactory.createTitledBorder(
                 BorderFactory.createEtchedBorder(), "Level"));
 
@@ -633,20 +660,22 @@ public class GUI extends JFrame implements ActionListener, KeyListener {
         okButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent actionEvent) {
-                String suggestLevel = getSelectedButtonText(bg1);
-                if(suggestLevel == null){ return; }
-                if(suggestLevel.equals("Level 1")){
-                    level = 1;
-                }else if(suggestLevel.equals("Level 2")){
-                    level = 2;
+                LevelCatalogue.Entry suggestLevel = null;
+                for (Enumeration<AbstractButton> buttons = bg1.getElements(); buttons.hasMoreElements();) {
+                    AbstractButton button = buttons.nextElement();
+                    if (button.isSelected()) {
+                        suggestLevel = (LevelCatalogue.Entry) button.getClientProperty(LevelCatalogue.Entry.class);
+                    }
                 }
+                if(suggestLevel == null){ return; }
+                level = suggestLevel.getNumber();
                 jframe.dispose();
                 if(gameStarted == false){
                     timeRuunableThread = new RunnableThread("Time", infoCanvas.getGraphics(), infoCanvas.getWidth(), infoCanvas.getHeight(), gui);
                     Thread timeTread = new Thread(timeRuunableThread);
                     timeTread.start();
                 }
-                setTitle("Chip's Challenge: Level " + level);
+                setTitle(levelTitle(level));
                 // start to count down time
                 newGameStart(level);
             }
@@ -825,14 +854,16 @@ public class GUI extends JFrame implements ActionListener, KeyListener {
         // animationThread.stop();
         // JOptionPane.showMessageDialog(null, "Game Loaded", "Message", 1);
         replay.load();
-        board = replay.autoReplay();
+        setBoard(replay.autoReplay());
+        // the replayed moves ran before the GUI subscribed, so a game saved after it ended is ended here
+        queueEndOfGame();
         level = replay.getLevel();
         if(muteMusic == false){
             music.stopPlayingAudio("All");
             music.playAudio("LevelMusic");
         }
         musicName = "LevelMusic";
-        setTitle("Chip's Challenge: Level " + level);
+        setTitle(levelTitle(level));
         timeRuunableThread.setDrawNumber(true);
         timeRuunableThread.setSecond(replay.getTime());
         gameStarted = true;
@@ -862,13 +893,13 @@ public class GUI extends JFrame implements ActionListener, KeyListener {
         // animationThread.stop();
         replay.load();
         level = replay.getLevel();
-        board = new Board(level);
+        setBoard(replay.getSeed() == null ? new Board(level) : new Board(level, replay.getSeed()));
         if(muteMusic == false){
             music.stopPlayingAudio("All");
             music.playAudio("LevelMusic");
         }
         musicName = "LevelMusic";
-        setTitle("Chip's Challenge: Level " + level);
+        setTitle(levelTitle(level));
         timeRuunableThread.setDrawNumber(true);
         timeRuunableThread.setSecond(replay.getTime());
         infoCanvas.drawLevelNumber(level);
@@ -883,7 +914,7 @@ public class GUI extends JFrame implements ActionListener, KeyListener {
         }
         renderer = new MazeRenderer(boardCanvas.getGraphics());
         renderer.redraw(board, boardCanvas.getWidth(),  boardCanvas.getHeight());
-        for(String s : replay.getMovement()) {
+        for(Direction s : replay.getMovement()) {
             // board.moveChip(s);
             board = replay.replayByStep(board);
             checkMovedRedraw();
@@ -1129,28 +1160,25 @@ public class GUI extends JFrame implements ActionListener, KeyListener {
         public void drawKeysChipsPics() throws IOException {
             Graphics g = infoCanvas.getGraphics();
 
-            // draw keys collected.
-            List<Key> keys = board.getChip().getKeys();
+            // draw keys collected, read from the per-colour counts in the inventory.
+            Chip chip = board.getChip();
             int size = infoCanvas.getHeight() / 16;
             int startX = infoCanvas.getWidth() / 2 - size * 3;
             for (int i = 0; i < 5; i++) {
                 drawSquare((Graphics2D) g, startX + size * i, 14 * infoCanvas.getHeight() / 20, size);
             }
-            if(keys.size() > 0){
-                for(int i = 0; i < keys.size(); i++){
-                    Color color = keys.get(i).getColour();
-                    String pathName = "./assets/Items/";
-                    if(color.equals(Color.red)){
-                        pathName += "KeyRed.png";
-                    }else if(color.equals(Color.blue)){
-                        pathName += "KeyBlue.png";
-                    }else if(color.equals(Color.green)){
-                        pathName += "KeyGreen.png";
-                    }
-                    BufferedImage bi = ImageIO.read(new File(pathName));
-                    g.drawImage(bi, startX + size * i + 2, 14 * infoCanvas.getHeight()/20 + 2, size - 4, size -4, null);
+            String[] keyPictures = {"KeyRed.png", "KeyGreen.png", "KeyBlue.png", "KeyYellow.png"};
+            int slot = 0;
+            for(int colour = 0; colour < keyPictures.length; colour++){
+                for(int j = 0; j < chip.getKeyCount(colour); j++){
+                    BufferedImage bi = ImageIO.read(new File("./assets/Items/" + keyPictures[colour]));
+                    g.drawImage(bi, startX + size * slot + 2, 14 * infoCanvas.getHeight()/20 + 2, size - 4, size -4, null);
+                    slot++;
                 }
             }
+            hudChip = chip;
+            hudInventoryVersion = chip.getInventoryVersion();
+            hudTreasureRemaining = board.getTreasureRemainingAmount();
 
             // draw chips collected.
             int chipsNum = originalChipNumber - board.getTreasureRemainingAmount();
@@ -1267,31 +1295,31 @@ public class GUI extends JFrame implements ActionListener, KeyListener {
         }
 
         if(gameStarted == false){return; }
-        String str = "";
+        Direction dir = null;
         boolean moved= false;
 
         // Press wasd or UP, DOWN, LEFT, RIGHT ARROWS.
         if (keyPressed == 'w' || keyPressed == 'W' || e.getKeyCode() == KeyEvent.VK_UP) {
-            str = "up";
-            moved = board.moveChip(str);
+            dir = Direction.UP;
+            moved = board.moveChip(dir);
             if(moved == false && muteMusic == false){
                 music.playAudio("ErrorSound");
             }
         } else if (keyPressed == 's' || keyPressed == 'S' || e.getKeyCode() == KeyEvent.VK_DOWN) {
-            str = "down";
-            moved = board.moveChip(str);
+            dir = Direction.DOWN;
+            moved = board.moveChip(dir);
             if(moved == false && muteMusic == false){
                 music.playAudio("ErrorSound");
             }
         } else if (keyPressed == 'a' || keyPressed == 'A' || e.getKeyCode() == KeyEvent.VK_LEFT) {
-            str = "left";
-            moved = board.moveChip(str);
+            dir = Direction.LEFT;
+            moved = board.moveChip(dir);
             if(moved == false && muteMusic == false){
                 music.playAudio("ErrorSound");
             }
         } else if (keyPressed == 'd' || keyPressed == 'D' || e.getKeyCode() == KeyEvent.VK_RIGHT) {
-            str = "right";
-            moved = board.moveChip(str);
+            dir = Direction.RIGHT;
+            moved = board.moveChip(dir);
             if(moved == false && muteMusic == false){
                 music.playAudio("ErrorSound");
             }
@@ -1299,6 +1327,12 @@ public class GUI extends JFrame implements ActionListener, KeyListener {
         if(moved){
             checkMovedRedraw();
         }
+        // CTRL-Z: undo the last move, CTRL-Y: redo the last undone move
+        if(e.isControlDown() && e.getKeyCode() == KeyEvent.VK_Z){
+            undoOrRedoMove(true);
+        } else if(e.isControlDown() && e.getKeyCode() == KeyEvent.VK_Y){
+            undoOrRedoMove(false);
+        }
         // CTRL-X:
         if(keyPressed == 'x' || keyPressed == 'X' || (e.isControlDown() && e.getKeyCode() == KeyEvent.VK_X)){
             if(gameStarted == false) { return; }
@@ -1350,18 +1384,65 @@ public class GUI extends JFrame implements ActionListener, KeyListener {
         }
     }
 
+    /**
+     * Undo or redo the last move on the board and redraw the board and the inventory.
+     * If the game was over and the move brings chip back to life, the timer starts again.
+     * @param undo true to undo the last move, false to redo the last undone move.
+     */
+    public void undoOrRedoMove(boolean undo){
+        boolean gameOver = board.isChipAlive() == false || board.isLevelFinished();
+        boolean changed = undo ? board.undo() : board.redo();
+        if(changed == false){
+            if(muteMusic == false){
+                music.playAudio("ErrorSound");
+            }
+            return;
+        }
+        if(gameOver && board.isChipAlive() && board.isLevelFinished() == false){
+            gamePaused = false;
+            timeRuunableThread.setPause(gamePaused);
+        }
+        renderer = new MazeRenderer(boardCanvas.getGraphics());
+        renderer.redraw(board, boardCanvas.getWidth(),  boardCanvas.getHeight());
+        try {
+            infoCanvas.drawChipsLeftNumber(board.getTreasureRemainingAmount());
+            infoCanvas.drawKeysChipsPics();
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+        // the journal doesn't publish events, so a redo into a death or onto the exit is ended here
+        if(gameOver == false){
+            queueEndOfGame();
+            checkMovedRedraw();
+        }
+    }
+
+    /**
+     * Queue the event that ends the game for checkMovedRedraw if chip is dead or the level is finished, for boards
+     * that got there without publishing it to the GUI.
+     */
+    private void queueEndOfGame(){
+        if(board.isChipAlive() == false){
+            pendingEvents |= BoardEvent.CHIP_DIED.bit();
+        }else if(board.isLevelFinished()){
+            pendingEvents |= BoardEvent.LEVEL_FINISHED.bit();
+        }
+    }
+
     /**
      * When the hero is not alive, pop up a window to inform game over.
      * When the chip has moved, but not onto an exit tile, redraw chips and keys on infoCanvas.
      * When the current level is passed, ask whether to go to the next level.
      * When the hero moves, update the inventory.
+     * Only the board events published since the last call are looked at, so nothing is redrawn when nothing changed.
      */
     public void checkMovedRedraw(){
-        if((board.isTreasureCollected() || board.isKeyCollected()) && muteMusic == false){
-            music.playAudio("PickupSound");
+        int events = pendingEvents;
+        pendingEvents = 0;
+        if((events & REDRAW_EVENTS) != 0){
+            renderer.redraw(board, boardCanvas.getWidth(),  boardCanvas.getHeight());
         }
-        renderer.redraw(board, boardCanvas.getWidth(),  boardCanvas.getHeight());
-        if(board.isChipAlive() == false){
+        if((events & BoardEvent.CHIP_DIED.bit()) != 0){
             gamePaused = true;
             timeRuunableThread.setPause(gamePaused);
             if(muteMusic == false){
@@ -1371,7 +1452,7 @@ public class GUI extends JFrame implements ActionListener, KeyListener {
             musicName = "LevelCompleteSound";
             JOptionPane.showMessageDialog(null, "Oops! Better luck next time!", "Failed", 1);
             canLoadGame = false;
-        } else if(board.isLevelFinished()){
+        } else if((events & BoardEvent.LEVEL_FINISHED.bit()) != 0){
             gamePaused = true;
             timeRuunableThread.setPause(gamePaused);
             if(muteMusic == false){
@@ -1379,20 +1460,23 @@ public class GUI extends JFrame implements ActionListener, KeyListener {
                 music.playAudio("LevelCompleteSound");
             }
             musicName = "LevelCompleteSound";
-            if(level == 1){
-                int saveOrNot = JOptionPane.showConfirmDialog(null, "congratulations! Level 1 passed! Go to next level?", "Confirm", JOptionPane.YES_NO_OPTION);
+            LevelCatalogue.Entry current = catalogue.get(level);
+            String name = current == null ? "Level " + level : current.getName();
+            LevelCatalogue.Entry next = catalogue.next(level);
+            if(next != null){
+                int saveOrNot = JOptionPane.showConfirmDialog(null, "congratulations! " + name + " passed! Go to next level?", "Confirm", JOptionPane.YES_NO_OPTION);
                 if (saveOrNot == 0) { // yes
-                    level = level + 1;
+                    level = next.getNumber();
                     newGameStart(level);
                 } else {
                     gamePaused = true;
                 }
-            }else if(level == 2){
-                JOptionPane.showMessageDialog(null, "congratulations! Level 2 passed!", "Win Level 2", JOptionPane.INFORMATION_MESSAGE);
+            }else{
+                JOptionPane.showMessageDialog(null, "congratulations! " + name + " passed!", "Win " + name, JOptionPane.INFORMATION_MESSAGE);
             }
-        }else if(board.onInfoTile()){
+        }else if((events & BoardEvent.INFO_TILE_ENTERED.bit()) != 0){
             JOptionPane.showMessageDialog(null, readAllLines(), "Information", JOptionPane.INFORMATION_MESSAGE);
-        }else{
+        }else if(hudOutOfDate()){
             try {
                 infoCanvas.drawChipsLeftNumber(board.getTreasureRemainingAmount());
                 infoCanvas.drawKeysChipsPics();
@@ -1402,6 +1486,29 @@ public class GUI extends JFrame implements ActionListener, KeyListener {
         }
     }
 
+    /**
+     * Start playing on a new board. The GUI collects the board's events for checkMovedRedraw, the music plays the
+     * pickup sound and the recorder counts the events for the saved game.
+     * @param newBoard the board to play on.
+     */
+    private void setBoard(Board newBoard){
+        board = newBoard;
+        pendingEvents = 0;
+        board.subscribe((b, event, row, col, detail) -> pendingEvents |= event.bit());
+        board.subscribe(music, BoardEvent.ITEM_PICKED_UP);
+        board.subscribe(recordGame);
+    }
+
+    /**
+     * Check whether the keys or chips shown on the infoCanvas are different from the board.
+     * @return true if chip's inventory or the chips left have changed since the infoCanvas was last drawn.
+     */
+    private boolean hudOutOfDate(){
+        Chip chip = board.getChip();
+        return chip != hudChip || chip.getInventoryVersion() != hudInventoryVersion
+                || board.getTreasureRemainingAmount() != hudTreasureRemaining;
+    }
+
     /**
      * Defines a Triangle class.
      */
@@ -1,26 +1,98 @@
 package Maze;
 
-import Maze.Items.ExitLock;
-import Maze.Items.Item;
-import Maze.Items.Key;
-import Maze.Items.Treasure;
 import Maze.Tiles.*;
-import Persistance.JsonParser;
+import Persistance.JsonLevelSource;
 import com.google.common.base.Preconditions;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * This class represents the board used in the game and defines the core game logic
  * @author Oscar Sykes 300486149
  */
-public class Board {
+public class Board implements BoardView {
 
     /**
-     * A 2-d array storing all the tiles on the board
+     * Row-major primitive storage of the tile, item and character in every cell of the board
      */
-    private Tile[][] tiles;
+    private final PackedBoard cells;
+
+    /**
+     * Tile objects mirroring the packed cells for callers that still work with tiles. This is only built the first
+     * time it is requested and is then kept in sync by every mutation.
+     */
+    private Tile[][] tileView;
+
+    /**
+     * Running counts used to check the board invariants without scanning every cell
+     */
+    private final InvariantTracker invariants;
+
+    /**
+     * Bitset layers of every tile and item code, used for constant time passability checks and bulk queries
+     */
+    private final BoardLayers layers;
+
+    /**
+     * Records the changes made each turn so turns can be undone and redone
+     */
+    private final MoveJournal journal = new MoveJournal(MoveJournal.DEFAULT_CAPACITY);
+
+    /**
+     * Applies values from the journal back onto this board
+     */
+    private final MoveJournal.Target journalTarget = this::applyDelta;
+
+    /**
+     * Reachability and softlock analysis of the level, done when the board was created, or null for levels read from
+     * a level source
+     */
+    private final LevelAnalysis analysis;
+
+    /**
+     * Zobrist hash of the cells and chip's keys, updated whenever one of them changes
+     */
+    private long stateHash;
+
+    /**
+     * The number of keys of every colour included in the state hash, indexed by colour index
+     */
+    private final int[] hashedKeyCounts = new int[4];
+
+    /**
+     * Queues the events published during a turn and delivers them to the board's listeners when the turn ends
+     */
+    private final BoardEventBus events;
+
+    /**
+     * The game state flags, amount of treasure collected and number of character turns when the turn being recorded
+     * started
+     */
+    private int turnStartFlags, turnStartTreasure, turnStartCharacterTurns;
+
+    /**
+     * The number of turns the characters other than chip have moved in. Their random sources are drawn from it each
+     * turn, and it is journaled, so a game can be recomputed from the seed and chip's moves even after undo.
+     */
+    private int characterTurns;
+
+    /**
+     * Bits used to pack the game state flags into a single journal value
+     */
+    private static final int CHIP_ALIVE = 1, LEVEL_FINISHED = 2, ON_INFO_TILE = 4, TREASURE_COLLECTED = 8,
+            KEY_COLLECTED = 16;
+
+    /**
+     * All directions, indexed by ordinal, used to turn journal values back into moves
+     */
+    private static final Direction[] DIRECTIONS = Direction.values();
 
     /**
      * The character that is controlled by the player
@@ -28,9 +100,9 @@ public class Board {
     private Chip chip;
 
     /**
-     * A list of user generated characters defined in the Persistence module
+     * The user generated characters defined in the Persistence module, indexed by dense id with their positions
      */
-    private List<UserGeneratedCharacter> userGenerateCharacters = new ArrayList<>();
+    private final CharacterRegistry characterRegistry = new CharacterRegistry();
 
     /**
      * The amount of treasure collected so far, the amount of treasure remaining and the amount of treasure there was
@@ -72,13 +144,18 @@ public class Board {
     /**
      * A list of all the moves chip has completed in the game so far
      */
-    private List<String> chipMoves = new ArrayList<>();
+    private List<Direction> chipMoves = new ArrayList<>();
 
     /**
      * A list of all the moves the other user defined characters have done.
      */
-    private List<List<String>> otherCharactersMoves = new ArrayList<>();
+    private List<List<Direction>> otherCharactersMoves = new ArrayList<>();
+
 
+    /**
+     * Increases every time a cell on the board changes
+     */
+    private long version = 0;
 
     /**
      * Represents whether chip is still alive. Chip dies when a bug lands on the same tile as him.
@@ -86,59 +163,404 @@ public class Board {
     private boolean chipAlive = true;
 
     /**
-     * Creates the tiles array using the JsonParser module
-     * Initialises relevant fields
+     * The parallel tick is only used once there are at least this many other characters, and each fork join task
+     * plans the moves of at most PARALLEL_TICK_CHUNK characters
+     */
+    private static final int PARALLEL_TICK_THRESHOLD = 256, PARALLEL_TICK_CHUNK = 64;
+
+    /**
+     * On boards read from a level source the chunks within this many rows and columns of chip are read after every
+     * turn, before he reaches them
+     */
+    private static final int PREFETCH_RADIUS = 32;
+
+    /**
+     * Unplayed boards of the level files parsed so far, one for each file as it was last parsed. They are only ever
+     * copied, never played.
+     */
+    private static final FileCache<Board> LEVEL_TEMPLATES = new FileCache<>();
+
+    /**
+     * Pool used to plan the moves of the other characters in parallel, or null to move them one at a time
+     */
+    private ForkJoinPool tickPool;
+
+    /**
+     * Moves planned by the parallel tick, indexed by character id. A null entry means the character has to choose its
+     * move when its turn comes in the sequential pass.
+     */
+    private Direction[] plannedMoves;
+
+    /**
+     * The seed of this board's random source. The same level, seed and chip moves always produce the same game.
+     */
+    private final long seed;
+
+    /**
+     * The random source of this board. Every user generated character is given its own stream split from it until
+     * its first turn, after that the characters draw a new source each turn from the seed (see turnRandom).
+     */
+    private final SplittableRandom random;
+
+    /**
+     * Creates a board with a random seed
      * @param levelNum number of the level the user wants to play. The first two levels are used for testing and the
      *                 rest are actual levels
      */
     public Board(int levelNum) {
-        Preconditions.checkArgument(levelNum == -1 || levelNum == 0 || levelNum == 1 || levelNum == 2);
-        // make a temporary board in case it doesn't pass preconditions checks
-        Tile[][] tempBoard = Preconditions.checkNotNull(JsonParser.getLvl(levelNum));
-        Preconditions.checkArgument(tempBoard[0].length > 0);
-        Preconditions.checkArgument(tempBoard.length > 0);
-        tiles = JsonParser.getLvl(levelNum);
-        boardWidth = tiles[0].length;
-        boardHeight = tiles.length;
+        this(levelNum, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Creates a board for a level. The level file is only parsed the first time the level is played (or after it
+     * changes), every board after that is copied from the parsed level.
+     * @param levelNum number of the level the user wants to play, one of the levels of the default LevelCatalogue.
+     *                 The first two levels are used for testing and the rest are actual levels
+     * @param seed seed of the random source used by the characters on the board
+     */
+    public Board(int levelNum, long seed) {
+        this(levelTemplate(levelNum), seed);
+    }
+
+    /**
+     * Creates a board from a tile array that wasn't loaded from a level file, such as a generated stress level.
+     * The tiles must hold exactly one chip and every character's row and column must match its tile.
+     * @param tiles the tiles of the board, which are copied into the board's own storage
+     * @param seed seed of the random source used by the characters on the board
+     */
+    public Board(Tile[][] tiles, long seed) {
+        this(tiles, seed, null);
+    }
+
+    /**
+     * Creates a board from a tile array and analyses the level
+     * @param tiles the tiles of the board, which are copied into the board's own storage
+     * @param seed seed of the random source used by the characters on the board
+     * @param levelFile the file the tiles were loaded from, used to cache the analysis, or null if there isn't one
+     */
+    private Board(Tile[][] tiles, long seed, File levelFile) {
+        Preconditions.checkNotNull(tiles);
+        Preconditions.checkArgument(tiles.length > 0 && tiles[0].length > 0);
+        this.seed = seed;
+        this.random = new SplittableRandom(seed);
+        cells = PackedBoard.fromTiles(tiles);
+        invariants = new InvariantTracker(cells);
+        layers = new BoardLayers(cells);
+        events = new BoardEventBus(this, cells, BoardEventBus.DEFAULT_CAPACITY);
+        boardWidth = cells.getWidth();
+        boardHeight = cells.getHeight();
         int characters = 0;
         for (int i = 0; i < boardHeight; i++) {
             for (int j = 0; j < boardWidth; j++) {
-                if (tiles[i][j] instanceof FreeTile && ((FreeTile) tiles[i][j]).getItem() instanceof Treasure) {
+                if (cells.getItem(cells.index(i, j)) == PackedBoard.TREASURE) {
                     treasureRemainingAmount++;
                 }
+                // the packed board assigns character slots in this same row-major order
                 Character character = tiles[i][j].getCharacter();
+                Preconditions.checkArgument(character == null || (character.getRow() == i && character.getCol() == j),
+                        "Character isn't on the tile matching its row and column");
                 if (character instanceof Chip) {
-                    chip = (Chip) tiles[i][j].getCharacter();
+                    chip = (Chip) character;
                 } else if (character instanceof UserGeneratedCharacter){
-                    userGenerateCharacters.add((UserGeneratedCharacter) character);
+                    int id = characterRegistry.register((UserGeneratedCharacter) character, cells.index(i, j));
+                    ((UserGeneratedCharacter) character).setRandom(random.split());
                     characters++;
+                    assert cells.getCharacter(cells.index(i, j)) == CharacterRegistry.slotOf(id);
                 }
             }
         }
+        Preconditions.checkArgument(chip != null, "Board has no chip");
         for(int i = 0; i < characters; i++){
             otherCharactersMoves.add(new ArrayList<>());
         }
         characterAmount = characters;
         initialTreasureAmount = treasureRemainingAmount;
+        startStateHash();
+        analysis = levelFile == null ? new LevelAnalysis(cells, chip)
+                : LevelAnalysis.forLevelFile(levelFile, cells, chip);
         assert !tilesContainsNull();
         assert tilesContainsOneChip();
         assert checkCharacterAmount();
     }
 
+    /**
+     * Creates a board in the starting state of a board that hasn't been played yet, without loading or parsing the
+     * level again. The packed cells are copied and every character is copied, so the two boards are independent.
+     * The new board plays exactly like a board loaded from the same level with the same seed.
+     * @param start a board no move has been made on, which is only read so it can be shared between threads
+     * @param seed seed of the random source used by the characters on the new board
+     */
+    public Board(Board start, long seed) {
+        Preconditions.checkNotNull(start);
+        Preconditions.checkArgument(start.version == 0, "Board has already been played");
+        this.seed = seed;
+        this.random = new SplittableRandom(seed);
+        cells = start.cells.copy();
+        invariants = new InvariantTracker(cells);
+        layers = new BoardLayers(cells);
+        events = new BoardEventBus(this, cells, BoardEventBus.DEFAULT_CAPACITY);
+        boardWidth = start.boardWidth;
+        boardHeight = start.boardHeight;
+        chip = new Chip(start.chip.getRow(), start.chip.getCol());
+        // ids are given in the same order as the original board so the random streams are split in the same order
+        for (int id = 0; id < start.characterRegistry.size(); id++) {
+            UserGeneratedCharacter character = start.characterRegistry.get(id).copy();
+            characterRegistry.register(character, start.characterRegistry.cellOf(id));
+            character.setRandom(random.split());
+            otherCharactersMoves.add(new ArrayList<>());
+        }
+        characterAmount = start.characterAmount;
+        treasureRemainingAmount = start.treasureRemainingAmount;
+        initialTreasureAmount = start.initialTreasureAmount;
+        startStateHash();
+        analysis = start.analysis;
+        assert tilesContainsOneChip();
+        assert checkCharacterAmount();
+    }
+
+    /**
+     * Creates a board for a level too big to load as a tile array. Cells are read from the source a chunk at a time
+     * when chip or another character first comes near them, and chunks that haven't been used recently are evicted
+     * once the board's memory budget is reached. The rules are the same as on any other board, but the level isn't
+     * analysed and the tile view (getTile and getTileArray) builds tiles for the whole level, so it should only be
+     * used on small levels.
+     * @param source the level to read
+     * @param seed seed of the random source used by the characters on the board
+     */
+    public Board(LevelSource source, long seed) {
+        this(new PackedBoard(source), source, seed, null);
+    }
+
+    /**
+     * Creates a board from a packed board that was read from a level source
+     * @param cells the packed board, which either reads its chunks from the source later or already holds them all
+     * @param source the level the packed board was read from, used to make the characters
+     * @param seed seed of the random source used by the characters on the board
+     * @param levelFile the file the source reads, used to cache the analysis, or null to skip the analysis
+     */
+    private Board(PackedBoard cells, LevelSource source, long seed, File levelFile) {
+        this.seed = seed;
+        this.random = new SplittableRandom(seed);
+        this.cells = cells;
+        Preconditions.checkArgument(cells.getSourceChipCell() >= 0, "Board has no chip");
+        invariants = new InvariantTracker(1, cells.getSourceCharacterCount());
+        layers = new BoardLayers(cells);
+        events = new BoardEventBus(this, cells, BoardEventBus.DEFAULT_CAPACITY);
+        boardWidth = cells.getWidth();
+        boardHeight = cells.getHeight();
+        int chipCell = cells.getSourceChipCell();
+        chip = new Chip(cells.rowOf(chipCell), cells.colOf(chipCell));
+        // the packed board gives the characters their slots in row-major order too
+        for (int i = 0; i < cells.getSourceCharacterCount(); i++) {
+            int index = cells.getSourceCharacterCell(i);
+            UserGeneratedCharacter character = Preconditions.checkNotNull(source.newCharacter(
+                    cells.getSourceCharacterLetter(i), cells.rowOf(index), cells.colOf(index)));
+            int id = characterRegistry.register(character, index);
+            character.setRandom(random.split());
+            otherCharactersMoves.add(new ArrayList<>());
+            assert cells.getCharacter(index) == CharacterRegistry.slotOf(id);
+        }
+        characterAmount = characterRegistry.size();
+        // counted and hashed while the packed board read the source, so no chunk has to be brought into memory
+        treasureRemainingAmount = cells.getSourceTreasure();
+        initialTreasureAmount = treasureRemainingAmount;
+        startStateHash(ZobristKeys.hashOf(cells, cells.getSourceCellHash(), chip));
+        analysis = levelFile == null ? null : LevelAnalysis.forLevelFile(levelFile, cells, chip);
+        if (cells.hasSource()) {
+            cells.prefetch(chip.getRow(), chip.getCol(), PREFETCH_RADIUS);
+        }
+        assert !tilesContainsNull();
+        assert tilesContainsOneChip();
+        assert checkCharacterAmount();
+    }
+
+    /**
+     * @param levelNum number of a level of the default LevelCatalogue
+     * @return the parsed level, which must only be copied
+     */
+    static Board levelTemplate(int levelNum) {
+        LevelCatalogue.Entry level = LevelCatalogue.getDefault().get(levelNum);
+        Preconditions.checkArgument(level != null, "No level %s", levelNum);
+        return levelTemplate(level.getFile());
+    }
+
+    /**
+     * Returns the unplayed board of a level file, reading the file if it hasn't been read since it last changed
+     * @param levelFile the level file
+     * @return the parsed level, which must only be copied
+     */
+    static Board levelTemplate(File levelFile) {
+        return LEVEL_TEMPLATES.get(levelFile, Board::loadLevel);
+    }
+
+    /**
+     * Reads a level straight into a packed board. No tile or item objects are made, so games copied from the level
+     * never load the AWT classes the tile objects use.
+     * @param levelFile the level file
+     * @return the unplayed board of the level
+     */
+    private static Board loadLevel(File levelFile) {
+        try (JsonLevelSource source = new JsonLevelSource(levelFile)) {
+            return new Board(PackedBoard.readAll(source), source, 0, levelFile);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Couldn't read level " + levelFile, e);
+        }
+    }
+
     /**
      * Returns the tile array. It creates a duplicate object for encapsulation.
+     * The tiles themselves are a view of the packed board and are updated in place as the game is played.
+     * Code that only reads the board should use the BoardView methods instead, which don't copy anything.
      * @return the tile array used in the game
      */
     public Tile[][] getTileArray() {
+        Tile[][] view = tileView();
         Tile[][] tilesCopy = new Tile[boardHeight][boardWidth];
         for (int i = 0; i < boardHeight; i++) {
-            for (int j = 0; j < boardWidth; j++) {
-                tilesCopy[i][j] = tiles[i][j];
-            }
+            System.arraycopy(view[i], 0, tilesCopy[i], 0, boardWidth);
         }
         return tilesCopy;
     }
 
+    /**
+     * @param row row of the tile
+     * @param col column of the tile
+     * @return the live tile at the given position
+     */
+    @Override
+    public Tile getTile(int row, int col) {
+        Preconditions.checkElementIndex(row, boardHeight);
+        Preconditions.checkElementIndex(col, boardWidth);
+        return tileView()[row][col];
+    }
+
+    /**
+     * @return the current version of the board, which increases every time a cell changes
+     */
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Subscribes a listener to events published by this board. Events are delivered in the order they happened once
+     * the turn that caused them has finished. Undo and redo don't publish events.
+     * @param listener the listener, subscribing it again replaces the events it gets
+     * @param kinds the kinds of event the listener wants, or none for every kind
+     */
+    public void subscribe(BoardListener listener, BoardEvent... kinds){
+        int mask = 0;
+        for (BoardEvent kind : kinds) {
+            mask |= kind.bit();
+        }
+        events.subscribe(listener, kinds.length == 0 ? (1 << BoardEvent.values().length) - 1 : mask);
+    }
+
+    /**
+     * @param listener a listener to stop sending events to
+     * @return whether the listener was subscribed
+     */
+    public boolean unsubscribe(BoardListener listener){
+        return events.unsubscribe(listener);
+    }
+
+    /**
+     * @return the reachability and softlock analysis of the level, done when the board was created. Boards loaded from
+     * the same unchanged level file share one analysis. Boards read from a level source aren't analysed and return null
+     */
+    public LevelAnalysis getAnalysis() {
+        return analysis;
+    }
+
+    /**
+     * Fingerprints the state of the board in constant time. Boards with the same cells, characters in the same slots
+     * and the same keys held by chip have the same hash, whatever moves led to them, so the hash can be used to find
+     * duplicate states, check replays for desyncs and as a cache key. The random sources of the characters aren't
+     * included.
+     * @return a 64 bit Zobrist hash of the state
+     */
+    public long stateHash() {
+        return stateHash;
+    }
+
+    /**
+     * @return the seed of the board's random source, stored in recordings so games can be recomputed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * The board's random source, for anything that makes random choices about this board such as test strategies.
+     * It isn't thread safe, use split() to get an independent source for another thread.
+     * @return the board's random source
+     */
+    public SplittableRandom getRandom() {
+        return random;
+    }
+
+    /**
+     * Limits the memory used by the chunks of cells in memory, see PackedBoard.setMemoryBudget. Boards read from a
+     * level source start with a quarter of the maximum heap, other boards are unlimited.
+     * @param bytes the most memory the chunks may use
+     */
+    public void setChunkMemoryBudget(long bytes){
+        cells.setMemoryBudget(bytes);
+    }
+
+    /**
+     * @return the number of chunks of cells currently in memory
+     */
+    public int getResidentChunks(){
+        return cells.getResidentChunks();
+    }
+
+    /**
+     * @return bitset layers of the tiles and items on the board, indexed by row * width + col
+     */
+    public BoardLayers getLayers() {
+        return layers;
+    }
+
+    /**
+     * Builds the tile objects from the packed cells the first time they are needed
+     * @return the tile view of the board
+     */
+    private Tile[][] tileView() {
+        if (tileView == null) {
+            Tile[][] view = new Tile[boardHeight][boardWidth];
+            for (int i = 0; i < boardHeight; i++) {
+                for (int j = 0; j < boardWidth; j++) {
+                    view[i][j] = newViewTile(cells.index(i, j));
+                }
+            }
+            tileView = view;
+        }
+        return tileView;
+    }
+
+    /**
+     * Builds the tile object of a cell for the tile view. Walls and doors, which no character can stand on, use the
+     * shared tile of their type. The other tiles get an object of their own, as callers may keep a tile and ask it
+     * whether chip is on it later.
+     * @param index index of the cell
+     * @return the tile of the cell
+     */
+    private Tile newViewTile(int index) {
+        byte code = cells.getTile(index);
+        short slot = cells.getCharacter(index);
+        Tile tile = PackedBoard.newTile(code);
+        if (tile.isShared()) {
+            // a used up single use tile is a wall while chip's slot is still on it, when it is used up or undone
+            return tile;
+        }
+        if (tile instanceof FreeTile) {
+            ((FreeTile) tile).setItem(PackedBoard.newItem(cells.getItem(index)));
+        }
+        tile.setCharacter(characterInSlot(slot));
+        return tile;
+    }
+
     /**
      * @return the chip object
      */
@@ -151,30 +573,32 @@ public class Board {
      * @return the characters added by the persistence module
      */
     public List<UserGeneratedCharacter> getCharacters(){
-        return userGenerateCharacters;
+        return characterRegistry.asList();
     }
 
     /**
      * @return the number of columns of tiles
      */
+    @Override
     public int getBoardWidth(){ return boardWidth; }
 
     /**
      * @return the number of rows of tiles
      */
+    @Override
     public int getBoardHeight(){ return boardHeight; }
 
     /**
      * @return the list of moves done by chip so far
      */
-    public List<String> getChipMoves(){
+    public List<Direction> getChipMoves(){
         return chipMoves;
     }
 
     /**
      * @return the list of moves done by all non-chip characters so far
      */
-    public List<List<String>> getOtherCharacterMoves(){
+    public List<List<Direction>> getOtherCharacterMoves(){
         return otherCharactersMoves;
     }
 
@@ -186,6 +610,51 @@ public class Board {
         for(int i = 0; i < otherCharactersMoves.size(); i++){
             otherCharactersMoves.set(i, new ArrayList<>());
         }
+        journal.clear(); // the journal would otherwise remove moves from the new lists
+    }
+
+    /**
+     * Undoes the last turn, restoring the tiles, items, characters, keys, treasure and game state it changed
+     * @return whether there was a turn to undo
+     */
+    public boolean undo(){
+        if(!journal.undo(journalTarget)){
+            return false;
+        }
+        assert tilesContainsOneChip();
+        assert !tilesContainsNull();
+        assert checkCharacterAmount();
+        assert initialTreasureAmount == treasureCollectedAmount + treasureRemainingAmount;
+        return true;
+    }
+
+    /**
+     * Redoes the last turn that was undone
+     * @return whether there was a turn to redo
+     */
+    public boolean redo(){
+        if(!journal.redo(journalTarget)){
+            return false;
+        }
+        assert tilesContainsOneChip();
+        assert !tilesContainsNull();
+        assert checkCharacterAmount();
+        assert initialTreasureAmount == treasureCollectedAmount + treasureRemainingAmount;
+        return true;
+    }
+
+    /**
+     * @return whether there is a turn that can be undone
+     */
+    public boolean canUndo(){
+        return journal.canUndo();
+    }
+
+    /**
+     * @return whether there is an undone turn that can be redone
+     */
+    public boolean canRedo(){
+        return journal.canRedo();
     }
 
     /**
@@ -244,28 +713,36 @@ public class Board {
      * @return whether or not the move was valid
      */
     public boolean moveChip(String dir) {
+        return moveChip(Direction.fromString(dir));
+    }
+
+    /**
+     * Moves chip and then moves all the other characters in the game
+     *
+     * @param dir direction to move chip in, this can't be NO_MOVE
+     * @return whether or not the move was valid
+     */
+    public boolean moveChip(Direction dir) {
         Preconditions.checkNotNull(dir);
-        Preconditions.checkArgument(dir.equals("left") || dir.equals("right")
-                || dir.equals("up") || dir.equals("down"));
+        Preconditions.checkArgument(dir != Direction.NO_MOVE);
         if (levelFinished || !chipAlive) {
             return false; // don't allow players to move once level is finished
         }
-        boolean chipMoveSuccessful = executeMove(dir, chip);
-        if(!chipMoveSuccessful){
-            return false;
-        }
-        for(int i = 0; i < userGenerateCharacters.size(); i++){
-            // repeatedly call the characters move method until you get a valid move
-            boolean successfulMove = false;
-            UserGeneratedCharacter character = userGenerateCharacters.get(i);
-            while(!successfulMove){
-                successfulMove = executeMove(character.move(), character);
+        beginTurn();
+        try {
+            boolean chipMoveSuccessful = executeMove(dir, chip);
+            if (!chipMoveSuccessful) {
+                return false;
             }
+            moveOtherCharacters();
+        } finally {
+            endTurn();
         }
 
         assert tilesContainsOneChip();
         assert !tilesContainsNull();
         assert checkCharacterAmount();
+        assert invariants.auditIfDue(cells, layers, chip, stateHash);
         return true;
     }
 
@@ -283,76 +760,73 @@ public class Board {
         if (row < 0 || row >= boardHeight || col < 0 || col >= boardWidth) {
             return false;
         }
-        int dy = row - chip.getRow();
-        int dx = col - chip.getCol();
-        if (!((Math.abs(dx) == 1 && Math.abs(dy) == 0) || (Math.abs(dx) == 0 && Math.abs(dy) == 1))) {
+        Direction dir = Direction.fromChange(row - chip.getRow(), col - chip.getCol());
+        if (dir == null || dir == Direction.NO_MOVE) {
             return false; // only allow chip to move one square
         }
-        String dir = null;
-        if (dx == -1) {
-            dir = "left";
-        } else if (dx == 1) {
-            dir = "right";
-        } else if (dy == -1) {
-            dir = "up";
-        } else if (dy == 1) {
-            dir = "down";
-        }
-        assert dir != null;
         return moveChip(dir);
     }
 
+    /**
+     * String based version of executeMove kept for callers that still use direction names
+     * @param dir the direction the character is trying to move in (left, right, up, down, noMove)
+     * @param character the character trying to move
+     * @return whether the move was valid or not
+     */
+    public boolean executeMove(String dir, Character character){
+        return executeMove(Direction.fromString(dir), character);
+    }
+
     /**
      * This method converts the direction to the row and column the character is trying to move to
      * It then checks whether the character is not trying to move off the board
      * It then calls either executeChipMove or executeOtherCharacterMove depending on the type of character
      * If the move was successful then the move is stored
-     * @param dir the direction the character is trying to move in (left, right, up, down)
+     * A move made outside of moveChip is journaled as a turn of its own
+     * @param dir the direction the character is trying to move in
      * @param character the character trying to move
      * @return whether the move was valid or not
      */
-    public boolean executeMove(String dir, Character character){
+    public boolean executeMove(Direction dir, Character character){
         Preconditions.checkNotNull(dir);
-        Preconditions.checkArgument(dir.equals("left") || dir.equals("right") || dir.equals("up")
-                || dir.equals("down") || dir.equals("noMove"));
         Preconditions.checkNotNull(character);
+        if (journal.inTurn()) {
+            return executeMoveInTurn(dir, character);
+        }
+        beginTurn();
+        try {
+            return executeMoveInTurn(dir, character);
+        } finally {
+            endTurn();
+        }
+    }
 
-        int row = character.getRow();
-        int col = character.getCol();
-        int newRow = row;
-        int newCol = col;
-        if (dir.equals("left")) {
-            newCol = col - 1;
-        } else if (dir.equals("right")) {
-            newCol = col + 1;
-        } else if (dir.equals("up")) {
-            newRow = row - 1;
-        } else if (dir.equals("down")) {
-            newRow = row + 1;
+    /**
+     * Carries out executeMove once a turn is being journaled
+     * @param dir the direction the character is trying to move in
+     * @param character the character trying to move
+     * @return whether the move was valid or not
+     */
+    private boolean executeMoveInTurn(Direction dir, Character character){
+        if(character instanceof UserGeneratedCharacter){
+            int id = characterRegistry.idOf(character);
+            Preconditions.checkArgument(id >= 0, "Character is not on this board");
+            return executeOtherCharacterMove(id, dir);
         }
+        int newRow = character.getRow() + dir.getRowChange();
+        int newCol = character.getCol() + dir.getColChange();
         if (newCol < 0 || newCol >= boardWidth || newRow < 0 || newRow >= boardHeight) {
             return false;
         }
 
-
         boolean successfulMove = false;
         if(character instanceof Chip){
             successfulMove = executeChipMove(newRow, newCol);
             if(successfulMove){
                 chipMoves.add(dir);
-            }
-
-        }else if(character instanceof UserGeneratedCharacter){
-            successfulMove = executeOtherCharacterMove(character, newRow, newCol);
-            if(successfulMove) {
-                int index = userGenerateCharacters.indexOf(character);
-                otherCharactersMoves.get(index).add(dir);
+                journal.record(MoveJournal.CHIP_MOVE, 0, -1, dir.ordinal());
             }
         }
-
-        // make sure chip has only moved one square or is not moving
-        int totalChange = Math.abs(row + col - newRow - newCol);
-        assert totalChange == 1 || (totalChange == 0 && dir.equals("noMove"));
         return successfulMove;
     }
 
@@ -363,6 +837,7 @@ public class Board {
      * Updates key and treasure fields if chip lands on them
      * If chip moves to a tile with an item the item gets removed from the tile
      * Updates levelFinished, chipAlive and onInfoTile game state changes
+     * The move is validated before any cell is changed so an invalid move leaves the board untouched
      *
      * @param newCol the column of the tile chip is trying to move to
      * @param newRow the row of the tile chip is trying to move to
@@ -372,65 +847,81 @@ public class Board {
     private boolean executeChipMove(int newRow, int newCol){
         Preconditions.checkArgument(newRow >= 0 && newRow < boardHeight &&newCol >= 0 && newCol < boardWidth);
         Preconditions.checkNotNull(chip);
-        Tile oldTile = tiles[chip.getRow()][chip.getCol()];
-        Tile newTile = tiles[newRow][newCol];
+        int oldIndex = cells.index(chip.getRow(), chip.getCol());
+        int newIndex = cells.index(newRow, newCol);
+        byte newTile = cells.getTile(newIndex);
+        TileKind kind = TileKind.of(newTile);
+        byte item = cells.getItem(newIndex);
         onInfoTile = false;
         treasureCollected = false;
         keyCollected = false;
 
-        // after chip moves off a SingleUseTile it turns into a WallTile
-        if(oldTile instanceof SingleUseTile){
-            tiles[chip.getRow()][chip.getCol()] = new WallTile();
-            oldTile = tiles[chip.getRow()][chip.getCol()]; // update pointer
+        if (!kind.isChipEnterable()) {
+            return false; // can't move onto walls
+        }
+        if (cells.getCharacter(newIndex) >= PackedBoard.FIRST_OTHER_CHARACTER) {
+            return false; // can't move on top of bugs
+        }
+        if (item == PackedBoard.EXIT_LOCK && treasureRemainingAmount > 0) {
+            return false;
+        }
+        // don't allow chip to move onto a locked door if he doesn't have the corresponding key
+        if (kind.getKeyColour() >= 0 && chip.getKeyCount(kind.getKeyColour()) == 0) {
+            return false;
         }
 
-        if (newTile instanceof FreeTile) {
-            Item item = ((FreeTile) newTile).getItem();
-            if (item instanceof ExitLock && treasureRemainingAmount > 0) {
-                return false;
-            } else if (item instanceof Key) {
-                List<Key> inventory = chip.getKeys();
-                int initialSize = inventory.size();
-                chip.addKey((Key) Preconditions.checkNotNull(item));
+        // tiles such as SingleUseTile change when chip moves off them
+        TileKind oldKind = TileKind.of(cells.getTile(oldIndex));
+        if (oldIndex != newIndex && oldKind.becomesOnLeave() != null) {
+            setTileCode(oldIndex, oldKind.becomesOnLeave().getCode());
+            events.publish(BoardEvent.TILE_CONSUMED, oldIndex, oldKind.getCode());
+        }
+
+        if (item != PackedBoard.NO_ITEM) {
+            if (PackedBoard.isKey(item)) {
+                int colourIndex = item - PackedBoard.KEY_RED;
+                int initialSize = chip.getKeyTotal();
+                int keys = chip.getKeyCount(colourIndex) + 1;
+                chip.setKeyCount(colourIndex, keys);
                 keyCollected = true;
-                assert inventory.size() - initialSize == 1;
-                assert inventory.get(inventory.size() - 1).getColour() == ((Key) item).getColour();
-            } else if (item instanceof Treasure) {
+                journal.record(MoveJournal.KEYS, colourIndex, keys - 1, keys);
+                assert chip.getKeyTotal() - initialSize == 1;
+            } else if (item == PackedBoard.TREASURE) {
                 treasureCollectedAmount++;
                 treasureRemainingAmount--;
                 treasureCollected = true;
             }
-            ((FreeTile) newTile).setItem(null); // remove item from tile
-        } else if (newTile instanceof LockedDoor) {
-            // don't allow chip to move onto a locked door if he doesn't have the corresponding key
-            if (!chip.containsKey(((LockedDoor) newTile).getColour())) {
-                return false;
-            }
-            int keySize = chip.getKeys().size();
-            chip.removeKey(((LockedDoor) newTile).getColour()); // remove key from inventory
-            assert keySize - chip.getKeys().size() == 1;
-            tiles[newRow][newCol] = new FreeTile(); // moving to a LockedDoor changes it to a FreeTile
-            newTile = tiles[newRow][newCol]; // update pointer
-            assert newTile instanceof FreeTile;
-        } else if (newTile instanceof Exit) {
+            setItemCode(newIndex, PackedBoard.NO_ITEM); // remove item from tile
+            events.publish(BoardEvent.ITEM_PICKED_UP, newIndex, item);
+        }
+        if (kind.getKeyColour() >= 0) {
+            int colourIndex = kind.getKeyColour();
+            int keySize = chip.getKeyTotal();
+            int keys = chip.getKeyCount(colourIndex) - 1;
+            chip.setKeyCount(colourIndex, keys); // remove key from inventory
+            journal.record(MoveJournal.KEYS, colourIndex, keys + 1, keys);
+            assert keySize - chip.getKeyTotal() == 1;
+        }
+        if (kind.becomesOnEnter() != null) {
+            setTileCode(newIndex, kind.becomesOnEnter().getCode()); // moving to a LockedDoor opens it
+            events.publish(BoardEvent.DOOR_OPENED, newIndex, newTile);
+        }
+        if (kind.finishesLevel()) {
             assert treasureRemainingAmount == 0; // this should be 0 or else they wouldn't be able to get through lock
             levelFinished = true;
-        } else if (newTile instanceof WallTile) {
-            return false; // can't move to the WallTile or move on top of bug
-        } else if (newTile instanceof InfoField) {
-            onInfoTile = true;
-        } else if (!(newTile instanceof SingleUseTile)){
-            assert false; // no other possible square types to move to
+            events.publish(BoardEvent.LEVEL_FINISHED, newIndex, 0);
         }
-        if(newTile.getCharacter() instanceof UserGeneratedCharacter) {
-            return false; // can't move on top of bugs
+        if (kind.showsInfo()) {
+            onInfoTile = true;
+            events.publish(BoardEvent.INFO_TILE_ENTERED, newIndex, 0);
         }
 
         // move chip
-        oldTile.setCharacter(null);
-        newTile.setCharacter(chip);
+        moveCharacterSlot(oldIndex, newIndex, PackedBoard.CHIP);
         chip.setRow(newRow);
         chip.setCol(newCol);
+        journal.record(MoveJournal.POSITION, PackedBoard.CHIP, oldIndex, newIndex);
+        events.publish(BoardEvent.CHARACTER_MOVED, newIndex, PackedBoard.CHIP);
 
         // post conditions
         assert tilesContainsOneChip();
@@ -438,40 +929,226 @@ public class Board {
         assert checkCharacterAmount();
         assert initialTreasureAmount == treasureCollectedAmount + treasureRemainingAmount;
         assert treasureRemainingAmount >= 0;
-        assert !(newTile instanceof LockedDoor) && !(newTile instanceof WallTile);
+        assert TileKind.of(cells.getTile(newIndex)).isChipEnterable()
+                && TileKind.of(cells.getTile(newIndex)).getKeyColour() < 0;
         return true;
     }
 
+    /**
+     * Moves every character other than chip once, in id order.
+     * When a tick pool is set the characters that can't be affected by the moves of characters before them choose
+     * their moves in parallel first. The rest choose during the sequential pass, so the result is the same as moving
+     * every character one at a time.
+     */
+    private void moveOtherCharacters(){
+        int count = characterRegistry.size();
+        for (int id = 0; id < count; id++) {
+            characterRegistry.get(id).setRandom(turnRandom(id));
+        }
+        characterTurns++;
+        boolean planned = tickPool != null && count >= PARALLEL_TICK_THRESHOLD;
+        if (planned) {
+            if (plannedMoves == null) {
+                plannedMoves = new Direction[count];
+            }
+            tickPool.invoke(new PlanMoves(0, count));
+        }
+        for (int id = 0; id < count; id++) {
+            Direction move = planned ? plannedMoves[id] : null;
+            if (move == null) {
+                move = chooseMove(id);
+            }
+            assert legalMoves(id).contains(move);
+            boolean successfulMove = executeOtherCharacterMove(id, move);
+            assert successfulMove;
+        }
+    }
+
+    /**
+     * Draws the random source a character uses this turn from the board's seed, the character's id and the number of
+     * turns so far, so its choices don't depend on turns that were undone
+     * @param id the registry id of the character
+     * @return the random source
+     */
+    private SplittableRandom turnRandom(int id){
+        long z = seed ^ ((long) characterTurns << 32 | id & 0xFFFFFFFFL) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return new SplittableRandom(z ^ (z >>> 31));
+    }
+
+    /**
+     * Asks a character to choose from its legal moves, the character choosing an illegal move means it stays put
+     * @param id the registry id of the character
+     * @return the move to carry out
+     */
+    private Direction chooseMove(int id){
+        LegalMoves legalMoves = legalMoves(id);
+        Direction move = characterRegistry.get(id).move(legalMoves);
+        return legalMoves.contains(move) ? move : Direction.NO_MOVE;
+    }
+
+    /**
+     * Checks whether a character's legal moves this turn depend on the moves of characters with lower ids. A character
+     * only changes the cells within one step of where it starts and legal moves only depend on the cells within one step,
+     * so that can only happen when a lower id character starts within two steps.
+     * @param id the registry id of the character
+     * @return whether no character with a lower id is within two steps of the character
+     */
+    private boolean isIndependentOfEarlierMoves(int id){
+        int index = characterRegistry.cellOf(id);
+        int row = cells.rowOf(index);
+        int col = cells.colOf(index);
+        for (int dr = -2; dr <= 2; dr++) {
+            int reach = 2 - Math.abs(dr);
+            for (int dc = -reach; dc <= reach; dc++) {
+                int r = row + dr;
+                int c = col + dc;
+                if ((dr == 0 && dc == 0) || r < 0 || r >= boardHeight || c < 0 || c >= boardWidth) {
+                    continue;
+                }
+                short slot = cells.getCharacter(cells.index(r, c));
+                if (slot >= PackedBoard.FIRST_OTHER_CHARACTER && CharacterRegistry.idOfSlot(slot) < id) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Fork join task that plans the moves of a range of characters. The board isn't changed while it runs and every
+     * character only uses its own random source, so the tasks don't share any mutable state.
+     */
+    private class PlanMoves extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The first id in the range and one past the last id
+         */
+        private final int from, to;
+
+        /**
+         * @param from the first id in the range
+         * @param to one past the last id in the range
+         */
+        PlanMoves(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_TICK_CHUNK) {
+                for (int id = from; id < to; id++) {
+                    plannedMoves[id] = isIndependentOfEarlierMoves(id) ? chooseMove(id) : null;
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new PlanMoves(from, middle), new PlanMoves(middle, to));
+        }
+    }
+
+    /**
+     * Sets how the characters other than chip are moved each turn. With a pool their moves are planned in parallel and
+     * then carried out in id order, which gives exactly the same game as moving them one at a time. This needs the
+     * characters' move methods to only use the character's own state and random source.
+     * @param pool the pool to plan moves on, or null to move the characters one at a time
+     */
+    public void setTickPool(ForkJoinPool pool){
+        tickPool = pool;
+    }
+
+    /**
+     * Works out which directions a character other than chip can move in: onto a free tile without an item that
+     * isn't occupied by another character. Staying put is always legal.
+     * @param character a character on this board
+     * @return the moves the character could make this turn
+     */
+    public LegalMoves getLegalMoves(UserGeneratedCharacter character){
+        int id = characterRegistry.idOf(character);
+        Preconditions.checkArgument(id >= 0, "Character is not on this board");
+        return legalMoves(id);
+    }
+
+    /**
+     * @param id the registry id of a character
+     * @return the moves the character could make this turn
+     */
+    private LegalMoves legalMoves(int id){
+        int index = characterRegistry.cellOf(id);
+        int row = cells.rowOf(index);
+        int col = cells.colOf(index);
+        int mask = 0;
+        if (col > 0 && canOtherCharacterEnter(index - 1)) {
+            mask |= LegalMoves.bit(Direction.LEFT);
+        }
+        if (col < boardWidth - 1 && canOtherCharacterEnter(index + 1)) {
+            mask |= LegalMoves.bit(Direction.RIGHT);
+        }
+        if (row > 0 && canOtherCharacterEnter(index - boardWidth)) {
+            mask |= LegalMoves.bit(Direction.UP);
+        }
+        if (row < boardHeight - 1 && canOtherCharacterEnter(index + boardWidth)) {
+            mask |= LegalMoves.bit(Direction.DOWN);
+        }
+        return LegalMoves.of(mask);
+    }
+
+    /**
+     * @param index index of a neighbouring cell
+     * @return whether a character other than chip can move into the cell
+     */
+    private boolean canOtherCharacterEnter(int index){
+        return layers.isBugEnterable(index) && cells.getCharacter(index) < PackedBoard.FIRST_OTHER_CHARACTER;
+    }
+
     /**
      * Method that moves any character except chip. This only allows them to move onto free tiles
      * If moves them out of the tile they were previously in and into their new tile
-     * It also updates the row and column inside the character
+     * It also updates the row and column inside the character and stores the move
      * If they move on top of chip chip dies
-     * @param character the character being moved
-     * @param newRow the row the character is moving to
-     * @param newCol the column the character is moving to
+     * The character's position comes from the character registry so no list or grid has to be searched
+     * @param id the registry id of the character being moved
+     * @param dir the direction the character is moving in
      * @return whether the move was successful
      */
-    private boolean executeOtherCharacterMove(Character character, int newRow, int newCol){
-        Preconditions.checkNotNull(character);
-        Preconditions.checkArgument(character instanceof UserGeneratedCharacter);
-        Preconditions.checkArgument(newRow >= 0 && newRow < boardHeight &&newCol >= 0 && newCol < boardWidth);
-        int row = character.getRow();
-        int col = character.getCol();
-        Tile oldTile = tiles[row][col];
-        Tile newTile = tiles[newRow][newCol];
-        if(!(newTile instanceof FreeTile) || (((FreeTile) newTile).getItem()) != null){
+    private boolean executeOtherCharacterMove(int id, Direction dir){
+        Preconditions.checkNotNull(dir);
+        int oldIndex = characterRegistry.cellOf(id);
+        int newRow = cells.rowOf(oldIndex) + dir.getRowChange();
+        int newCol = cells.colOf(oldIndex) + dir.getColChange();
+        if (newCol < 0 || newCol >= boardWidth || newRow < 0 || newRow >= boardHeight) {
             return false;
         }
-        if(newTile.getCharacter() instanceof Chip){
+        int newIndex = cells.index(newRow, newCol);
+        short slot = CharacterRegistry.slotOf(id);
+        assert cells.getCharacter(oldIndex) == slot;
+        if(newIndex != oldIndex && !layers.isBugEnterable(newIndex)){
+            return false; // characters can only move onto free tiles without items, staying put is always allowed
+        }
+        short occupant = cells.getCharacter(newIndex);
+        if(newIndex != oldIndex && occupant >= PackedBoard.FIRST_OTHER_CHARACTER){
+            return false; // two characters can't share a tile
+        }
+        if(occupant == PackedBoard.CHIP){
             chipAlive = false; // if a character walks on top of chip then he dies and has to start again
         }
 
         // move character
-        oldTile.setCharacter(null);
-        newTile.setCharacter(character);
+        moveCharacterSlot(oldIndex, newIndex, slot);
+        UserGeneratedCharacter character = characterRegistry.get(id);
         character.setRow(newRow);
         character.setCol(newCol);
+        characterRegistry.moveTo(id, newIndex);
+        journal.record(MoveJournal.POSITION, slot, oldIndex, newIndex);
+        otherCharactersMoves.get(id).add(dir);
+        journal.record(MoveJournal.OTHER_MOVE, id, -1, dir.ordinal());
+        events.publish(BoardEvent.CHARACTER_MOVED, newIndex, slot);
+        if(occupant == PackedBoard.CHIP){
+            events.publish(BoardEvent.CHIP_DIED, newIndex, slot);
+        }
 
         // post conditions
         assert tilesContainsOneChip();
@@ -481,48 +1158,262 @@ public class Board {
     }
 
     /**
-     * @return converts the board to a string
+     * Moves a character slot from one cell to another, replacing whatever was in the new cell
+     * @param oldIndex index of the cell the character is leaving
+     * @param newIndex index of the cell the character is entering
+     * @param slot the character slot being moved
      */
-    public String toString() {
-        String s = "";
-        for (int i = 0; i < boardHeight; i++) {
-            s += "|";
-            for (int j = 0; j < boardWidth; j++) {
-                s += tiles[i][j].getLetter() + "|";
+    private void moveCharacterSlot(int oldIndex, int newIndex, short slot){
+        setCharacterSlot(oldIndex, PackedBoard.NO_CHARACTER);
+        setCharacterSlot(newIndex, slot);
+    }
+
+    /**
+     * Changes the tile code of a cell and replaces the tile object in the tile view if it has been built, which is
+     * only a reference swap when the cell becomes a tile type with a shared instance
+     * @param index index of the cell
+     * @param code the new tile code
+     */
+    private void setTileCode(int index, byte code){
+        journal.record(MoveJournal.TILE, index, cells.getTile(index), code);
+        stateHash ^= ZobristKeys.tile(index, cells.getTile(index)) ^ ZobristKeys.tile(index, code);
+        invariants.tileChanged(cells.getTile(index), code);
+        cells.setTile(index, code);
+        version++;
+        if(tileView != null){
+            tileView[cells.rowOf(index)][cells.colOf(index)] = newViewTile(index);
+        }
+    }
+
+    /**
+     * Changes the item code of a cell and updates the tile view if it has been built
+     * @param index index of the cell
+     * @param code the new item code
+     */
+    private void setItemCode(int index, byte code){
+        journal.record(MoveJournal.ITEM, index, cells.getItem(index), code);
+        stateHash ^= ZobristKeys.item(index, cells.getItem(index)) ^ ZobristKeys.item(index, code);
+        cells.setItem(index, code);
+        version++;
+        if(tileView != null){
+            ((FreeTile) tileView[cells.rowOf(index)][cells.colOf(index)]).setItem(PackedBoard.newItem(code));
+        }
+    }
+
+    /**
+     * Changes the character slot of a cell and updates the tile view if it has been built. A cell whose view tile is a
+     * shared wall only holds a slot while a used up single use tile is undone, and the slot is put on the tile that
+     * replaces the wall when the tile code is undone next.
+     * @param index index of the cell
+     * @param slot the new character slot
+     */
+    private void setCharacterSlot(int index, short slot){
+        journal.record(MoveJournal.SLOT, index, cells.getCharacter(index), slot);
+        stateHash ^= ZobristKeys.character(index, cells.getCharacter(index)) ^ ZobristKeys.character(index, slot);
+        invariants.characterChanged(cells.getCharacter(index), slot);
+        cells.setCharacter(index, slot);
+        version++;
+        if(tileView != null){
+            Tile tile = tileView[cells.rowOf(index)][cells.colOf(index)];
+            if(tile.isShared() == false){
+                tile.setCharacter(characterInSlot(slot));
             }
-            s += "\n";
         }
-        return s;
     }
 
     /**
-     * @return whether any tiles in the tile array are null objects
+     * Hashes the starting state and keeps the key part of the hash up to date by listening to chip's inventory, so
+     * keys added or removed outside the board are included as well
      */
-    private boolean tilesContainsNull(){
-        for (int i = 0; i < tiles.length; i++) {
-            for (int j = 0; j < tiles[0].length; j++) {
-                if(tiles[i][j] == null){
-                    return true;
+    private void startStateHash(){
+        startStateHash(ZobristKeys.hashOf(cells, chip));
+    }
+
+    /**
+     * Starts the state hash from an already known hash of the starting state
+     * @param hash the hash of the starting state
+     */
+    private void startStateHash(long hash){
+        stateHash = hash;
+        for (int c = 0; c < hashedKeyCounts.length; c++) {
+            hashedKeyCounts[c] = chip.getKeyCount(c);
+        }
+        chip.addInventoryListener((c, colourIndex, count) -> {
+            stateHash ^= ZobristKeys.keys(colourIndex, hashedKeyCounts[colourIndex])
+                    ^ ZobristKeys.keys(colourIndex, count);
+            hashedKeyCounts[colourIndex] = count;
+        });
+    }
+
+    /**
+     * Starts journaling a turn, remembering the game state so it can be restored if the turn is undone
+     */
+    private void beginTurn(){
+        journal.beginTurn();
+        turnStartFlags = packFlags();
+        turnStartTreasure = treasureCollectedAmount;
+        turnStartCharacterTurns = characterTurns;
+    }
+
+    /**
+     * Finishes journaling a turn and delivers the events it published. The game state is only recorded if the turn
+     * changed the board. On boards read from a level source the chunks around chip are read ahead.
+     */
+    private void endTurn(){
+        if(journal.turnHasDeltas()){
+            journal.record(MoveJournal.FLAGS, 0, turnStartFlags, packFlags());
+            journal.record(MoveJournal.TREASURE, 0, turnStartTreasure, treasureCollectedAmount);
+            journal.record(MoveJournal.TURNS, 0, turnStartCharacterTurns, characterTurns);
+        }
+        journal.endTurn();
+        events.deliver();
+        if(cells.hasSource() && chipAlive){
+            cells.prefetch(chip.getRow(), chip.getCol(), PREFETCH_RADIUS);
+        }
+    }
+
+    /**
+     * @return the game state flags packed into the bits of an int
+     */
+    private int packFlags(){
+        return (chipAlive ? CHIP_ALIVE : 0) | (levelFinished ? LEVEL_FINISHED : 0) | (onInfoTile ? ON_INFO_TILE : 0)
+                | (treasureCollected ? TREASURE_COLLECTED : 0) | (keyCollected ? KEY_COLLECTED : 0);
+    }
+
+    /**
+     * Applies a value from the journal to the board. Cells are changed through the same methods moves use so the
+     * tile view, invariants and version stay in sync, the journal ignores the changes while it is applying them.
+     * @param kind the kind of delta
+     * @param target what the delta changes
+     * @param value the value to set
+     */
+    private void applyDelta(byte kind, int target, int value){
+        switch (kind) {
+            case MoveJournal.TILE:
+                setTileCode(target, (byte) value);
+                break;
+            case MoveJournal.ITEM:
+                setItemCode(target, (byte) value);
+                break;
+            case MoveJournal.SLOT:
+                setCharacterSlot(target, (short) value);
+                break;
+            case MoveJournal.POSITION:
+                Character character = characterInSlot((short) target);
+                character.setRow(cells.rowOf(value));
+                character.setCol(cells.colOf(value));
+                if (target >= PackedBoard.FIRST_OTHER_CHARACTER) {
+                    characterRegistry.moveTo(CharacterRegistry.idOfSlot((short) target), value);
                 }
-            }
+                break;
+            case MoveJournal.KEYS:
+                chip.setKeyCount(target, value);
+                break;
+            case MoveJournal.FLAGS:
+                chipAlive = (value & CHIP_ALIVE) != 0;
+                levelFinished = (value & LEVEL_FINISHED) != 0;
+                onInfoTile = (value & ON_INFO_TILE) != 0;
+                treasureCollected = (value & TREASURE_COLLECTED) != 0;
+                keyCollected = (value & KEY_COLLECTED) != 0;
+                break;
+            case MoveJournal.TREASURE:
+                treasureCollectedAmount = value;
+                treasureRemainingAmount = initialTreasureAmount - value;
+                break;
+            case MoveJournal.TURNS:
+                characterTurns = value;
+                break;
+            case MoveJournal.CHIP_MOVE:
+                applyMove(chipMoves, value);
+                break;
+            case MoveJournal.OTHER_MOVE:
+                applyMove(otherCharactersMoves.get(target), value);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown journal delta: " + kind);
         }
-        return false;
     }
 
     /**
-     * Checks whether the tile array contains exactly one chip and if it doesn't whether he is dead as if a bug goes on
+     * Adds a move to the end of a move list or removes the last move when undoing
+     * @param moves the list of moves
+     * @param value the ordinal of the direction to add, or -1 to remove the last move
+     */
+    private static void applyMove(List<Direction> moves, int value){
+        if (value < 0) {
+            moves.remove(moves.size() - 1);
+        } else {
+            moves.add(DIRECTIONS[value]);
+        }
+    }
+
+
+    /**
+     * @param slot a character slot from the packed board
+     * @return the character occupying the slot or null for an empty slot
+     */
+    Character characterInSlot(short slot){
+        if(slot == PackedBoard.NO_CHARACTER){
+            return null;
+        } else if(slot == PackedBoard.CHIP){
+            return chip;
+        }
+        return characterRegistry.get(CharacterRegistry.idOfSlot(slot));
+    }
+
+    /**
+     * @return converts the board to a string
+     */
+    public String toString() {
+        StringBuilder s = new StringBuilder(boardHeight * (2 * boardWidth + 2));
+        try {
+            textWriter().write(s);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // a StringBuilder never throws
+        }
+        return s.toString();
+    }
+
+    /**
+     * Creates a writer that streams the board in the same format as toString, which can be limited to a region of the
+     * board or coloured for terminals. Use this instead of toString for large boards.
+     * @return a writer for the whole board
+     */
+    public BoardTextWriter textWriter() {
+        return new BoardTextWriter(this, cells);
+    }
+
+    /**
+     * @return a solver that finds the shortest way to finish the level from the current state of this board. The
+     * solver works on a copy of the cells so the board can still be played
+     */
+    public LevelSolver solver() {
+        return new LevelSolver(this, cells.copy());
+    }
+
+    /**
+     * When assertions are enabled the invariants are checked against running counts after every move. This turns on
+     * a full recount of the board every given number of turns to make sure those counts are right.
+     * @param turns number of turns between full recounts, or 0 to turn recounting off
+     */
+    public void setInvariantAuditInterval(int turns){
+        invariants.setAuditInterval(turns);
+    }
+
+    /**
+     * @return whether any cell in the packed board holds an invalid tile code
+     */
+    private boolean tilesContainsNull(){
+        return invariants.getInvalidTileCount() != 0;
+    }
+
+    /**
+     * Checks whether the board contains exactly one chip and if it doesn't whether he is dead as if a bug goes on
      * top of chip he dies
-     * @return whether the tile array contains chip
+     * @return whether the board contains chip
      */
     private boolean tilesContainsOneChip(){
-        int chipNum = 0;
-        for (int i = 0; i < tiles.length; i++) {
-            for (int j = 0; j < tiles[0].length; j++) {
-                if(tiles[i][j].getCharacter() instanceof Chip){
-                    chipNum++;
-                }
-            }
-        }
+        int chipNum = invariants.getChipCount();
         return chipNum == 1 || (chipNum == 0 && !chipAlive);
     }
 
@@ -530,14 +1421,6 @@ public class Board {
      * @return whether the amount of non-chip characters on the board is the same as the starting amount
      */
     private boolean checkCharacterAmount(){
-        int characterNum = 0;
-        for (int i = 0; i < tiles.length; i++) {
-            for (int j = 0; j < tiles[0].length; j++) {
-                if(tiles[i][j].getCharacter() instanceof UserGeneratedCharacter){
-                    characterNum++;
-                }
-            }
-        }
-        return characterNum == characterAmount;
+        return invariants.getOtherCharacterCount() == characterAmount;
     }
 }
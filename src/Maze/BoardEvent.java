@@ -0,0 +1,44 @@
+package Maze;
+
+/**
+ * The kinds of change a board publishes to its listeners while a turn is played.
+ * The row and column of an event is the cell it happened in and the meaning of its detail value depends on the kind.
+ * @author Oscar Sykes 300486149
+ */
+public enum BoardEvent {
+    /**
+     * Chip picked up a key or treasure. The detail is the item code from PackedBoard
+     */
+    ITEM_PICKED_UP,
+    /**
+     * Chip opened a locked door with a key. The detail is the tile code of the door
+     */
+    DOOR_OPENED,
+    /**
+     * A single use tile was left and turned into a wall. The detail is the tile code it had
+     */
+    TILE_CONSUMED,
+    /**
+     * A character moved or stayed put. The detail is its character slot from PackedBoard
+     */
+    CHARACTER_MOVED,
+    /**
+     * Another character walked onto chip. The detail is the character slot of that character
+     */
+    CHIP_DIED,
+    /**
+     * Chip reached the exit. The detail is 0
+     */
+    LEVEL_FINISHED,
+    /**
+     * Chip stepped onto an info tile. The detail is 0
+     */
+    INFO_TILE_ENTERED;
+
+    /**
+     * @return the bit used for this kind of event in a subscription mask
+     */
+    public int bit() {
+        return 1 << ordinal();
+    }
+}
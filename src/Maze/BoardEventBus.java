@@ -0,0 +1,208 @@
+package Maze;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+
+/**
+ * Queues the events published by a board during a turn and hands them to its listeners once the turn is finished.
+ * Events are stored in preallocated primitive ring buffers, so publishing never allocates, and an event nobody has
+ * subscribed to is dropped with a single mask test. If a turn publishes more events than the ring holds the ring is
+ * doubled, so events are only delivered once the turn is over and no event is ever lost.
+ * Listeners are kept in copy on write arrays so they can subscribe and unsubscribe while events are being delivered.
+ * @author Oscar Sykes 300486149
+ */
+class BoardEventBus {
+
+    /**
+     * The default number of events the ring holds before it has to grow
+     */
+    static final int DEFAULT_CAPACITY = 256;
+
+    /**
+     * All event kinds indexed by ordinal
+     */
+    private static final BoardEvent[] EVENTS = BoardEvent.values();
+
+    /**
+     * The board publishing the events
+     */
+    private final Board board;
+
+    /**
+     * The packed cells of the board, used to turn cell indices into rows and columns
+     */
+    private final PackedBoard cells;
+
+    /**
+     * Ring buffers holding the kind, cell index and detail of every queued event
+     */
+    private byte[] kinds;
+    private int[] cellIndices, details;
+
+    /**
+     * Sequence numbers of the next event to deliver and of the next event to publish. Position i in the ring buffers
+     * holds the event with sequence number s where s % capacity == i
+     */
+    private long next = 0, end = 0;
+
+    /**
+     * The listeners and the mask of events each one subscribed to, in subscription order
+     */
+    private BoardListener[] listeners = new BoardListener[0];
+    private int[] masks = new int[0];
+
+    /**
+     * The union of every listener's mask
+     */
+    private int subscribedMask = 0;
+
+    /**
+     * Set while events are being delivered so events published by listeners are delivered by the same loop
+     */
+    private boolean delivering = false;
+
+    /**
+     * @param board the board publishing the events
+     * @param cells the packed cells of the board
+     * @param capacity number of events the ring holds at first
+     */
+    BoardEventBus(Board board, PackedBoard cells, int capacity) {
+        Preconditions.checkArgument(capacity > 0);
+        this.board = Preconditions.checkNotNull(board);
+        this.cells = Preconditions.checkNotNull(cells);
+        kinds = new byte[capacity];
+        cellIndices = new int[capacity];
+        details = new int[capacity];
+    }
+
+    /**
+     * Subscribes a listener to some kinds of event. Subscribing a listener again replaces its mask
+     * @param listener the listener
+     * @param mask the bits of the events the listener wants, see BoardEvent.bit
+     */
+    void subscribe(BoardListener listener, int mask) {
+        Preconditions.checkNotNull(listener);
+        Preconditions.checkArgument(mask != 0 && (mask >>> EVENTS.length) == 0);
+        int i = indexOf(listener);
+        if (i < 0) {
+            i = listeners.length;
+            listeners = Arrays.copyOf(listeners, i + 1);
+            masks = Arrays.copyOf(masks, i + 1);
+            listeners[i] = listener;
+        } else {
+            masks = masks.clone();
+        }
+        masks[i] = mask;
+        updateSubscribedMask();
+    }
+
+    /**
+     * @param listener a listener to stop sending events to
+     * @return whether the listener was subscribed
+     */
+    boolean unsubscribe(BoardListener listener) {
+        int i = indexOf(listener);
+        if (i < 0) {
+            return false;
+        }
+        BoardListener[] newListeners = new BoardListener[listeners.length - 1];
+        int[] newMasks = new int[masks.length - 1];
+        System.arraycopy(listeners, 0, newListeners, 0, i);
+        System.arraycopy(masks, 0, newMasks, 0, i);
+        System.arraycopy(listeners, i + 1, newListeners, i, newListeners.length - i);
+        System.arraycopy(masks, i + 1, newMasks, i, newMasks.length - i);
+        listeners = newListeners;
+        masks = newMasks;
+        updateSubscribedMask();
+        return true;
+    }
+
+    /**
+     * Queues an event, growing the ring first if it is full
+     * @param event the kind of event
+     * @param cellIndex index of the cell the event happened in
+     * @param detail extra information about the event
+     */
+    void publish(BoardEvent event, int cellIndex, int detail) {
+        if ((subscribedMask & event.bit()) == 0) {
+            return; // nobody is listening
+        }
+        if (end - next == kinds.length) {
+            grow();
+        }
+        int i = (int) (end % kinds.length);
+        kinds[i] = (byte) event.ordinal();
+        cellIndices[i] = cellIndex;
+        details[i] = detail;
+        end++;
+    }
+
+    /**
+     * Hands every queued event to the listeners that subscribed to it, in the order the events were published
+     */
+    void deliver() {
+        if (delivering) {
+            return; // the outer loop delivers events published by listeners
+        }
+        delivering = true;
+        try {
+            while (next < end) {
+                int i = (int) (next++ % kinds.length);
+                BoardEvent event = EVENTS[kinds[i]];
+                int row = cells.rowOf(cellIndices[i]), col = cells.colOf(cellIndices[i]), detail = details[i];
+                BoardListener[] current = listeners;
+                int[] currentMasks = masks;
+                for (int l = 0; l < current.length; l++) {
+                    if ((currentMasks[l] & event.bit()) != 0) {
+                        current[l].boardChanged(board, event, row, col, detail);
+                    }
+                }
+            }
+        } finally {
+            delivering = false;
+        }
+    }
+
+    /**
+     * Doubles the ring buffers, moving the queued events to the positions of their sequence numbers in the new ring
+     */
+    private void grow() {
+        int capacity = kinds.length * 2;
+        byte[] newKinds = new byte[capacity];
+        int[] newCellIndices = new int[capacity], newDetails = new int[capacity];
+        for (long s = next; s < end; s++) {
+            int from = (int) (s % kinds.length), to = (int) (s % capacity);
+            newKinds[to] = kinds[from];
+            newCellIndices[to] = cellIndices[from];
+            newDetails[to] = details[from];
+        }
+        kinds = newKinds;
+        cellIndices = newCellIndices;
+        details = newDetails;
+    }
+
+    /**
+     * @param listener a listener
+     * @return the index of the listener in the listener array, or -1 if it isn't subscribed
+     */
+    private int indexOf(BoardListener listener) {
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] == listener) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Recomputes the union of the listeners' masks
+     */
+    private void updateSubscribedMask() {
+        int mask = 0;
+        for (int m : masks) {
+            mask |= m;
+        }
+        subscribedMask = mask;
+    }
+}
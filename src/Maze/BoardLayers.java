@@ -0,0 +1,183 @@
+package Maze;
+
+import Maze.Tiles.TileKind;
+import com.google.common.base.Preconditions;
+
+/**
+ * Bitset layers over the cells of a board, one layer per tile code and one per item code.
+ * Bit i of a layer is set when cell i (the row-major index used by PackedBoard) holds that tile or item, so single
+ * cells can be tested with one mask and whole regions of the board can be queried 64 cells at a time.
+ * Item layer NO_ITEM is used for "holds any item". The layers are stored with the chunks of the packed board, which
+ * keeps them in sync whenever a cell changes and brings them into memory along with the cells.
+ * @author Oscar Sykes 300486149
+ */
+public class BoardLayers {
+
+    /**
+     * Bits per word of a layer
+     */
+    private static final int WORD_BITS = 64;
+
+    /**
+     * Every kind of tile, indexed by tile code
+     */
+    private static final TileKind[] KINDS = TileKind.values();
+
+    /**
+     * The board the layers are about
+     */
+    private final PackedBoard cells;
+
+    /**
+     * The number of cells covered and the number of words in every layer
+     */
+    private final int size, words;
+
+    /**
+     * Mask of the cells that exist in the last word of a layer
+     */
+    private final long lastWordMask;
+
+    /**
+     * Creates a view of the layers of a packed board
+     * @param cells the board the layers are about
+     */
+    BoardLayers(PackedBoard cells) {
+        this.cells = Preconditions.checkNotNull(cells);
+        size = cells.size();
+        words = (size + WORD_BITS - 1) / WORD_BITS;
+        int remainder = size % WORD_BITS;
+        lastWordMask = remainder == 0 ? -1L : (1L << remainder) - 1;
+    }
+
+    /**
+     * @return the number of words in every layer
+     */
+    public int getWords() {
+        return words;
+    }
+
+    /**
+     * @param index index of a cell
+     * @param code a tile code
+     * @return whether the cell holds the tile
+     */
+    public boolean hasTile(int index, byte code) {
+        return get(PackedBoard.TILE_LAYERS + code, index);
+    }
+
+    /**
+     * @param index index of a cell
+     * @param code an item code, or NO_ITEM to ask whether the cell holds any item
+     * @return whether the cell holds the item
+     */
+    public boolean hasItem(int index, byte code) {
+        return get(PackedBoard.ITEM_LAYERS + code, index);
+    }
+
+    /**
+     * @param code a tile code
+     * @param word index of a word
+     * @return 64 cells of the tile layer starting at cell word * 64
+     */
+    public long tileWord(byte code, int word) {
+        return cells.layerWord(PackedBoard.TILE_LAYERS + code, word);
+    }
+
+    /**
+     * @param code an item code, or NO_ITEM for the layer of cells holding any item
+     * @param word index of a word
+     * @return 64 cells of the item layer starting at cell word * 64
+     */
+    public long itemWord(byte code, int word) {
+        return cells.layerWord(PackedBoard.ITEM_LAYERS + code, word);
+    }
+
+    /**
+     * @param index index of a cell
+     * @return whether a character other than chip may enter the cell, ignoring characters already on it
+     */
+    public boolean isBugEnterable(int index) {
+        return cells.isBugEnterable(index);
+    }
+
+    /**
+     * Fills a bitset with every cell a character other than chip may enter (tiles whose kind lets them in, without an
+     * item)
+     * @param out bitset with at least getWords() words
+     */
+    public void bugEnterable(long[] out) {
+        Preconditions.checkArgument(out.length >= words);
+        for (int w = 0; w < words; w++) {
+            long enterable = 0;
+            for (TileKind kind : KINDS) {
+                if (kind.isBugEnterable()) {
+                    enterable |= tileWord(kind.getCode(), w);
+                }
+            }
+            out[w] = enterable & ~itemWord(PackedBoard.NO_ITEM, w);
+        }
+    }
+
+    /**
+     * Fills a bitset with every cell chip may enter, ignoring characters on the cells
+     * @param out bitset with at least getWords() words
+     * @param keyMask bit c is set when chip holds a key with colour index c
+     * @param exitLockOpen whether all treasure has been collected so exit locks can be passed
+     */
+    public void chipEnterable(long[] out, int keyMask, boolean exitLockOpen) {
+        Preconditions.checkArgument(out.length >= words);
+        for (int w = 0; w < words; w++) {
+            long blocked = 0;
+            for (TileKind kind : KINDS) {
+                int key = kind.getKeyColour();
+                if (!kind.isChipEnterable() || (key >= 0 && (keyMask & (1 << key)) == 0)) {
+                    blocked |= tileWord(kind.getCode(), w);
+                }
+            }
+            if (!exitLockOpen) {
+                blocked |= itemWord(PackedBoard.EXIT_LOCK, w);
+            }
+            out[w] = ~blocked;
+        }
+        out[words - 1] &= lastWordMask;
+    }
+
+    /**
+     * Checks the layers against a full scan of the board
+     * @param cells the board the layers are about
+     * @return whether every layer matches the board
+     */
+    boolean matches(PackedBoard cells) {
+        if (cells.size() != size) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            byte tile = cells.getTile(i);
+            for (byte code = 0; code <= PackedBoard.DOOR_YELLOW; code++) {
+                if (hasTile(i, code) != (code == tile)) {
+                    return false;
+                }
+            }
+            byte item = cells.getItem(i);
+            for (byte code = 1; code <= PackedBoard.EXIT_LOCK; code++) {
+                if (hasItem(i, code) != (code == item)) {
+                    return false;
+                }
+            }
+            if (hasItem(i, PackedBoard.NO_ITEM) != (item != PackedBoard.NO_ITEM)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param layer a layer of the packed board
+     * @param index index of a cell
+     * @return whether the cell's bit is set
+     */
+    private boolean get(int layer, int index) {
+        return (cells.layerWord(layer, index >>> 6) & (1L << index)) != 0;
+    }
+}
@@ -0,0 +1,19 @@
+package Maze;
+
+/**
+ * Gets told about the events a board publishes, so the GUI, audio and recorders only do the work their events need
+ * instead of polling the board after every move.
+ * @author Oscar Sykes 300486149
+ */
+public interface BoardListener {
+    /**
+     * Called once for every event the listener subscribed to, in the order the events happened, after the turn that
+     * caused them has finished
+     * @param board the board the event happened on
+     * @param event the kind of event
+     * @param row the row of the cell the event happened in
+     * @param col the column of the cell the event happened in
+     * @param detail extra information whose meaning depends on the kind of event
+     */
+    void boardChanged(Board board, BoardEvent event, int row, int col, int detail);
+}
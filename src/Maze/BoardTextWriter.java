@@ -0,0 +1,180 @@
+package Maze;
+
+import com.google.common.base.Preconditions;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+/**
+ * Streams the text form of a board (the format returned by Board.toString) to an Appendable one row at a time.
+ * Each row is built in a reusable character buffer straight from the packed cells, so dumping a board is linear in
+ * its size and doesn't build the whole text in memory. A rectangular part of the board can be written on its own and
+ * the letters can optionally be coloured with ANSI escape codes for terminals.
+ * @author Oscar Sykes 300486149
+ */
+public class BoardTextWriter {
+
+    /**
+     * ANSI escape codes used to colour letters in ANSI mode
+     */
+    private static final String RESET = "\u001b[0m", GREY = "\u001b[90m", RED = "\u001b[31m",
+            GREEN = "\u001b[32m", BLUE = "\u001b[34m", YELLOW = "\u001b[33m", GOLD = "\u001b[93m",
+            MAGENTA = "\u001b[35m", CYAN = "\u001b[36m", CHIP = "\u001b[1;97m", OTHER_CHARACTER = "\u001b[1;91m";
+
+    /**
+     * The board being written
+     */
+    private final Board board;
+
+    /**
+     * The packed cells of the board
+     */
+    private final PackedBoard cells;
+
+    /**
+     * The first row and column written and the number of rows and columns written
+     */
+    private int row = 0, col = 0, height, width;
+
+    /**
+     * Whether letters are coloured with ANSI escape codes
+     */
+    private boolean ansi = false;
+
+    /**
+     * Buffer the current row is built in, reused for every row
+     */
+    private char[] rowBuffer = new char[64];
+
+    /**
+     * The number of characters in the row buffer
+     */
+    private int length;
+
+    /**
+     * Creates a writer for the whole board without colours
+     * @param board the board to write
+     * @param cells the packed cells of the board
+     */
+    BoardTextWriter(Board board, PackedBoard cells) {
+        this.board = Preconditions.checkNotNull(board);
+        this.cells = Preconditions.checkNotNull(cells);
+        this.height = cells.getHeight();
+        this.width = cells.getWidth();
+    }
+
+    /**
+     * Limits the writer to a rectangular part of the board
+     * @param row the first row written
+     * @param col the first column written
+     * @param height the number of rows written
+     * @param width the number of columns written
+     */
+    public void setRegion(int row, int col, int height, int width) {
+        Preconditions.checkPositionIndexes(row, row + height, cells.getHeight());
+        Preconditions.checkPositionIndexes(col, col + width, cells.getWidth());
+        this.row = row;
+        this.col = col;
+        this.height = height;
+        this.width = width;
+    }
+
+    /**
+     * @param ansi whether letters should be coloured with ANSI escape codes
+     */
+    public void setAnsi(boolean ansi) {
+        this.ansi = ansi;
+    }
+
+    /**
+     * Writes the region of the board, one line per row
+     * @param out where the text is written
+     * @throws IOException if out throws one
+     */
+    public void write(Appendable out) throws IOException {
+        Preconditions.checkNotNull(out);
+        for (int i = row; i < row + height; i++) {
+            length = 0;
+            append('|');
+            for (int j = col; j < col + width; j++) {
+                int index = cells.index(i, j);
+                String colour = ansi ? colourOf(index) : null;
+                if (colour != null) {
+                    append(colour);
+                }
+                short slot = cells.getCharacter(index);
+                if (slot == PackedBoard.NO_CHARACTER) {
+                    append(cells.letter(index));
+                } else {
+                    append(board.characterInSlot(slot).getLetter());
+                }
+                if (colour != null) {
+                    append(RESET);
+                }
+                append('|');
+            }
+            append('\n');
+            flushRow(out);
+        }
+    }
+
+    /**
+     * Writes the row buffer to the output, without copying it when the output is a Writer
+     * @param out where the text is written
+     * @throws IOException if out throws one
+     */
+    private void flushRow(Appendable out) throws IOException {
+        if (out instanceof Writer) {
+            ((Writer) out).write(rowBuffer, 0, length);
+        } else {
+            out.append(CharBuffer.wrap(rowBuffer, 0, length));
+        }
+    }
+
+    /**
+     * @param index index of a cell
+     * @return the ANSI colour of the cell's letter, or null for the default colour
+     */
+    private String colourOf(int index) {
+        short slot = cells.getCharacter(index);
+        if (slot == PackedBoard.CHIP) {
+            return CHIP;
+        } else if (slot != PackedBoard.NO_CHARACTER) {
+            return OTHER_CHARACTER;
+        }
+        switch (cells.letter(index)) {
+            case 'W': return GREY;
+            case 'R': case 'r': return RED;
+            case 'G': case 'g': return GREEN;
+            case 'B': case 'b': return BLUE;
+            case 'Y': case 'y': return YELLOW;
+            case 'C': return GOLD;
+            case 'E': case 'X': return MAGENTA;
+            case 'I': return CYAN;
+            default: return null;
+        }
+    }
+
+    /**
+     * @param c character added to the row buffer
+     */
+    private void append(char c) {
+        if (length == rowBuffer.length) {
+            rowBuffer = Arrays.copyOf(rowBuffer, length * 2);
+        }
+        rowBuffer[length++] = c;
+    }
+
+    /**
+     * @param s characters added to the row buffer
+     */
+    private void append(String s) {
+        if (length + s.length() > rowBuffer.length) {
+            rowBuffer = Arrays.copyOf(rowBuffer, Math.max(length * 2, length + s.length()));
+        }
+        s.getChars(0, s.length(), rowBuffer, length);
+        length += s.length();
+    }
+}
@@ -0,0 +1,36 @@
+package Maze;
+
+import Maze.Tiles.Tile;
+
+/**
+ * A read-only view of the board used by the renderer and any code that only needs to look at the board.
+ * Tiles are returned directly from the live board instead of being copied, so they always reflect the current game
+ * state. Callers must not modify the tiles they get from a view.
+ * @author Oscar Sykes 300486149
+ */
+public interface BoardView {
+
+    /**
+     * @param row row of the tile
+     * @param col column of the tile
+     * @return the tile currently at the given position
+     */
+    Tile getTile(int row, int col);
+
+    /**
+     * @return the number of columns of tiles
+     */
+    int getBoardWidth();
+
+    /**
+     * @return the number of rows of tiles
+     */
+    int getBoardHeight();
+
+    /**
+     * The version increases every time any tile, item or character on the board changes, so callers can cheaply
+     * tell whether anything needs to be looked at again
+     * @return the current version of the board
+     */
+    long getVersion();
+}
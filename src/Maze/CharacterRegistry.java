@@ -0,0 +1,137 @@
+package Maze;
+
+import com.google.common.base.Preconditions;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Registry of the user generated characters on a board.
+ * Every character gets a dense id (0, 1, 2 ...) in the order it is registered and its cell index is kept in a
+ * primitive array indexed by id, so the board never has to search a list to find a character or where it is.
+ * The reverse lookup from a cell to the character on it is the character slot stored in PackedBoard, which is
+ * always FIRST_OTHER_CHARACTER + id for these characters.
+ * @author Oscar Sykes 300486149
+ */
+class CharacterRegistry {
+
+    /**
+     * The registered characters indexed by id
+     */
+    private UserGeneratedCharacter[] characters = new UserGeneratedCharacter[8];
+
+    /**
+     * The row-major index of the cell each character is in, indexed by id
+     */
+    private int[] cellIndices = new int[8];
+
+    /**
+     * The number of registered characters
+     */
+    private int size = 0;
+
+    /**
+     * Read only list view of the characters in id order
+     */
+    private final List<UserGeneratedCharacter> view = new AbstractList<UserGeneratedCharacter>() {
+        @Override
+        public UserGeneratedCharacter get(int index) {
+            return CharacterRegistry.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    };
+
+    /**
+     * Adds a character to the registry and gives it the next id
+     * @param character the character to add, which can't already belong to a registry
+     * @param cellIndex index of the cell the character starts in
+     * @return the id given to the character
+     */
+    int register(UserGeneratedCharacter character, int cellIndex) {
+        Preconditions.checkNotNull(character);
+        Preconditions.checkArgument(cellIndex >= 0);
+        Preconditions.checkState(size < Short.MAX_VALUE - PackedBoard.FIRST_OTHER_CHARACTER, "Too many characters");
+        if (size == characters.length) {
+            characters = Arrays.copyOf(characters, size * 2);
+            cellIndices = Arrays.copyOf(cellIndices, size * 2);
+        }
+        int id = size++;
+        characters[id] = character;
+        cellIndices[id] = cellIndex;
+        character.setId(id);
+        return id;
+    }
+
+    /**
+     * @return the number of registered characters
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @param id id of a character
+     * @return the character with that id
+     */
+    UserGeneratedCharacter get(int id) {
+        Preconditions.checkElementIndex(id, size);
+        return characters[id];
+    }
+
+    /**
+     * Finds the id of a character without searching
+     * @param character a character
+     * @return the id of the character, or -1 if it isn't in this registry
+     */
+    int idOf(Character character) {
+        if (!(character instanceof UserGeneratedCharacter)) {
+            return -1;
+        }
+        int id = ((UserGeneratedCharacter) character).getId();
+        return id >= 0 && id < size && characters[id] == character ? id : -1;
+    }
+
+    /**
+     * @param id id of a character
+     * @return the index of the cell the character is in
+     */
+    int cellOf(int id) {
+        return cellIndices[id];
+    }
+
+    /**
+     * @param id id of a character
+     * @param cellIndex index of the cell the character is now in
+     */
+    void moveTo(int id, int cellIndex) {
+        cellIndices[id] = cellIndex;
+    }
+
+    /**
+     * @param id id of a character
+     * @return the character slot used for the character in PackedBoard
+     */
+    static short slotOf(int id) {
+        return (short) (PackedBoard.FIRST_OTHER_CHARACTER + id);
+    }
+
+    /**
+     * @param slot a character slot of another character in PackedBoard
+     * @return the id of the character in the slot
+     */
+    static int idOfSlot(short slot) {
+        return slot - PackedBoard.FIRST_OTHER_CHARACTER;
+    }
+
+    /**
+     * @return a read only list of the characters in id order
+     */
+    List<UserGeneratedCharacter> asList() {
+        return view;
+    }
+}
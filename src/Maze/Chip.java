@@ -15,9 +15,35 @@ import java.util.List;
  */
 public class Chip extends Character{
     /**
-     * A list of the keys currently in chips inventory
+     * The number of key colours
      */
-    private List<Key> keys;
+    private static final int COLOURS = 4;
+
+    /**
+     * The number of keys of each colour in chips inventory, indexed by colour index (red, green, blue, yellow)
+     */
+    private final int[] keyCounts = new int[COLOURS];
+
+    /**
+     * The total number of keys in chips inventory
+     */
+    private int keyTotal = 0;
+
+    /**
+     * Increases every time the inventory changes
+     */
+    private long inventoryVersion = 0;
+
+    /**
+     * The list returned by getKeys and the inventory version it was built for
+     */
+    private List<Key> keyList = Collections.emptyList();
+    private long keyListVersion = 0;
+
+    /**
+     * Listeners told about every change to the inventory
+     */
+    private final List<InventoryListener> listeners = new ArrayList<>();
 
     /**
      * Constructs a chip object and initialises chips inventory of keys
@@ -27,7 +53,6 @@ public class Chip extends Character{
      */
     public Chip(int row, int col) {
         super(row, col);
-        this.keys = new ArrayList<>();
     }
 
     /**
@@ -38,9 +63,10 @@ public class Chip extends Character{
         Color c = key.getColour();
         Preconditions.checkArgument(c == Color.red || c == Color.blue || c == Color.green
                 || c == Color.yellow);
-        int inventorySize = keys.size();
-        keys.add(key);
-        assert keys.size() == inventorySize + 1;
+        int inventorySize = keyTotal;
+        int colourIndex = PackedBoard.colourIndex(c);
+        setKeyCount(colourIndex, keyCounts[colourIndex] + 1);
+        assert keyTotal == inventorySize + 1;
     }
 
     /**
@@ -50,33 +76,93 @@ public class Chip extends Character{
     public boolean containsKey(Color colour) {
         Preconditions.checkArgument(colour == Color.red || colour == Color.blue || colour == Color.green
                 || colour == Color.yellow);
-        for (Key key : keys) {
-            if (key.getColour() == colour) {
-                return true;
-            }
-        }
-        return false;
+        return keyCounts[PackedBoard.colourIndex(colour)] > 0;
     }
 
     /**
-     * @param colour returns the first key found of this colour
+     * @param colour removes one key of this colour, if chip has one
      */
     public void removeKey(Color colour) {
         Preconditions.checkArgument(colour == Color.red || colour == Color.blue || colour == Color.green
                 || colour == Color.yellow);
-        for (int i = 0; i < keys.size(); i++) {
-            if (keys.get(i).getColour() == colour) {
-                keys.remove(keys.get(i));
-                return;
-            }
+        int colourIndex = PackedBoard.colourIndex(colour);
+        if (keyCounts[colourIndex] > 0) {
+            setKeyCount(colourIndex, keyCounts[colourIndex] - 1);
+        }
+    }
+
+    /**
+     * @param colourIndex colour index of a key (red, green, blue, yellow)
+     * @return the number of keys of that colour in chips inventory
+     */
+    public int getKeyCount(int colourIndex) {
+        Preconditions.checkElementIndex(colourIndex, keyCounts.length);
+        return keyCounts[colourIndex];
+    }
+
+    /**
+     * @return the total number of keys in chips inventory
+     */
+    public int getKeyTotal() {
+        return keyTotal;
+    }
+
+    /**
+     * @return a number that increases every time the inventory changes, so callers can tell whether it changed
+     */
+    public long getInventoryVersion() {
+        return inventoryVersion;
+    }
+
+    /**
+     * Sets the number of keys of one colour and tells the listeners if it changed
+     * @param colourIndex colour index of the keys
+     * @param count the new number of keys of that colour
+     */
+    void setKeyCount(int colourIndex, int count) {
+        Preconditions.checkArgument(count >= 0);
+        int change = count - keyCounts[colourIndex];
+        if (change == 0) {
+            return;
+        }
+        keyCounts[colourIndex] = count;
+        keyTotal += change;
+        inventoryVersion++;
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).inventoryChanged(this, colourIndex, count);
         }
     }
 
     /**
-     * @return chips inventory of keys
+     * @param listener told about every change to the inventory from now on
+     */
+    public void addInventoryListener(InventoryListener listener) {
+        listeners.add(Preconditions.checkNotNull(listener));
+    }
+
+    /**
+     * @param listener a listener that should no longer be told about changes
+     */
+    public void removeInventoryListener(InventoryListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * The list is only rebuilt when the inventory has changed since the last call
+     * @return chips inventory of keys, grouped by colour in the order red, green, blue, yellow
      */
     public List<Key> getKeys() {
-        return Collections.unmodifiableList(keys);
+        if (keyListVersion != inventoryVersion) {
+            List<Key> keys = new ArrayList<>(keyTotal);
+            for (int i = 0; i < keyCounts.length; i++) {
+                for (int j = 0; j < keyCounts[i]; j++) {
+                    keys.add(Keys.KEYS[i]);
+                }
+            }
+            keyList = Collections.unmodifiableList(keys);
+            keyListVersion = inventoryVersion;
+        }
+        return keyList;
     }
 
     /**
@@ -85,4 +171,13 @@ public class Chip extends Character{
     public String getLetter(){
         return "H";
     }
+
+    /**
+     * Holds one shared key per colour, indexed by colour index. Keys are immutable so the inventory never needs its
+     * own. The inventory itself only counts keys, so the keys are only made once getKeys is called.
+     */
+    private static final class Keys {
+        static final Key[] KEYS = {new Key(Color.red), new Key(Color.green), new Key(Color.blue),
+                new Key(Color.yellow)};
+    }
 }
@@ -0,0 +1,96 @@
+package Maze;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * The directions a character can move in, including not moving at all.
+ * Each direction stores the change in row and column it causes so moves can be applied without comparing strings.
+ * @author Oscar Sykes 300486149
+ */
+public enum Direction {
+    LEFT("left", 0, -1),
+    RIGHT("right", 0, 1),
+    UP("up", -1, 0),
+    DOWN("down", 1, 0),
+    NO_MOVE("noMove", 0, 0);
+
+    /**
+     * All directions, cached so lookups don't copy the values array
+     */
+    private static final Direction[] ALL = values();
+
+    /**
+     * The name used for this direction in save files and the string based methods
+     */
+    private final String name;
+
+    /**
+     * The change in row and column caused by moving in this direction
+     */
+    private final int rowChange, colChange;
+
+    /**
+     * @param name the name used for this direction in save files
+     * @param rowChange the change in row caused by moving in this direction
+     * @param colChange the change in column caused by moving in this direction
+     */
+    Direction(String name, int rowChange, int colChange) {
+        this.name = name;
+        this.rowChange = rowChange;
+        this.colChange = colChange;
+    }
+
+    /**
+     * @return the change in row caused by moving in this direction
+     */
+    public int getRowChange() {
+        return rowChange;
+    }
+
+    /**
+     * @return the change in column caused by moving in this direction
+     */
+    public int getColChange() {
+        return colChange;
+    }
+
+    /**
+     * Converts the string used by older callers and save files into a direction
+     * @param name the direction name (left, right, up, down, noMove)
+     * @return the direction with the given name
+     */
+    public static Direction fromString(String name) {
+        Preconditions.checkNotNull(name);
+        switch (name) {
+            case "left": return LEFT;
+            case "right": return RIGHT;
+            case "up": return UP;
+            case "down": return DOWN;
+            case "noMove": return NO_MOVE;
+            default:
+                throw new IllegalArgumentException("Invalid direction: " + name);
+        }
+    }
+
+    /**
+     * Finds the direction that causes the given change in row and column
+     * @param rowChange change in row
+     * @param colChange change in column
+     * @return the matching direction or null if the change isn't a single step or no move
+     */
+    public static Direction fromChange(int rowChange, int colChange) {
+        for (Direction dir : ALL) {
+            if (dir.rowChange == rowChange && dir.colChange == colChange) {
+                return dir;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the name used for this direction in save files (left, right, up, down, noMove)
+     */
+    public String toString() {
+        return name;
+    }
+}
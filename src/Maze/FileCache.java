@@ -0,0 +1,60 @@
+package Maze;
+
+import com.google.common.base.Preconditions;
+
+import java.io.File;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Values worked out from files, such as parsed levels, kept so each file is only read again after it changes.
+ * The cache is keyed by path and holds one version of each file: once a file's modification time or length changes
+ * its value is worked out again and replaces the old one, so editing a level over and over doesn't keep every old
+ * version in memory.
+ * @param <V> the type of the values
+ * @author Oscar Sykes 300486149
+ */
+public final class FileCache<V> {
+
+    /**
+     * The value of a file and the modification time and length the file had when it was worked out
+     * @param <V> the type of the value
+     */
+    private static final class Version<V> {
+        final long modified, length;
+        final V value;
+
+        Version(long modified, long length, V value) {
+            this.modified = modified;
+            this.length = length;
+            this.value = value;
+        }
+    }
+
+    /**
+     * The latest version of every file, keyed by path
+     */
+    private final ConcurrentHashMap<String, Version<V>> versions = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the value of a file, working it out if the file isn't cached yet or has changed since it was. Only one
+     * thread works out the value of a file at a time.
+     * @param file the file
+     * @param load works out the value of the file. If it throws, the cache is left as it was
+     * @return the value of the file as it is now
+     */
+    public V get(File file, Function<File, V> load) {
+        Preconditions.checkNotNull(file);
+        Preconditions.checkNotNull(load);
+        long modified = file.lastModified(), length = file.length();
+        return versions.compute(file.getPath(), (path, old) -> old != null && old.modified == modified
+                && old.length == length ? old : new Version<>(modified, length, load.apply(file))).value;
+    }
+
+    /**
+     * @return the number of files in the cache
+     */
+    public int size() {
+        return versions.size();
+    }
+}
@@ -0,0 +1,161 @@
+package Maze;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Keeps running counts of the things the board's invariants are about (chips, other characters and invalid tile
+ * codes) so the assertions in Board can be checked in constant time instead of scanning every cell.
+ * The board reports every cell change to the tracker. An optional audit mode periodically recounts the whole board
+ * to catch mistakes in the counters themselves.
+ * @author Oscar Sykes 300486149
+ */
+class InvariantTracker {
+
+    /**
+     * The number of cells holding chip, holding another character and holding an invalid tile code
+     */
+    private int chipCount, otherCharacterCount, invalidTileCount;
+
+    /**
+     * How many audit requests are skipped between full recounts. 0 means audits are turned off
+     */
+    private int auditInterval = 0;
+
+    /**
+     * The number of audit requests since the last full recount
+     */
+    private int requestsSinceAudit = 0;
+
+    /**
+     * Creates a tracker with counts taken from a full scan of the board
+     * @param cells the board to count
+     */
+    InvariantTracker(PackedBoard cells) {
+        Preconditions.checkNotNull(cells);
+        int[] counts = count(cells);
+        chipCount = counts[0];
+        otherCharacterCount = counts[1];
+        invalidTileCount = counts[2];
+    }
+
+    /**
+     * Creates a tracker with counts that are already known, such as those of a board fresh from a level source
+     * whose letters have all been checked
+     * @param chipCount the number of cells holding chip
+     * @param otherCharacterCount the number of cells holding another character
+     */
+    InvariantTracker(int chipCount, int otherCharacterCount) {
+        this.chipCount = chipCount;
+        this.otherCharacterCount = otherCharacterCount;
+    }
+
+    /**
+     * Updates the counts when the tile code of a cell changes
+     * @param oldCode the previous tile code
+     * @param newCode the new tile code
+     */
+    void tileChanged(byte oldCode, byte newCode) {
+        if (!isValidTile(oldCode)) {
+            invalidTileCount--;
+        }
+        if (!isValidTile(newCode)) {
+            invalidTileCount++;
+        }
+    }
+
+    /**
+     * Updates the counts when the character slot of a cell changes
+     * @param oldSlot the previous character slot
+     * @param newSlot the new character slot
+     */
+    void characterChanged(short oldSlot, short newSlot) {
+        if (oldSlot == PackedBoard.CHIP) {
+            chipCount--;
+        } else if (oldSlot >= PackedBoard.FIRST_OTHER_CHARACTER) {
+            otherCharacterCount--;
+        }
+        if (newSlot == PackedBoard.CHIP) {
+            chipCount++;
+        } else if (newSlot >= PackedBoard.FIRST_OTHER_CHARACTER) {
+            otherCharacterCount++;
+        }
+    }
+
+    /**
+     * @return the number of cells holding chip
+     */
+    int getChipCount() {
+        return chipCount;
+    }
+
+    /**
+     * @return the number of cells holding a character other than chip
+     */
+    int getOtherCharacterCount() {
+        return otherCharacterCount;
+    }
+
+    /**
+     * @return the number of cells holding an invalid tile code
+     */
+    int getInvalidTileCount() {
+        return invalidTileCount;
+    }
+
+    /**
+     * @param interval recount the whole board on every interval-th call to auditIfDue, or 0 to never recount
+     */
+    void setAuditInterval(int interval) {
+        Preconditions.checkArgument(interval >= 0);
+        auditInterval = interval;
+        requestsSinceAudit = 0;
+    }
+
+    /**
+     * Recounts the whole board if audits are turned on and enough requests have passed since the last recount.
+     * The bitset layers and the state hash of the board are checked at the same time.
+     * @param cells the board the counts are about
+     * @param layers the bitset layers kept for the board
+     * @param chip chip, whose keys are part of the state hash
+     * @param stateHash the state hash kept for the board
+     * @return false if a recount was done and didn't match the running counts, layers or hash, true otherwise
+     */
+    boolean auditIfDue(PackedBoard cells, BoardLayers layers, Chip chip, long stateHash) {
+        if (auditInterval == 0 || ++requestsSinceAudit < auditInterval) {
+            return true;
+        }
+        requestsSinceAudit = 0;
+        int[] counts = count(cells);
+        return counts[0] == chipCount && counts[1] == otherCharacterCount && counts[2] == invalidTileCount
+                && layers.matches(cells) && ZobristKeys.hashOf(cells, chip) == stateHash;
+    }
+
+    /**
+     * @param code a tile code
+     * @return whether the code is one of the known tile codes
+     */
+    private static boolean isValidTile(byte code) {
+        return code >= PackedBoard.FREE && code <= PackedBoard.DOOR_YELLOW;
+    }
+
+    /**
+     * Counts chips, other characters and invalid tile codes by scanning every cell
+     * @param cells the board to count
+     * @return the three counts in that order
+     */
+    private static int[] count(PackedBoard cells) {
+        int[] counts = new int[3];
+        for (int i = 0; i < cells.size(); i++) {
+            short slot = cells.getCharacter(i);
+            if (slot == PackedBoard.CHIP) {
+                counts[0]++;
+            } else if (slot >= PackedBoard.FIRST_OTHER_CHARACTER) {
+                counts[1]++;
+            }
+            if (!isValidTile(cells.getTile(i))) {
+                counts[2]++;
+            }
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,16 @@
+package Maze;
+
+/**
+ * Gets told whenever the keys in chips inventory change, so the HUD and recorders can react to changes instead of
+ * re-reading the inventory after every move.
+ * @author Oscar Sykes 300486149
+ */
+public interface InventoryListener {
+    /**
+     * Called after the number of keys of one colour in chips inventory changes
+     * @param chip the chip whose inventory changed
+     * @param colourIndex the colour index of the keys that changed (red, green, blue, yellow)
+     * @param count the number of keys of that colour chip now holds
+     */
+    void inventoryChanged(Chip chip, int colourIndex, int count);
+}
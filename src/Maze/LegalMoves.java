@@ -0,0 +1,150 @@
+package Maze;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * The set of directions a character can legally move in this turn, worked out by the board before the character
+ * chooses a move. This lets a character pick a valid move in a single draw instead of the board retrying until a
+ * random move happens to be valid. Staying put (NO_MOVE) is always legal.
+ * Sets are stored as a bitmask indexed by Direction ordinal and every possible set is preallocated, so handing one to
+ * a character never allocates.
+ * @author Oscar Sykes 300486149
+ */
+public final class LegalMoves {
+
+    /**
+     * All directions indexed by ordinal
+     */
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    /**
+     * Every possible set of legal moves, indexed by mask
+     */
+    private static final LegalMoves[] ALL = new LegalMoves[1 << DIRECTIONS.length];
+
+    static {
+        for (int mask = 0; mask < ALL.length; mask++) {
+            ALL[mask] = new LegalMoves(mask | bit(Direction.NO_MOVE));
+        }
+    }
+
+    /**
+     * Bit i is set when the direction with ordinal i is legal
+     */
+    private final int mask;
+
+    /**
+     * The legal directions in ordinal order
+     */
+    private final Direction[] directions;
+
+    /**
+     * @param mask bitmask of the legal directions
+     */
+    private LegalMoves(int mask) {
+        this.mask = mask;
+        this.directions = new Direction[Integer.bitCount(mask)];
+        int next = 0;
+        for (Direction dir : DIRECTIONS) {
+            if ((mask & bit(dir)) != 0) {
+                directions[next++] = dir;
+            }
+        }
+    }
+
+    /**
+     * @param mask bitmask of legal directions indexed by Direction ordinal. NO_MOVE is always added
+     * @return the set of legal moves with that mask
+     */
+    public static LegalMoves of(int mask) {
+        Preconditions.checkArgument(mask >= 0 && mask < ALL.length);
+        return ALL[mask];
+    }
+
+    /**
+     * @param dir a direction
+     * @return the bit used for the direction in a mask
+     */
+    public static int bit(Direction dir) {
+        return 1 << dir.ordinal();
+    }
+
+    /**
+     * @param dir a direction
+     * @return whether moving in the direction is legal
+     */
+    public boolean contains(Direction dir) {
+        return dir != null && (mask & bit(dir)) != 0;
+    }
+
+    /**
+     * @return the number of legal directions, including NO_MOVE
+     */
+    public int size() {
+        return directions.length;
+    }
+
+    /**
+     * @param i index of a legal direction, from 0 to size() - 1
+     * @return the i-th legal direction in Direction ordinal order
+     */
+    public Direction get(int i) {
+        Preconditions.checkElementIndex(i, directions.length);
+        return directions[i];
+    }
+
+    /**
+     * @return the bitmask of the legal directions
+     */
+    public int getMask() {
+        return mask;
+    }
+
+    /**
+     * Picks one of the legal directions with equal probability
+     * @param random a number in [0, 1), for example from the character's random source
+     * @return the chosen direction
+     */
+    public Direction pick(double random) {
+        Preconditions.checkArgument(random >= 0 && random < 1);
+        return directions[(int) (random * directions.length)];
+    }
+
+    /**
+     * Picks one of the legal directions with probability proportional to its weight, which is the same as drawing from
+     * the weights and redrawing until the direction is legal
+     * @param random a number in [0, 1), for example from the character's random source
+     * @param weights weight of every direction indexed by Direction ordinal
+     * @return the chosen direction, or NO_MOVE if every legal direction has weight 0
+     */
+    public Direction pick(double random, int[] weights) {
+        Preconditions.checkArgument(random >= 0 && random < 1);
+        Preconditions.checkArgument(weights.length == DIRECTIONS.length);
+        int total = 0;
+        for (Direction dir : directions) {
+            total += weights[dir.ordinal()];
+        }
+        if (total == 0) {
+            return Direction.NO_MOVE;
+        }
+        int target = (int) (random * total);
+        for (Direction dir : directions) {
+            target -= weights[dir.ordinal()];
+            if (target < 0) {
+                return dir;
+            }
+        }
+        throw new IllegalStateException("Weights changed while picking");
+    }
+
+    /**
+     * @return the legal directions, for example "[left, up, noMove]"
+     */
+    public String toString() {
+        StringBuilder s = new StringBuilder("[");
+        for (int i = 0; i < directions.length; i++) {
+            s.append(i == 0 ? "" : ", ").append(directions[i]);
+        }
+        return s.append(']').toString();
+    }
+}
@@ -0,0 +1,389 @@
+package Maze;
+
+import com.google.common.base.Preconditions;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Checks a level for problems when it is loaded, so broken levels are found before anyone plays them.
+ * A flood fill from chip through everything but walls finds the areas chip can never reach and whether the exit and
+ * every treasure can be reached at all. A second flood fill then plays the level greedily, collecting every key it
+ * reaches and opening doors as soon as it holds a matching key, and passing exit locks once all the treasure is
+ * collected. If that doesn't reach the exit, or a colour has more reachable doors than keys so opening doors in the
+ * wrong order can strand chip, the level is reported as a possible softlock. Single use tiles and other characters
+ * are ignored, so a level without problems can still be lost in play. Use the LevelSolver for a definite answer.
+ * Both fills are linear in the size of the level. Results for level files are cached until the file changes.
+ * @author Oscar Sykes 300486149
+ */
+public final class LevelAnalysis {
+
+    /**
+     * Names of the key and door colours, indexed by colour index
+     */
+    private static final String[] COLOUR_NAMES = {"red", "green", "blue", "yellow"};
+
+    /**
+     * The directions chip can move in
+     */
+    private static final Direction[] MOVES = {Direction.LEFT, Direction.RIGHT, Direction.UP, Direction.DOWN};
+
+    /**
+     * Analyses of level files, one for each file as it was last analysed
+     */
+    private static final FileCache<LevelAnalysis> CACHE = new FileCache<>();
+
+    /**
+     * Bit i is set when chip can reach cell i if every door and lock could be opened
+     */
+    private final long[] reachable;
+
+    /**
+     * The number of columns and rows of the level
+     */
+    private final int width, height;
+
+    /**
+     * The number of cells that aren't walls but can't be reached, and the number of separate areas they form
+     */
+    private final int unreachableCells, unreachableAreas;
+
+    /**
+     * Whether an exit can be reached if every door and lock could be opened
+     */
+    private final boolean exitReachable;
+
+    /**
+     * The number of treasure that can't be reached even if every door and lock could be opened
+     */
+    private final int unreachableTreasure;
+
+    /**
+     * The keys and doors of every colour that can be reached if every door and lock could be opened
+     */
+    private final int[] reachableKeys = new int[4], reachableDoors = new int[4];
+
+    /**
+     * Whether playing greedily reaches an exit
+     */
+    private final boolean greedyWin;
+
+    /**
+     * Descriptions of the problems found
+     */
+    private final List<String> problems;
+
+    /**
+     * Analyses a level in the state it is in
+     * @param cells the cells of the level
+     * @param chip chip, whose position and keys are where the analysis starts
+     */
+    LevelAnalysis(PackedBoard cells, Chip chip) {
+        Preconditions.checkNotNull(cells);
+        Preconditions.checkNotNull(chip);
+        int size = cells.size();
+        int start = cells.index(chip.getRow(), chip.getCol());
+        width = cells.getWidth();
+        height = cells.getHeight();
+        int[] stack = new int[size];
+        reachable = new long[(size + 63) >>> 6];
+
+        // flood fill through everything but walls, stopping at exits because they end the game
+        int top = 0, treasure = 0, reachedTreasure = 0;
+        boolean exit = false;
+        set(reachable, start);
+        stack[top++] = start;
+        while (top > 0) {
+            int cell = stack[--top];
+            byte tile = cells.getTile(cell), item = cells.getItem(cell);
+            if (tile == PackedBoard.EXIT) {
+                exit = true;
+                continue;
+            } else if (PackedBoard.isDoor(tile)) {
+                reachableDoors[tile - PackedBoard.DOOR_RED]++;
+            } else if (PackedBoard.isKey(item)) {
+                reachableKeys[item - PackedBoard.KEY_RED]++;
+            } else if (item == PackedBoard.TREASURE) {
+                reachedTreasure++;
+            }
+            top = pushNeighbours(cells, cell, reachable, stack, top);
+        }
+        int unreachable = 0;
+        for (int i = 0; i < size; i++) {
+            if (cells.getItem(i) == PackedBoard.TREASURE) {
+                treasure++;
+            }
+            if (cells.getTile(i) != PackedBoard.WALL && !get(reachable, i)) {
+                unreachable++;
+            }
+        }
+        exitReachable = exit;
+        unreachableCells = unreachable;
+        unreachableTreasure = treasure - reachedTreasure;
+        unreachableAreas = countAreas(cells, stack);
+        greedyWin = exit && playGreedily(cells, chip, start, treasure, stack);
+
+        List<String> found = new ArrayList<>();
+        if (!exitReachable) {
+            found.add("The exit can't be reached");
+        }
+        if (unreachableTreasure > 0) {
+            found.add(unreachableTreasure + " treasure can't be reached");
+        }
+        if (unreachableAreas > 0) {
+            found.add(unreachableCells + " cells in " + unreachableAreas + " areas can't be reached");
+        }
+        for (int c = 0; c < 4; c++) {
+            if (reachableDoors[c] > reachableKeys[c] + chip.getKeyCount(c)) {
+                found.add("There are " + reachableDoors[c] + " " + COLOUR_NAMES[c] + " doors but only "
+                        + (reachableKeys[c] + chip.getKeyCount(c)) + " " + COLOUR_NAMES[c]
+                        + " keys, opening them in the wrong order can softlock");
+            }
+        }
+        if (exitReachable && !greedyWin) {
+            found.add("Opening doors in the order chip reaches them doesn't reach the exit, the level can softlock");
+        }
+        problems = Collections.unmodifiableList(found);
+    }
+
+    /**
+     * Analyses a level loaded from its level file, reusing the previous analysis if the file hasn't changed
+     * @param file the file the level was loaded from
+     * @param cells the cells of the level as it was loaded
+     * @param chip chip as it was loaded
+     * @return the analysis of the level
+     */
+    static LevelAnalysis forLevelFile(File file, PackedBoard cells, Chip chip) {
+        return CACHE.get(file, f -> new LevelAnalysis(cells, chip));
+    }
+
+    /**
+     * @param row a row of the level
+     * @param col a column of the level
+     * @return whether chip can reach the cell if every door and lock could be opened
+     */
+    public boolean isReachable(int row, int col) {
+        Preconditions.checkElementIndex(row, height);
+        Preconditions.checkElementIndex(col, width);
+        return get(reachable, row * width + col);
+    }
+
+    /**
+     * @return whether an exit can be reached if every door and lock could be opened
+     */
+    public boolean isExitReachable() {
+        return exitReachable;
+    }
+
+    /**
+     * @return the number of cells that aren't walls but can't be reached
+     */
+    public int getUnreachableCells() {
+        return unreachableCells;
+    }
+
+    /**
+     * @return the number of separate areas the unreachable cells form
+     */
+    public int getUnreachableAreas() {
+        return unreachableAreas;
+    }
+
+    /**
+     * @return the number of treasure that can't be reached
+     */
+    public int getUnreachableTreasure() {
+        return unreachableTreasure;
+    }
+
+    /**
+     * @param colourIndex a colour index
+     * @return the number of reachable keys of the colour
+     */
+    public int getReachableKeys(int colourIndex) {
+        return reachableKeys[colourIndex];
+    }
+
+    /**
+     * @param colourIndex a colour index
+     * @return the number of reachable doors of the colour
+     */
+    public int getReachableDoors(int colourIndex) {
+        return reachableDoors[colourIndex];
+    }
+
+    /**
+     * @return whether collecting every key and opening doors as soon as possible reaches an exit
+     */
+    public boolean isGreedyWin() {
+        return greedyWin;
+    }
+
+    /**
+     * @return descriptions of the problems found, empty if there are none
+     */
+    public List<String> getProblems() {
+        return problems;
+    }
+
+    /**
+     * @return whether any problem was found
+     */
+    public boolean hasProblems() {
+        return !problems.isEmpty();
+    }
+
+    /**
+     * @return the problems found, one per line, or "No problems found"
+     */
+    public String toString() {
+        return problems.isEmpty() ? "No problems found" : String.join("\n", problems);
+    }
+
+    /**
+     * Flood fills the level collecting keys and treasure, opening a door whenever a matching key is held and passing
+     * exit locks once all the treasure is collected
+     * @param cells the cells of the level
+     * @param chip chip, whose keys are used as well
+     * @param start the cell chip starts in
+     * @param treasure the amount of treasure on the level
+     * @param stack a stack with room for every cell
+     * @return whether an exit was reached
+     */
+    private static boolean playGreedily(PackedBoard cells, Chip chip, int start, int treasure, int[] stack) {
+        int size = cells.size();
+        long[] visited = new long[(size + 63) >>> 6], waiting = new long[visited.length];
+        int[] held = new int[4];
+        for (int c = 0; c < 4; c++) {
+            held[c] = chip.getKeyCount(c);
+        }
+        int[] blocked = new int[size]; // doors and locks found but not passed yet
+        int blockedCount = 0, top = 0, treasureLeft = treasure;
+        set(visited, start);
+        stack[top++] = start;
+        while (true) {
+            while (top > 0) {
+                int cell = stack[--top];
+                byte tile = cells.getTile(cell), item = cells.getItem(cell);
+                if (tile == PackedBoard.EXIT) {
+                    return true;
+                } else if (PackedBoard.isKey(item)) {
+                    held[item - PackedBoard.KEY_RED]++;
+                } else if (item == PackedBoard.TREASURE) {
+                    treasureLeft--;
+                }
+                for (Direction dir : MOVES) {
+                    int next = neighbour(cells, cell, dir);
+                    if (next < 0 || get(visited, next) || get(waiting, next)
+                            || cells.getTile(next) == PackedBoard.WALL) {
+                        continue;
+                    }
+                    if (PackedBoard.isDoor(cells.getTile(next)) || cells.getItem(next) == PackedBoard.EXIT_LOCK) {
+                        set(waiting, next);
+                        blocked[blockedCount++] = next;
+                    } else {
+                        set(visited, next);
+                        stack[top++] = next;
+                    }
+                }
+            }
+            // open every door and lock that can be passed now, in the order they were found
+            int remaining = 0;
+            for (int i = 0; i < blockedCount; i++) {
+                int cell = blocked[i];
+                byte tile = cells.getTile(cell);
+                boolean door = PackedBoard.isDoor(tile);
+                if (door ? held[tile - PackedBoard.DOOR_RED] > 0 : treasureLeft == 0) {
+                    if (door) {
+                        held[tile - PackedBoard.DOOR_RED]--;
+                    }
+                    set(visited, cell);
+                    stack[top++] = cell;
+                } else {
+                    blocked[remaining++] = cell;
+                }
+            }
+            if (top == 0) {
+                return false; // nothing more can be opened
+            }
+            blockedCount = remaining;
+        }
+    }
+
+    /**
+     * Counts the separate areas of cells that aren't walls and weren't reached
+     * @param cells the cells of the level
+     * @param stack a stack with room for every cell
+     * @return the number of areas
+     */
+    private int countAreas(PackedBoard cells, int[] stack) {
+        long[] seen = reachable.clone();
+        int areas = 0;
+        for (int i = 0; i < cells.size(); i++) {
+            if (cells.getTile(i) == PackedBoard.WALL || get(seen, i)) {
+                continue;
+            }
+            areas++;
+            int top = 0;
+            set(seen, i);
+            stack[top++] = i;
+            while (top > 0) {
+                top = pushNeighbours(cells, stack[--top], seen, stack, top);
+            }
+        }
+        return areas;
+    }
+
+    /**
+     * Pushes the neighbours of a cell that aren't walls and haven't been seen, marking them as seen
+     * @param cells the cells of the level
+     * @param cell the cell
+     * @param seen bitset of the cells seen so far
+     * @param stack the stack
+     * @param top the number of cells on the stack
+     * @return the number of cells on the stack afterwards
+     */
+    private static int pushNeighbours(PackedBoard cells, int cell, long[] seen, int[] stack, int top) {
+        for (Direction dir : MOVES) {
+            int next = neighbour(cells, cell, dir);
+            if (next >= 0 && !get(seen, next) && cells.getTile(next) != PackedBoard.WALL) {
+                set(seen, next);
+                stack[top++] = next;
+            }
+        }
+        return top;
+    }
+
+    /**
+     * @param cells the cells of the level
+     * @param cell a cell
+     * @param dir a direction
+     * @return the cell next to it in the direction, or -1 if that is off the level
+     */
+    private static int neighbour(PackedBoard cells, int cell, Direction dir) {
+        int row = cells.rowOf(cell) + dir.getRowChange(), col = cells.colOf(cell) + dir.getColChange();
+        if (row < 0 || row >= cells.getHeight() || col < 0 || col >= cells.getWidth()) {
+            return -1;
+        }
+        return cells.index(row, col);
+    }
+
+    /**
+     * @param bits a bitset
+     * @param index index of a cell
+     * @return whether the cell's bit is set
+     */
+    private static boolean get(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * @param bits a bitset
+     * @param index index of the cell whose bit is set
+     */
+    private static void set(long[] bits, int index) {
+        bits[index >>> 6] |= 1L << index;
+    }
+}
@@ -0,0 +1,274 @@
+package Maze;
+
+import Persistance.JsonLevelSource;
+import com.google.common.base.Preconditions;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The levels found in a level folder (the levels folder of the game, or a level pack laid out the same way), indexed
+ * by number with their name, size, treasure and time limit. Levels are files named level[number].json; levels below
+ * FIRST_PLAYABLE_LEVEL are only used for testing and aren't offered to the player. Only the header of each file is
+ * read to build the catalogue. A level file whose header can't be read is left out of the catalogue, so one broken
+ * file doesn't stop the other levels from being played; broken tiles are only found when the level is parsed.
+ * The next level can be parsed on a background thread while the current one is played, so that starting it doesn't
+ * have to wait for the level file.
+ * @author Oscar Sykes 300486149
+ */
+public class LevelCatalogue {
+
+    /**
+     * The lowest level number offered to the player
+     */
+    public static final int FIRST_PLAYABLE_LEVEL = 1;
+
+    /**
+     * The time limit in seconds of levels that don't set one
+     */
+    public static final int DEFAULT_TIME_LIMIT = 100;
+
+    /**
+     * Names of level files, capturing the level number
+     */
+    private static final Pattern LEVEL_FILE = Pattern.compile("level(-?\\d+)\\.json");
+
+    /**
+     * The catalogue of the game's levels folder, created the first time it is needed
+     */
+    private static LevelCatalogue defaultCatalogue;
+
+    /**
+     * The levels of the catalogue, sorted by number
+     */
+    private final TreeMap<Integer, Entry> levels = new TreeMap<>();
+
+    /**
+     * Thread levels are prefetched on, started by the first prefetch
+     */
+    private ExecutorService prefetcher;
+
+    /**
+     * A level of the catalogue
+     */
+    public static final class Entry {
+
+        /**
+         * The number of the level
+         */
+        private final int number;
+
+        /**
+         * The level file
+         */
+        private final File file;
+
+        /**
+         * The name shown to the player
+         */
+        private final String name;
+
+        /**
+         * The number of columns and rows and the time limit in seconds
+         */
+        private final int width, height, timeLimit;
+
+        /**
+         * The number of treasure, or -1 until it is first asked for
+         */
+        private int treasure = -1;
+
+        /**
+         * Reads the metadata of a level file from its header, stopping where the tiles start. The tiles are only
+         * read when the level is played, prefetched or its treasure is counted.
+         * @param number the number of the level
+         * @param file the level file
+         * @throws IOException if the file can't be read or its header isn't valid
+         */
+        private Entry(int number, File file) throws IOException {
+            this.number = number;
+            this.file = file;
+            JsonLevelSource.Header header = JsonLevelSource.readHeader(file);
+            name = header.getName() != null ? header.getName() : "Level " + number;
+            timeLimit = header.getTimeLimit() > 0 ? header.getTimeLimit() : DEFAULT_TIME_LIMIT;
+            width = header.getWidth();
+            height = header.getHeight();
+        }
+
+        /**
+         * @return the number of the level
+         */
+        public int getNumber() {
+            return number;
+        }
+
+        /**
+         * @return the level file
+         */
+        public File getFile() {
+            return file;
+        }
+
+        /**
+         * @return the name shown to the player, "Level [number]" unless the file names the level
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the number of columns of the level
+         */
+        public int getWidth() {
+            return width;
+        }
+
+        /**
+         * @return the number of rows of the level
+         */
+        public int getHeight() {
+            return height;
+        }
+
+        /**
+         * Counts the treasure of the level the first time it is asked for, reading the tiles a chunk at a time
+         * @return the number of treasure in the level
+         * @throws UncheckedIOException if the level file can't be read any more
+         */
+        public synchronized int getTreasure() {
+            if (treasure < 0) {
+                try (JsonLevelSource source = new JsonLevelSource(file)) {
+                    int size = width * height, count = 0;
+                    byte[] letters = new byte[PackedBoard.CHUNK_SIZE];
+                    for (int first = 0; first < size; first += letters.length) {
+                        int length = Math.min(letters.length, size - first);
+                        source.read(first, letters, length);
+                        for (int i = 0; i < length; i++) {
+                            if (PackedBoard.itemCodeOfLetter(letters[i]) == PackedBoard.TREASURE) {
+                                count++;
+                            }
+                        }
+                    }
+                    treasure = count;
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Couldn't read level " + file, e);
+                }
+            }
+            return treasure;
+        }
+
+        /**
+         * @return the number of seconds the player has to finish the level
+         */
+        public int getTimeLimit() {
+            return timeLimit;
+        }
+
+        /**
+         * Creates a board for the level, parsing the level file only if it hasn't been parsed or prefetched since it
+         * last changed
+         * @param seed seed of the random source used by the characters on the board
+         * @return a new board in the level's starting state
+         */
+        public Board newBoard(long seed) {
+            return new Board(Board.levelTemplate(file), seed);
+        }
+    }
+
+    /**
+     * Scans a level folder, leaving out the level files that can't be read
+     * @param directory the folder holding the level files
+     * @throws IOException if the folder can't be listed
+     */
+    public LevelCatalogue(File directory) throws IOException {
+        Preconditions.checkNotNull(directory);
+        File[] files = directory.listFiles();
+        if (files == null) {
+            throw new IOException("Can't list level folder " + directory);
+        }
+        for (File file : files) {
+            Matcher matcher = LEVEL_FILE.matcher(file.getName());
+            if (matcher.matches()) {
+                try {
+                    int number = Integer.parseInt(matcher.group(1));
+                    levels.put(number, new Entry(number, file));
+                } catch (IOException | NumberFormatException e) {
+                    System.err.println("Skipping level file " + file + ": " + e);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the catalogue of the game's levels folder
+     */
+    public static synchronized LevelCatalogue getDefault() {
+        if (defaultCatalogue == null) {
+            try {
+                defaultCatalogue = new LevelCatalogue(new File("levels"));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Couldn't read the levels folder", e);
+            }
+        }
+        return defaultCatalogue;
+    }
+
+    /**
+     * @param number a level number
+     * @return the level with that number, or null if there isn't one
+     */
+    public Entry get(int number) {
+        return levels.get(number);
+    }
+
+    /**
+     * @return every level, in order of number
+     */
+    public List<Entry> getLevels() {
+        return Collections.unmodifiableList(new ArrayList<>(levels.values()));
+    }
+
+    /**
+     * @return the levels offered to the player, in the order they are played
+     */
+    public List<Entry> getPlayableLevels() {
+        return Collections.unmodifiableList(new ArrayList<>(levels.tailMap(FIRST_PLAYABLE_LEVEL).values()));
+    }
+
+    /**
+     * @param number a level number
+     * @return the playable level played after it, or null if it is the last one
+     */
+    public Entry next(int number) {
+        Map.Entry<Integer, Entry> next = levels.higherEntry(Math.max(number, FIRST_PLAYABLE_LEVEL - 1));
+        return next == null ? null : next.getValue();
+    }
+
+    /**
+     * Parses a level on a background thread so that the next board created for it is only copied
+     * @param level the level to parse
+     * @return the parsed level, which can be waited on but doesn't have to be
+     */
+    public synchronized Future<Board> prefetch(Entry level) {
+        Preconditions.checkNotNull(level);
+        if (prefetcher == null) {
+            prefetcher = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "level prefetch");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return prefetcher.submit(() -> Board.levelTemplate(level.getFile()));
+    }
+}
@@ -0,0 +1,107 @@
+package Maze;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The result of searching for the shortest way through a level with the LevelSolver.
+ * @author Oscar Sykes 300486149
+ */
+public final class LevelSolution {
+
+    /**
+     * How a search ended
+     */
+    public enum Status {
+        /**
+         * A shortest winning move sequence was found
+         */
+        SOLVED,
+        /**
+         * Every reachable state was searched and none of them reaches the exit
+         */
+        UNSOLVABLE,
+        /**
+         * The search stopped after storing the most states it was allowed to
+         */
+        STATE_LIMIT,
+        /**
+         * The search stopped after running for the most time it was allowed to
+         */
+        TIME_LIMIT,
+        /**
+         * The level wasn't searched because chip's cell and its keys, treasure, doors and single use tiles don't fit
+         * in the 63 bits of a search state
+         */
+        TOO_LARGE
+    }
+
+    /**
+     * How the search ended
+     */
+    private final Status status;
+
+    /**
+     * The winning moves, empty unless the level was solved
+     */
+    private final List<Direction> moves;
+
+    /**
+     * The number of distinct states the search stored
+     */
+    private final int states;
+
+    /**
+     * @param status how the search ended
+     * @param moves the winning moves, empty unless the level was solved
+     * @param states the number of distinct states the search stored
+     */
+    LevelSolution(Status status, List<Direction> moves, int states) {
+        this.status = status;
+        this.moves = Collections.unmodifiableList(moves);
+        this.states = states;
+    }
+
+    /**
+     * @return how the search ended
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * @return whether a winning move sequence was found
+     */
+    public boolean isSolved() {
+        return status == Status.SOLVED;
+    }
+
+    /**
+     * @return the shortest winning move sequence, or an empty list if the level wasn't solved
+     */
+    public List<Direction> getMoves() {
+        return moves;
+    }
+
+    /**
+     * @return the par move count of the level, or -1 if it wasn't solved
+     */
+    public int getPar() {
+        return isSolved() ? moves.size() : -1;
+    }
+
+    /**
+     * @return the number of distinct states the search stored
+     */
+    public int getStates() {
+        return states;
+    }
+
+    /**
+     * @return the status, par and number of states, for example "SOLVED in 24 moves (1530 states)"
+     */
+    public String toString() {
+        return isSolved() ? status + " in " + getPar() + " moves (" + states + " states)"
+                : status + " (" + states + " states)";
+    }
+}
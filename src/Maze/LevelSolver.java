@@ -0,0 +1,554 @@
+package Maze;
+
+import com.google.common.base.Preconditions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Finds the shortest winning move sequence for a level with an A* search, used to check that levels can be finished
+ * and to work out their par move counts.
+ * A search state is chip's cell plus one bit for every key, treasure, door and single use tile recording whether it
+ * has been picked up, collected, opened or used up. The keys chip holds follow from the keys picked up and the doors
+ * opened, so a whole state packs into one long and the closed set is an open addressing hash table of those longs.
+ * That limits the search to levels where the bits of chip's cell and one bit per key, treasure, door and single use
+ * tile fit in the 63 low bits, as a negative long marks a move that can't be made; that is 49 of them on a level of
+ * 10000 cells. The search of a larger level ends as TOO_LARGE.
+ * The heuristic is the shortest distance to an exit ignoring doors and single use tiles, and when the exit can only
+ * be reached through an exit lock, the distance to the furthest uncollected treasure and on to an exit. Both are
+ * admissible so the first winning state taken off the open list is a shortest solution.
+ * Other characters move randomly, so the solver plans for the level without them.
+ * @author Oscar Sykes 300486149
+ */
+public class LevelSolver {
+
+    /**
+     * The default most states stored and the default time limit in milliseconds
+     */
+    public static final int DEFAULT_MAX_STATES = 1 << 22;
+    public static final long DEFAULT_TIME_LIMIT = 10000;
+
+    /**
+     * The directions chip can move in
+     */
+    private static final Direction[] MOVES = {Direction.LEFT, Direction.RIGHT, Direction.UP, Direction.DOWN};
+
+    /**
+     * The clock is only read once every this many expanded states
+     */
+    private static final int TIME_CHECK_INTERVAL = 1024;
+
+    /**
+     * The packed cells of the level, which aren't changed by the solver
+     */
+    private final PackedBoard cells;
+
+    /**
+     * The cell chip starts in
+     */
+    private final int start;
+
+    /**
+     * Whether the states of the level don't fit in a long, in which case nothing else is set up
+     */
+    private final boolean tooLarge;
+
+    /**
+     * The state bit of every cell with a key, treasure, door or single use tile, and -1 for every other cell
+     */
+    private final int[] bitOf;
+
+    /**
+     * The number of low bits of a state holding chip's cell, and the mask of those bits
+     */
+    private final int positionBits;
+    private final long positionMask;
+
+    /**
+     * The state bits of the keys and doors of every colour, indexed by colour index
+     */
+    private final long[] keyBits = new long[4], doorBits = new long[4];
+
+    /**
+     * The state bits of all the treasure
+     */
+    private final long treasureBits;
+
+    /**
+     * The keys of every colour chip holds at the start
+     */
+    private final int[] heldAtStart = new int[4];
+
+    /**
+     * The cell and state bit of every treasure
+     */
+    private final int[] treasureCells;
+    private final long[] treasureBitOf;
+
+    /**
+     * Shortest distance from every cell to an exit, through any cell that isn't a wall, and the same distance without
+     * passing an exit lock. -1 if an exit can't be reached
+     */
+    private final int[] exitDistance, unlockedExitDistance;
+
+    /**
+     * Shortest distance from every cell to every treasure through any cell that isn't a wall, indexed by treasure
+     */
+    private final int[][] treasureDistance;
+
+    /**
+     * The most states stored before giving up and the time limit in milliseconds
+     */
+    private int maxStates = DEFAULT_MAX_STATES;
+    private long timeLimit = DEFAULT_TIME_LIMIT;
+
+    /**
+     * Every state found so far with the node it was reached from, the move made, its cost and its heuristic
+     * estimate, indexed by node
+     */
+    private long[] states;
+    private int[] parents, costs, estimates;
+    private byte[] moves;
+
+    /**
+     * Whether each node has been expanded
+     */
+    private boolean[] expanded;
+
+    /**
+     * The number of nodes
+     */
+    private int count;
+
+    /**
+     * Open addressing hash table of the nodes. Each slot holds node + 1, or 0 when it is empty
+     */
+    private int[] table;
+
+    /**
+     * The open list, as stacks of nodes indexed by cost + estimate
+     */
+    private int[][] buckets;
+    private int[] bucketSizes;
+
+    /**
+     * The lowest bucket that can hold a node
+     */
+    private int cursor;
+
+    /**
+     * Prepares a search from the current state of a board
+     * @param board the board whose level is solved
+     * @param cells the packed cells of the board
+     */
+    LevelSolver(Board board, PackedBoard cells) {
+        Preconditions.checkNotNull(board);
+        this.cells = Preconditions.checkNotNull(cells);
+        Chip chip = board.getChip();
+        start = cells.index(chip.getRow(), chip.getCol());
+        for (int c = 0; c < 4; c++) {
+            heldAtStart[c] = chip.getKeyCount(c);
+        }
+        int size = cells.size();
+        positionBits = Math.max(1, Integer.SIZE - Integer.numberOfLeadingZeros(size - 1));
+        int stateCells = 0;
+        for (int i = 0; i < size; i++) {
+            if (hasStateBit(cells, i)) {
+                stateCells++;
+            }
+        }
+        tooLarge = positionBits + stateCells >= Long.SIZE; // the sign bit is never part of a state
+        if (tooLarge) {
+            bitOf = null;
+            positionMask = 0;
+            treasureBits = 0;
+            treasureCells = null;
+            treasureBitOf = null;
+            exitDistance = unlockedExitDistance = null;
+            treasureDistance = null;
+            return;
+        }
+        bitOf = new int[size];
+        Arrays.fill(bitOf, -1);
+        List<Integer> treasure = new ArrayList<>();
+        int bits = 0;
+        long treasureMask = 0;
+        for (int i = 0; i < size; i++) {
+            if (hasStateBit(cells, i)) {
+                byte tile = cells.getTile(i), item = cells.getItem(i);
+                long bit = 1L << bits;
+                bitOf[i] = bits++;
+                if (PackedBoard.isDoor(tile)) {
+                    doorBits[tile - PackedBoard.DOOR_RED] |= bit;
+                } else if (PackedBoard.isKey(item)) {
+                    keyBits[item - PackedBoard.KEY_RED] |= bit;
+                } else if (item == PackedBoard.TREASURE) {
+                    treasureMask |= bit;
+                    treasure.add(i);
+                }
+            }
+        }
+        positionMask = (1L << positionBits) - 1;
+        treasureBits = treasureMask;
+
+        int exits = 0;
+        int[] exitCells = new int[size];
+        for (int i = 0; i < size; i++) {
+            if (cells.getTile(i) == PackedBoard.EXIT) {
+                exitCells[exits++] = i;
+            }
+        }
+        exitDistance = distances(Arrays.copyOf(exitCells, exits), true);
+        unlockedExitDistance = distances(Arrays.copyOf(exitCells, exits), false);
+        treasureCells = new int[treasure.size()];
+        treasureBitOf = new long[treasure.size()];
+        treasureDistance = new int[treasure.size()][];
+        for (int t = 0; t < treasureCells.length; t++) {
+            treasureCells[t] = treasure.get(t);
+            treasureBitOf[t] = 1L << bitOf[treasureCells[t]];
+            treasureDistance[t] = distances(new int[]{treasureCells[t]}, true);
+        }
+    }
+
+    /**
+     * @param cells packed cells of a level
+     * @param i index of a cell
+     * @return whether the cell has a key, treasure, door or single use tile, which gets a bit of the state
+     */
+    private static boolean hasStateBit(PackedBoard cells, int i) {
+        byte tile = cells.getTile(i), item = cells.getItem(i);
+        return tile == PackedBoard.SINGLE_USE || PackedBoard.isDoor(tile) || PackedBoard.isKey(item)
+                || item == PackedBoard.TREASURE;
+    }
+
+    /**
+     * Solves a level in its starting state
+     * @param level number of the level, loaded through the JsonParser module
+     * @return the result of the search, using the default limits
+     */
+    public static LevelSolution solveLevel(int level) {
+        return new Board(level, 0).solver().solve();
+    }
+
+    /**
+     * @param maxStates the most states stored before the search gives up
+     */
+    public void setMaxStates(int maxStates) {
+        Preconditions.checkArgument(maxStates > 0);
+        this.maxStates = maxStates;
+    }
+
+    /**
+     * @param timeLimit the most time the search may run for in milliseconds
+     */
+    public void setTimeLimit(long timeLimit) {
+        Preconditions.checkArgument(timeLimit > 0);
+        this.timeLimit = timeLimit;
+    }
+
+    /**
+     * Searches for the shortest winning move sequence
+     * @return the result of the search
+     */
+    public LevelSolution solve() {
+        if (tooLarge) {
+            return new LevelSolution(LevelSolution.Status.TOO_LARGE, Collections.emptyList(), 0);
+        }
+        long deadline = System.nanoTime() + timeLimit * 1000000;
+        int capacity = Math.min(maxStates, 1 << 10);
+        states = new long[capacity];
+        parents = new int[capacity];
+        costs = new int[capacity];
+        estimates = new int[capacity];
+        moves = new byte[capacity];
+        expanded = new boolean[capacity];
+        table = new int[Integer.highestOneBit(capacity) * 4]; // a power of two at least twice the capacity
+        buckets = new int[16][];
+        bucketSizes = new int[16];
+        count = 0;
+        cursor = 0;
+        int estimate = estimate(start, 0);
+        if (estimate < 0) {
+            return new LevelSolution(LevelSolution.Status.UNSOLVABLE, Collections.emptyList(), 0);
+        }
+        addNode(start, -1, -1, 0, estimate, ~slot(start));
+        int expansions = 0;
+        for (int node = pop(); node >= 0; node = pop()) {
+            if (expanded[node]) {
+                continue; // a cheaper copy of the node was expanded already
+            }
+            int position = (int) (states[node] & positionMask);
+            if (cells.getTile(position) == PackedBoard.EXIT) {
+                return new LevelSolution(LevelSolution.Status.SOLVED, path(node), count);
+            }
+            expanded[node] = true;
+            if (++expansions % TIME_CHECK_INTERVAL == 0 && System.nanoTime() > deadline) {
+                return new LevelSolution(LevelSolution.Status.TIME_LIMIT, Collections.emptyList(), count);
+            }
+            long mask = states[node] >>> positionBits;
+            int cost = costs[node] + 1;
+            for (Direction dir : MOVES) {
+                long next = successor(position, mask, dir);
+                if (next < 0) {
+                    continue;
+                }
+                int found = find(next);
+                if (found >= 0) {
+                    if (cost < costs[found]) { // reached more cheaply, so it has to be looked at again
+                        parents[found] = node;
+                        moves[found] = (byte) dir.ordinal();
+                        costs[found] = cost;
+                        expanded[found] = false;
+                        push(found, cost + estimates[found]);
+                    }
+                    continue;
+                }
+                estimate = estimate((int) (next & positionMask), next >>> positionBits);
+                if (estimate < 0) {
+                    continue; // the exit can't be reached from this state
+                }
+                if (count == maxStates) {
+                    return new LevelSolution(LevelSolution.Status.STATE_LIMIT, Collections.emptyList(), count);
+                }
+                addNode(next, node, dir.ordinal(), cost, estimate, found);
+            }
+        }
+        return new LevelSolution(LevelSolution.Status.UNSOLVABLE, Collections.emptyList(), count);
+    }
+
+    /**
+     * Works out the state reached by moving chip, following the same rules as Board.executeChipMove
+     * @param position the cell chip is in
+     * @param mask the state bits of the items, doors and single use tiles
+     * @param dir the direction chip moves in
+     * @return the state after the move, or -1 if chip can't move that way
+     */
+    private long successor(int position, long mask, Direction dir) {
+        int row = cells.rowOf(position) + dir.getRowChange(), col = cells.colOf(position) + dir.getColChange();
+        if (row < 0 || row >= cells.getHeight() || col < 0 || col >= cells.getWidth()) {
+            return -1;
+        }
+        int next = cells.index(row, col);
+        byte tile = cells.getTile(next);
+        long newMask = mask;
+        if (tile == PackedBoard.WALL) {
+            return -1;
+        } else if (tile == PackedBoard.SINGLE_USE) {
+            if ((mask & (1L << bitOf[next])) != 0) {
+                return -1; // already used so it is now a wall
+            }
+        } else if (PackedBoard.isDoor(tile)) {
+            if ((mask & (1L << bitOf[next])) == 0) {
+                if (keysHeld(mask, tile - PackedBoard.DOOR_RED) == 0) {
+                    return -1;
+                }
+                newMask |= 1L << bitOf[next];
+            }
+        } else if (tile == PackedBoard.FREE) {
+            byte item = cells.getItem(next);
+            if (item == PackedBoard.EXIT_LOCK && (mask & treasureBits) != treasureBits) {
+                return -1;
+            } else if (PackedBoard.isKey(item) || item == PackedBoard.TREASURE) {
+                newMask |= 1L << bitOf[next];
+            }
+        }
+        if (cells.getTile(position) == PackedBoard.SINGLE_USE) {
+            newMask |= 1L << bitOf[position];
+        }
+        return newMask << positionBits | next;
+    }
+
+    /**
+     * @param mask the state bits of the items, doors and single use tiles
+     * @param colourIndex a colour index
+     * @return the keys of the colour chip holds in the state
+     */
+    private int keysHeld(long mask, int colourIndex) {
+        return heldAtStart[colourIndex] + Long.bitCount(mask & keyBits[colourIndex])
+                - Long.bitCount(mask & doorBits[colourIndex]);
+    }
+
+    /**
+     * @param position the cell chip is in
+     * @param mask the state bits of the items, doors and single use tiles
+     * @return a lower bound on the moves needed to win from the state, or -1 if the exit can't be reached
+     */
+    private int estimate(int position, long mask) {
+        int estimate = exitDistance[position];
+        if (estimate < 0 || unlockedExitDistance[position] >= 0) {
+            return estimate; // chip might not need the treasure
+        }
+        for (int t = 0; t < treasureCells.length; t++) {
+            if ((mask & treasureBitOf[t]) == 0) {
+                int distance = treasureDistance[t][position];
+                if (distance < 0 || exitDistance[treasureCells[t]] < 0) {
+                    return -1;
+                }
+                estimate = Math.max(estimate, distance + exitDistance[treasureCells[t]]);
+            }
+        }
+        return estimate;
+    }
+
+    /**
+     * Breadth first search over the cells that aren't walls
+     * @param sources the cells the distances are measured from
+     * @param throughLocks whether exit locks can be passed
+     * @return the distance from the nearest source to every cell, or -1 if no source can be reached
+     */
+    private int[] distances(int[] sources, boolean throughLocks) {
+        int[] distance = new int[cells.size()];
+        Arrays.fill(distance, -1);
+        int[] queue = new int[cells.size()];
+        int head = 0, tail = 0;
+        for (int source : sources) {
+            distance[source] = 0;
+            queue[tail++] = source;
+        }
+        while (head < tail) {
+            int cell = queue[head++];
+            for (Direction dir : MOVES) {
+                int row = cells.rowOf(cell) + dir.getRowChange(), col = cells.colOf(cell) + dir.getColChange();
+                if (row < 0 || row >= cells.getHeight() || col < 0 || col >= cells.getWidth()) {
+                    continue;
+                }
+                int next = cells.index(row, col);
+                if (distance[next] >= 0 || cells.getTile(next) == PackedBoard.WALL
+                        || (!throughLocks && cells.getItem(next) == PackedBoard.EXIT_LOCK)) {
+                    continue;
+                }
+                distance[next] = distance[cell] + 1;
+                queue[tail++] = next;
+            }
+        }
+        return distance;
+    }
+
+    /**
+     * Stores a new node and puts it on the open list
+     * @param state the packed state
+     * @param parent the node it was reached from, or -1 for the start
+     * @param move ordinal of the move made from the parent, or -1 for the start
+     * @param cost the number of moves made to reach it
+     * @param estimate the heuristic estimate of the moves left
+     * @param insertionPoint the value returned by find for the state
+     */
+    private void addNode(long state, int parent, int move, int cost, int estimate, int insertionPoint) {
+        if (count == states.length) {
+            int capacity = (int) Math.min(maxStates, count * 2L);
+            states = Arrays.copyOf(states, capacity);
+            parents = Arrays.copyOf(parents, capacity);
+            costs = Arrays.copyOf(costs, capacity);
+            estimates = Arrays.copyOf(estimates, capacity);
+            moves = Arrays.copyOf(moves, capacity);
+            expanded = Arrays.copyOf(expanded, capacity);
+        }
+        int node = count++;
+        states[node] = state;
+        parents[node] = parent;
+        moves[node] = (byte) move;
+        costs[node] = cost;
+        estimates[node] = estimate;
+        if (count * 2 > table.length) {
+            rehash();
+        } else {
+            table[~insertionPoint] = node + 1;
+        }
+        push(node, cost + estimate);
+    }
+
+    /**
+     * @param state a packed state
+     * @return the node holding the state, or the bitwise complement of the empty slot it would go in
+     */
+    private int find(long state) {
+        int i = slot(state);
+        while (table[i] != 0) {
+            int node = table[i] - 1;
+            if (states[node] == state) {
+                return node;
+            }
+            i = (i + 1) & (table.length - 1);
+        }
+        return ~i;
+    }
+
+    /**
+     * @param state a packed state
+     * @return the first slot of the hash table the state is looked for in
+     */
+    private int slot(long state) {
+        long hash = state * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> (Long.SIZE - Integer.numberOfTrailingZeros(table.length)));
+    }
+
+    /**
+     * Doubles the hash table and inserts every node again
+     */
+    private void rehash() {
+        table = new int[table.length * 2];
+        for (int node = 0; node < count; node++) {
+            table[~find(states[node])] = node + 1;
+        }
+    }
+
+    /**
+     * Puts a node on the open list
+     * @param node the node
+     * @param priority its cost plus estimate
+     */
+    private void push(int node, int priority) {
+        if (priority >= buckets.length) {
+            int length = Math.max(priority + 1, buckets.length * 2);
+            buckets = Arrays.copyOf(buckets, length);
+            bucketSizes = Arrays.copyOf(bucketSizes, length);
+        }
+        if (buckets[priority] == null) {
+            buckets[priority] = new int[16];
+        } else if (bucketSizes[priority] == buckets[priority].length) {
+            buckets[priority] = Arrays.copyOf(buckets[priority], bucketSizes[priority] * 2);
+        }
+        buckets[priority][bucketSizes[priority]++] = node;
+        cursor = Math.min(cursor, priority);
+    }
+
+    /**
+     * Takes a node with the lowest cost plus estimate off the open list, preferring the most recently added
+     * @return the node, or -1 if the open list is empty
+     */
+    private int pop() {
+        while (cursor < buckets.length && bucketSizes[cursor] == 0) {
+            cursor++;
+        }
+        return cursor == buckets.length ? -1 : buckets[cursor][--bucketSizes[cursor]];
+    }
+
+    /**
+     * @param node a node
+     * @return the moves made to reach the node from the start
+     */
+    private List<Direction> path(int node) {
+        Direction[] path = new Direction[costs[node]];
+        for (int n = node; parents[n] >= 0; n = parents[n]) {
+            path[costs[n] - 1] = Direction.values()[moves[n]];
+        }
+        return Arrays.asList(path);
+    }
+
+    /**
+     * Prints the par move counts of levels
+     * @param args the level numbers to solve, or none for every level of the default level catalogue
+     */
+    public static void main(String[] args) {
+        int[] levels = args.length == 0
+                ? LevelCatalogue.getDefault().getLevels().stream().mapToInt(LevelCatalogue.Entry::getNumber).toArray()
+                : Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+        for (int level : levels) {
+            long start = System.nanoTime();
+            LevelSolution solution = solveLevel(level);
+            System.out.printf("level %d: %s, %.1f ms%n", level, solution, (System.nanoTime() - start) / 1e6);
+        }
+    }
+}
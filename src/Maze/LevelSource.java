@@ -0,0 +1,42 @@
+package Maze;
+
+import java.io.IOException;
+
+/**
+ * A level read a part at a time instead of being loaded as a whole tile array, used for levels too big to keep in
+ * memory. Cells are described by the letters of the level file format, in row-major order: W wall, E exit, I info
+ * field, S single use tile, R G B Y doors, r g b y keys, C treasure, X exit lock, F free tile, H chip, U bug and any
+ * other letter for a character from the level's plugin jar.
+ * The board reads the whole level once when it is created and after that only reads the chunks of cells it needs.
+ * @author Oscar Sykes 300486149
+ */
+public interface LevelSource {
+
+    /**
+     * @return the number of columns of the level
+     */
+    int getWidth();
+
+    /**
+     * @return the number of rows of the level
+     */
+    int getHeight();
+
+    /**
+     * Reads the letters of a run of cells
+     * @param first row-major index of the first cell read
+     * @param letters where the letters are put, starting at index 0
+     * @param length the number of cells read
+     * @throws IOException if the level can't be read
+     */
+    void read(int first, byte[] letters, int length) throws IOException;
+
+    /**
+     * Creates a character other than chip found in the level
+     * @param letter the letter of the character
+     * @param row row the character starts in
+     * @param col column the character starts in
+     * @return the character
+     */
+    UserGeneratedCharacter newCharacter(byte letter, int row, int col);
+}
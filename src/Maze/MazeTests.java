@@ -4,10 +4,19 @@ import Maze.Items.ExitLock;
 import Maze.Items.Key;
 import Maze.Items.Treasure;
 import Maze.Tiles.*;
+import Persistance.JsonLevelSource;
+import Persistance.JsonParser;
+import Persistance.UserBug;
 import org.junit.Test;
 
 import java.awt.*;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -67,6 +76,143 @@ public class MazeTests {
         assertFalse(board.moveChip("down"));
     }
 
+    /**
+     * Checks that undoing turns restores the board, keys, treasure and move lists and that redoing them reapplies
+     * the same changes
+     */
+    @Test
+    public void testUndoRedo() {
+        Board board = new Board(-1);
+        Chip chip = board.getChip();
+        String initial = board.toString();
+        assertFalse(board.canUndo());
+        multipleMoves(board, "RRRLLD");
+        String afterDoor = board.toString();
+        assertEquals(0, chip.getKeys().size());
+        assertTrue(board.getTile(chip.getRow(), chip.getCol()) instanceof FreeTile);
+
+        assertTrue(board.undo()); // back above the green door with the key
+        assertEquals(Color.green, chip.getKeys().get(0).getColour());
+        assertTrue(board.getTile(chip.getRow() + 1, chip.getCol()) instanceof LockedDoor);
+        assertEquals(5, board.getChipMoves().size());
+        for (int i = 0; i < 5; i++) {
+            assertTrue(board.undo());
+        }
+        assertFalse(board.undo());
+        assertEquals(initial, board.toString());
+        assertEquals(0, chip.getKeys().size());
+        assertEquals(0, board.getChipMoves().size());
+
+        while (board.redo()) ;
+        assertEquals(afterDoor, board.toString());
+        assertEquals(6, board.getChipMoves().size());
+
+        multipleMoves(board, "DDRR");
+        assertEquals(1, board.getTreasureCollectedAmount());
+        assertTrue(board.undo());
+        assertEquals(0, board.getTreasureCollectedAmount());
+        assertEquals(5, board.getTreasureRemainingAmount());
+        board.moveChip("up"); // a new move discards the undone turn
+        assertFalse(board.canRedo());
+    }
+
+    /**
+     * Checks that the key inventory counts keys per colour, only changes its version when it changes and tells its
+     * listeners about every change
+     */
+    @Test
+    public void testKeyInventory() {
+        Board board = new Board(-1);
+        Chip chip = board.getChip();
+        int[] changes = new int[1];
+        chip.addInventoryListener((c, colourIndex, count) -> {
+            assertEquals(PackedBoard.colourIndex(Color.green), colourIndex);
+            changes[0]++;
+        });
+        long version = chip.getInventoryVersion();
+        List<Key> keys = chip.getKeys();
+        board.moveChip("right");
+        assertEquals(version, chip.getInventoryVersion());
+        assertSame(keys, chip.getKeys());
+        multipleMoves(board, "RR");
+        assertEquals(1, chip.getKeyCount(PackedBoard.colourIndex(Color.green)));
+        assertEquals(1, chip.getKeyTotal());
+        assertTrue(chip.getInventoryVersion() > version);
+        multipleMoves(board, "LLD");
+        assertEquals(0, chip.getKeyTotal());
+        assertEquals(2, changes[0]);
+        chip.removeKey(Color.green); // removing a key chip doesn't have changes nothing
+        assertEquals(2, changes[0]);
+    }
+
+    /**
+     * Check that the board publishes its events in order once each turn ends, only to the listeners that want them,
+     * and stops after unsubscribing
+     */
+    @Test
+    public void testBoardEvents() {
+        Board board = new Board(-1);
+        StringBuilder all = new StringBuilder();
+        int[] doors = new int[1];
+        BoardListener doorListener = (b, event, row, col, detail) -> doors[0]++;
+        board.subscribe((b, event, row, col, detail) -> {
+            assertSame(board, b);
+            all.append(event).append(' ').append(row).append(',').append(col).append(' ').append(detail).append('\n');
+        });
+        board.subscribe(doorListener, BoardEvent.DOOR_OPENED);
+        multipleMoves(board, "RRR");
+        assertEquals("CHARACTER_MOVED 4,5 1\nCHARACTER_MOVED 4,6 1\n"
+                + "ITEM_PICKED_UP 4,7 " + PackedBoard.KEY_GREEN + "\nCHARACTER_MOVED 4,7 1\n", all.toString());
+        assertEquals(0, doors[0]);
+        multipleMoves(board, "LLD");
+        assertEquals(1, doors[0]);
+        assertTrue(all.toString().endsWith("DOOR_OPENED 5,5 " + PackedBoard.DOOR_GREEN + "\nCHARACTER_MOVED 5,5 1\n"));
+        int published = all.length();
+        assertFalse(board.moveChip("left")); // invalid moves publish nothing
+        assertEquals(published, all.length());
+        assertTrue(board.unsubscribe(doorListener));
+        assertFalse(board.unsubscribe(doorListener));
+        board.undo();
+        board.moveChip("down");
+        assertEquals(1, doors[0]);
+    }
+
+    /**
+     * Check that a turn publishing more events than the ring holds still delivers them all after the turn, and that
+     * events published by a listener while the ring is full are delivered in order by the same delivery
+     */
+    @Test
+    public void testBoardEventOverflow() {
+        Board crowded = new Board(ParallelTickBenchmark.crowdedLevel(60, 60, 1500, 7), 7);
+        List<Long> seenHashes = new ArrayList<>();
+        crowded.subscribe((b, event, row, col, detail) -> seenHashes.add(b.stateHash()), BoardEvent.CHARACTER_MOVED);
+        for (int turn = 0; turn < 3; turn++) {
+            seenHashes.clear();
+            assertTrue(crowded.moveChip(turn % 2 == 0 ? Direction.RIGHT : Direction.LEFT));
+            assertTrue(seenHashes.size() > BoardEventBus.DEFAULT_CAPACITY);
+            for (long hash : seenHashes) {
+                assertEquals(crowded.stateHash(), hash); // only delivered once the whole turn is done
+            }
+        }
+
+        Board board = new Board(-1);
+        BoardEventBus bus = new BoardEventBus(board, new PackedBoard(3, 3), 2);
+        StringBuilder delivered = new StringBuilder();
+        bus.subscribe((b, event, row, col, detail) -> {
+            delivered.append(detail).append(' ');
+            if (detail == 0) {
+                for (int i = 3; i < 6; i++) {
+                    bus.publish(BoardEvent.TILE_CONSUMED, 0, i); // the ring is full after the first of these
+                }
+            }
+        }, BoardEvent.TILE_CONSUMED.bit());
+        for (int i = 0; i < 3; i++) {
+            bus.publish(BoardEvent.TILE_CONSUMED, 0, i);
+        }
+        bus.deliver();
+        assertEquals("0 1 2 3 4 5 ", delivered.toString());
+    }
+
     /**
      * Check that the onInfo tile is true when chip is standing on an InfoTile and false otherwise
      */
@@ -187,6 +333,544 @@ public class MazeTests {
         assertTrue(board.getTileArray()[chip.getRow()][chip.getCol() + 1] instanceof WallTile);
     }
 
+    /**
+     * Check that the tile array built after some moves reflects the packed board state, and that tiles
+     * already handed out keep being updated
+     */
+    @Test
+    public void testTileViewMatchesBoard(){
+        Board board = new Board(-1);
+        multipleMoves(board, "RRR");
+        Tile[][] tiles = board.getTileArray();
+        Chip chip = board.getChip();
+        assertTrue(tiles[chip.getRow()][chip.getCol()].containsChip());
+        assertNull(((FreeTile) tiles[chip.getRow()][chip.getCol()]).getItem());
+        Tile keyTile = tiles[chip.getRow()][chip.getCol()];
+        board.moveChip("left");
+        assertFalse(keyTile.containsChip());
+        assertTrue(tiles[chip.getRow()][chip.getCol()].containsChip());
+    }
+
+    /**
+     * Check that the board view returns the live tiles and that the version only changes when the board does
+     */
+    @Test
+    public void testBoardView(){
+        Board board = new Board(-1);
+        BoardView view = board;
+        Chip chip = board.getChip();
+        long version = view.getVersion();
+        assertSame(board.getTileArray()[chip.getRow()][chip.getCol()], view.getTile(chip.getRow(), chip.getCol()));
+        assertFalse(board.moveChip("up") && board.moveChip("up"));
+        assertTrue(view.getVersion() > version);
+        version = view.getVersion();
+        assertFalse(board.moveChip("up")); // blocked by the exit lock
+        assertEquals(version, view.getVersion());
+        assertTrue(view.getTile(chip.getRow(), chip.getCol()).containsChip());
+    }
+
+    /**
+     * Check that the running invariant counts agree with a full recount after every turn, including the turn a bug
+     * lands on chip
+     */
+    @Test
+    public void testInvariantAudit(){
+        Board board = new Board(2);
+        board.setInvariantAuditInterval(1);
+        for (int i = 0; i < 500 && board.isChipAlive(); i++) {
+            board.moveChip(i % 2 == 0 ? "left" : "right");
+        }
+        assertThrows(IllegalArgumentException.class, () -> board.setInvariantAuditInterval(-1));
+    }
+
+    /**
+     * Checks that the bitset layers follow keys, doors and treasure being used up and answer bulk queries
+     */
+    @Test
+    public void testBoardLayers(){
+        Board board = new Board(-1);
+        BoardLayers layers = board.getLayers();
+        int width = board.getBoardWidth();
+        Chip chip = board.getChip();
+        int key = chip.getRow() * width + chip.getCol() + 3;
+        assertTrue(layers.hasItem(key, PackedBoard.KEY_GREEN));
+        multipleMoves(board, "RRR");
+        assertFalse(layers.hasItem(key, PackedBoard.KEY_GREEN));
+        assertFalse(layers.hasItem(key, PackedBoard.NO_ITEM));
+        assertTrue(layers.isBugEnterable(key));
+        multipleMoves(board, "LLD");
+        assertTrue(layers.hasTile(chip.getRow() * width + chip.getCol(), PackedBoard.FREE));
+
+        long[] bugCells = new long[layers.getWords()];
+        long[] chipCells = new long[layers.getWords()];
+        layers.bugEnterable(bugCells);
+        layers.chipEnterable(chipCells, 0, false);
+        for (int row = 0; row < board.getBoardHeight(); row++) {
+            for (int col = 0; col < width; col++) {
+                int index = row * width + col;
+                Tile tile = board.getTile(row, col);
+                boolean bug = tile instanceof FreeTile && ((FreeTile) tile).getItem() == null;
+                boolean chipCanEnter = !(tile instanceof WallTile) && !(tile instanceof LockedDoor)
+                        && !(tile instanceof FreeTile && ((FreeTile) tile).getItem() instanceof ExitLock);
+                assertEquals(bug, (bugCells[index >>> 6] & (1L << index)) != 0);
+                assertEquals(chipCanEnter, (chipCells[index >>> 6] & (1L << index)) != 0);
+            }
+        }
+    }
+
+    /**
+     * Checks that characters get dense ids in load order and that their registered positions follow their moves
+     */
+    @Test
+    public void testCharacterRegistry(){
+        Board board = new Board(2);
+        List<UserGeneratedCharacter> characters = board.getCharacters();
+        for (int id = 0; id < characters.size(); id++) {
+            assertEquals(id, characters.get(id).getId());
+        }
+        multipleMoves(board, "RRRRRRR");
+        for (UserGeneratedCharacter character : characters) {
+            assertSame(character, board.getTile(character.getRow(), character.getCol()).getCharacter());
+        }
+        UserGeneratedCharacter stranger = new Board(2).getCharacters().get(0);
+        assertThrows(IllegalArgumentException.class, () -> board.executeMove(Direction.NO_MOVE, stranger));
+    }
+
+    /**
+     * Checks that the legal moves given to a bug are exactly the moves the board accepts and that picking from them
+     * only returns legal moves
+     */
+    @Test
+    public void testLegalMoves(){
+        Board board = new Board(2);
+        UserGeneratedCharacter bug = board.getCharacters().get(0);
+        LegalMoves legalMoves = board.getLegalMoves(bug);
+        assertTrue(legalMoves.contains(Direction.NO_MOVE));
+        for (Direction dir : Direction.values()) {
+            Board copy = new Board(2);
+            assertEquals(legalMoves.contains(dir), copy.executeMove(dir, copy.getCharacters().get(0)));
+        }
+        int[] weights = {4, 4, 3, 4, 1};
+        for (int i = 0; i < 100; i++) {
+            assertTrue(legalMoves.contains(legalMoves.pick(i / 100.0)));
+            assertTrue(legalMoves.contains(legalMoves.pick(i / 100.0, weights)));
+        }
+        LegalMoves stuck = LegalMoves.of(0);
+        assertEquals(1, stuck.size());
+        assertEquals(Direction.NO_MOVE, stuck.pick(0.5, weights));
+        assertEquals("[noMove]", stuck.toString());
+    }
+
+    /**
+     * Checks that two boards with the same seed and the same chip moves play out exactly the same, also when one of
+     * them undid a turn
+     */
+    @Test
+    public void testSeededBoardsMatch(){
+        Board first = new Board(2, 42);
+        Board second = new Board(2, 42);
+        assertEquals(42, first.getSeed());
+        multipleMoves(first, "RRRRRDDUULLLLL");
+        multipleMoves(second, "RRRRRDDUULLLLL");
+        assertEquals(first.getOtherCharacterMoves(), second.getOtherCharacterMoves());
+        assertEquals(first.toString(), second.toString());
+        assertEquals(first.getRandom().nextLong(), second.getRandom().nextLong());
+
+        // an undone turn doesn't change the turns after it, so the game is still recomputed from seed and chip moves
+        String[] level = {"WWWWWWW", "WH    W", "W     W", "WWWWWWW", "W U U W", "W  U  W", "WWWWWWW"};
+        Board undone = new Board(levelFromText(level), 42);
+        multipleMoves(undone, "RD");
+        assertTrue(undone.undo());
+        multipleMoves(undone, "DRRR");
+        Board replayed = new Board(levelFromText(level), 42);
+        for (Direction dir : new ArrayList<>(undone.getChipMoves())) {
+            assertTrue(replayed.moveChip(dir));
+        }
+        assertEquals(undone.getOtherCharacterMoves(), replayed.getOtherCharacterMoves());
+        assertEquals(undone.toString(), replayed.toString());
+        assertEquals(undone.stateHash(), replayed.stateHash());
+    }
+
+    /**
+     * Checks that the headless engine plays a batch of games in parallel exactly like boards loaded from the level
+     * file, keeping the results in order, and that agents are stopped after their move limit
+     */
+    @Test
+    public void testSimulationEngine(){
+        List<Direction> inputs = new ArrayList<>();
+        for (char c : "RRRRRDDUULLLLLDDRR".toCharArray()) {
+            inputs.add(c == 'R' ? Direction.RIGHT : c == 'L' ? Direction.LEFT : c == 'U' ? Direction.UP : Direction.DOWN);
+        }
+        List<SimulationEngine.Game> games = new ArrayList<>();
+        for (int seed = 0; seed < 40; seed++) {
+            games.add(SimulationEngine.Game.of(2, seed, inputs));
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            SimulationEngine engine = new SimulationEngine(pool);
+            List<SimulationResult> results = engine.playAll(games);
+            assertEquals(games.size(), results.size());
+            for (int seed = 0; seed < 40; seed++) {
+                Board board = new Board(2, seed);
+                int rejected = 0;
+                for (Direction dir : inputs) {
+                    if (board.isChipAlive() && !board.isLevelFinished() && !board.moveChip(dir)) {
+                        rejected++;
+                    }
+                }
+                SimulationResult result = results.get(seed);
+                assertEquals(seed, result.getSeed());
+                assertEquals(board.isChipAlive(), result.isChipAlive());
+                assertEquals(board.getTreasureCollectedAmount(), result.getTreasureCollected());
+                assertEquals(board.getChipMoves().size(), result.getMoves());
+                assertEquals(rejected, result.getRejectedMoves());
+            }
+            Board copy = engine.newBoard(2, 42);
+            Board loaded = new Board(2, 42);
+            multipleMoves(copy, "RRRRRDDUULLLLL");
+            multipleMoves(loaded, "RRRRRDDUULLLLL");
+            assertEquals(loaded.toString(), copy.toString());
+            assertEquals(loaded.getOtherCharacterMoves(), copy.getOtherCharacterMoves());
+
+            SimulationResult result = engine.play(SimulationEngine.Game.of(-1, 0, b -> Direction.RIGHT, 10));
+            assertEquals(4, result.getMoves());
+            assertEquals(6, result.getRejectedMoves());
+            assertFalse(result.isLevelFinished());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Checks that the solver finds shortest solutions that finish the level when played, follows the rules for keys,
+     * doors, exit locks and single use tiles, and stops at its state limit
+     */
+    @Test
+    public void testLevelSolver(){
+        LevelSolution solution = LevelSolver.solveLevel(-1);
+        assertTrue(solution.isSolved());
+        Board board = new Board(-1);
+        for (Direction dir : solution.getMoves()) {
+            assertTrue(board.moveChip(dir));
+        }
+        assertTrue(board.isLevelFinished());
+
+        assertEquals(6, new Board(levelFromText("HSrRCXE"), 0).solver().solve().getPar());
+        assertEquals(7, new Board(levelFromText("r H RE"), 0).solver().solve().getPar()); // fetch the key first
+        assertEquals(LevelSolution.Status.UNSOLVABLE,
+                new Board(levelFromText("rSH RE"), 0).solver().solve().getStatus()); // the way back is used up
+        assertEquals(LevelSolution.Status.UNSOLVABLE,
+                new Board(levelFromText("H CWXE"), 0).solver().solve().getStatus());
+
+        String manyTreasure = "H" + "C".repeat(63) + "E"; // 7 bits of position and 63 of treasure
+        assertEquals(LevelSolution.Status.TOO_LARGE,
+                new Board(levelFromText(manyTreasure), 0).solver().solve().getStatus());
+        // 6 bits of position: 57 treasure fill the 63 bits a state can use, one more would reach the sign bit
+        assertEquals(58, new Board(levelFromText("H" + "C".repeat(57) + "E     "), 0).solver().solve().getPar());
+        assertEquals(LevelSolution.Status.TOO_LARGE,
+                new Board(levelFromText("H" + "C".repeat(58) + "E    "), 0).solver().solve().getStatus());
+
+        LevelSolver solver = new Board(-1).solver();
+        solver.setMaxStates(10);
+        LevelSolution limited = solver.solve();
+        assertEquals(LevelSolution.Status.STATE_LIMIT, limited.getStatus());
+        assertEquals(-1, limited.getPar());
+        assertTrue(limited.getMoves().isEmpty());
+    }
+
+    /**
+     * Checks that the state hash only depends on the state, whatever moves led to it, and is kept up to date by
+     * moves, undo and keys changed outside the board
+     */
+    @Test
+    public void testStateHash(){
+        Board board = new Board(-1);
+        Board other = new Board(-1);
+        board.setInvariantAuditInterval(1); // every move checks the hash against a full rehash
+        long start = board.stateHash();
+        assertEquals(start, other.stateHash());
+        multipleMoves(board, "UD");
+        multipleMoves(other, "RL");
+        assertEquals(start, board.stateHash());
+        assertEquals(start, other.stateHash());
+        multipleMoves(board, "RRR");
+        long withKey = board.stateHash();
+        assertNotEquals(start, withKey);
+        board.undo();
+        assertNotEquals(withKey, board.stateHash());
+        board.redo();
+        assertEquals(withKey, board.stateHash());
+        board.getChip().addKey(new Key(Color.red));
+        assertNotEquals(withKey, board.stateHash());
+        board.getChip().removeKey(Color.red);
+        assertEquals(withKey, board.stateHash());
+        assertNotEquals(start, new Board(0).stateHash());
+    }
+
+    /**
+     * Checks that the load time analysis finds unreachable areas, exits and treasure, doors without enough keys and
+     * door orders that strand chip, and that boards of the same level file share one analysis
+     */
+    @Test
+    public void testLevelAnalysis(){
+        LevelAnalysis clean = new Board(levelFromText("H CXE"), 0).getAnalysis();
+        assertFalse(clean.hasProblems());
+        assertTrue(clean.isGreedyWin());
+
+        LevelAnalysis walledOff = new Board(levelFromText("HCXE", "WWWW", "  CW"), 0).getAnalysis();
+        assertTrue(walledOff.isExitReachable());
+        assertEquals(1, walledOff.getUnreachableTreasure());
+        assertEquals(3, walledOff.getUnreachableCells());
+        assertEquals(1, walledOff.getUnreachableAreas());
+        assertFalse(walledOff.isReachable(2, 0));
+        assertTrue(walledOff.isReachable(0, 2));
+        assertFalse(walledOff.isGreedyWin());
+
+        LevelAnalysis noExit = new Board(levelFromText("H WE"), 0).getAnalysis();
+        assertFalse(noExit.isExitReachable());
+        assertEquals(1, noExit.getUnreachableAreas());
+
+        LevelAnalysis fewKeys = new Board(levelFromText("HrRRE"), 0).getAnalysis();
+        assertEquals(1, fewKeys.getReachableKeys(0));
+        assertEquals(2, fewKeys.getReachableDoors(0));
+        assertFalse(fewKeys.isGreedyWin());
+        assertEquals(2, fewKeys.getProblems().size());
+
+        assertFalse(new Board(-1).getAnalysis().hasProblems());
+        assertSame(new Board(1).getAnalysis(), new Board(1).getAnalysis());
+        assertFalse(new Board(1).getAnalysis().isGreedyWin()); // using the first red key on the right door strands chip
+    }
+
+    /**
+     * Checks that a level read from a level source a chunk at a time, with only two chunks allowed in memory, plays
+     * exactly like the same level loaded as a tile array
+     */
+    @Test
+    public void testChunkedLevel() throws IOException {
+        java.util.Random random = new java.util.Random(3);
+        String[] rows = new String[150];
+        for (int i = 0; i < rows.length; i++) {
+            StringBuilder row = new StringBuilder();
+            for (int j = 0; j < 120; j++) {
+                boolean border = i == 0 || j == 0 || i == rows.length - 1 || j == 119;
+                row.append(border ? 'W' : i == 1 && j == 1 ? 'H' : "FFFFFFFFWCrRUS".charAt(random.nextInt(14)));
+            }
+            rows[i] = row.toString();
+        }
+        File file = File.createTempFile("chunked", ".json");
+        file.deleteOnExit();
+        try (java.io.Writer out = new java.io.FileWriter(file)) {
+            out.write("{\"lvlWandH\": [\"150\", \"120\"], \"lvlTiles\": \"" + String.join("", rows) + "\"}");
+        }
+        try (JsonLevelSource source = new JsonLevelSource(file)) {
+            Board chunked = new Board(source, 5);
+            Board loaded = new Board(levelFromText(rows), 5);
+            chunked.setChunkMemoryBudget(2 * PackedBoard.CHUNK_BYTES);
+            chunked.setInvariantAuditInterval(1);
+            assertEquals(loaded.toString(), chunked.toString());
+            assertEquals(loaded.stateHash(), chunked.stateHash());
+            assertNull(chunked.getAnalysis());
+            for (int i = 0; i < 300 && loaded.isChipAlive(); i++) {
+                Direction dir = Direction.values()[random.nextInt(4)];
+                assertEquals(loaded.moveChip(dir), chunked.moveChip(dir));
+                assertEquals(loaded.stateHash(), chunked.stateHash());
+                assertTrue(chunked.getResidentChunks() <= 2);
+            }
+            assertEquals(loaded.toString(), chunked.toString());
+            assertEquals(loaded.getTreasureCollectedAmount(), chunked.getTreasureCollectedAmount());
+        }
+        try (java.io.Writer out = new java.io.FileWriter(file)) {
+            out.write("{\"lvlWandH\": [\"150\", \"120\"], \"lvlTiles\": \""
+                    + String.join("", rows).replace('U', 'F') + "\"}");
+        }
+        try (JsonLevelSource source = new JsonLevelSource(file)) {
+            // without characters to place only the chunk around chip is read, even with assertions on
+            assertEquals(1, new Board(source, 5).getResidentChunks());
+        }
+    }
+
+    /**
+     * Checks that walls and doors share one tile per type, that a used up single use tile becomes the shared wall and
+     * that shared tiles can't hold characters
+     */
+    @Test
+    public void testSharedTiles(){
+        Board board = new Board(levelFromText("WWWW", "HSrR", "WWRE"), 0);
+        assertSame(WallTile.SHARED, board.getTile(0, 0));
+        assertSame(board.getTile(0, 0), board.getTile(2, 1));
+        assertSame(board.getTile(1, 3), board.getTile(2, 2));
+        assertSame(LockedDoor.shared(Color.red), board.getTile(1, 3));
+        Tile singleUse = board.getTile(1, 1);
+        assertFalse(singleUse.isShared());
+        multipleMoves(board, "R");
+        assertTrue(singleUse.containsChip());
+        multipleMoves(board, "RR");
+        assertSame(WallTile.SHARED, board.getTile(1, 1)); // the single use tile was used up
+        assertTrue(board.getTile(1, 3) instanceof FreeTile && board.getTile(1, 3).containsChip());
+        String usedUp = board.toString();
+        board.undo();
+        assertSame(LockedDoor.shared(Color.red), board.getTile(1, 3));
+        board.undo(); // chip goes back onto the used up tile before the tile is restored
+        assertTrue(board.getTile(1, 1) instanceof SingleUseTile && board.getTile(1, 1).containsChip());
+        assertNull(WallTile.SHARED.getCharacter());
+        Board onSingleUse = new Board(levelFromText("WWWW", "HSrR", "WWRE"), 0);
+        multipleMoves(onSingleUse, "R");
+        assertEquals(onSingleUse.toString(), board.toString());
+        board.redo();
+        board.redo();
+        assertEquals(usedUp, board.toString());
+        assertSame(WallTile.SHARED, board.getTile(1, 1));
+        assertThrows(IllegalStateException.class, () -> WallTile.SHARED.setCharacter(board.getChip()));
+        assertNull(WallTile.SHARED.getCharacter());
+    }
+
+    /**
+     * Checks that the tile kind registry matches the tile codes, the tile classes and the level file letters
+     */
+    @Test
+    public void testTileKinds(){
+        for (TileKind kind : TileKind.values()) {
+            Tile tile = kind.newTile();
+            assertSame(kind, tile.getKind());
+            assertEquals(kind.getCode(), PackedBoard.tileCode(tile));
+            assertSame(kind, TileKind.ofFileLetter(kind.getFileLetter()));
+            assertEquals(kind.getSprite(), tile.toString());
+            assertEquals(kind.isShareable(), tile.isShared());
+        }
+        assertEquals(PackedBoard.DOOR_BLUE, TileKind.door(2).getCode());
+        assertSame(TileKind.DOOR_YELLOW, new LockedDoor(Color.yellow).getKind());
+        assertSame(TileKind.FREE, TileKind.DOOR_RED.becomesOnEnter());
+        assertSame(TileKind.WALL, TileKind.SINGLE_USE.becomesOnLeave());
+        assertFalse(TileKind.WALL.isChipEnterable());
+        assertTrue(TileKind.FREE.isBugEnterable() && !TileKind.EXIT.isBugEnterable());
+        assertEquals("E", new Exit().getLetter());
+        assertNull(TileKind.ofFileLetter('r'));
+    }
+
+    /**
+     * Checks that a level file is parsed once and that boards copied from the parsed level are independent and play
+     * like a freshly parsed level
+     */
+    @Test
+    public void testLevelCache(){
+        assertSame(Board.levelTemplate(2), Board.levelTemplate(2));
+        Board first = new Board(2, 5);
+        Board second = new Board(2, 5);
+        assertNotSame(Board.levelTemplate(2), first);
+        assertEquals(first.toString(), second.toString());
+        Board parsed = new Board(JsonParser.getLvl(2), 5);
+        assertEquals(parsed.toString(), first.toString());
+        assertEquals(parsed.stateHash(), first.stateHash());
+        multipleMoves(first, "RRRRRDD");
+        assertNotEquals(first.toString(), second.toString());
+        assertEquals(Board.levelTemplate(2).toString(), second.toString());
+        multipleMoves(second, "RRRRRDD");
+        assertEquals(first.toString(), second.toString());
+        multipleMoves(parsed, "RRRRRDD");
+        assertEquals(parsed.stateHash(), first.stateHash());
+        assertEquals(parsed.getOtherCharacterMoves(), first.getOtherCharacterMoves());
+    }
+
+    /**
+     * Checks that a changed level file is parsed again and replaces the board parsed before it, so the cache keeps
+     * one version of each file
+     * @throws IOException if the level file can't be written
+     */
+    @Test
+    public void testLevelCacheReplacesChangedFile() throws IOException {
+        File file = File.createTempFile("edited", ".json");
+        try {
+            Files.write(file.toPath(), "{\"lvlWandH\": [\"3\", \"4\"], \"lvlTiles\": \"WWWWWHCEWWWW\"}".getBytes());
+            Board first = Board.levelTemplate(file);
+            assertSame(first, Board.levelTemplate(file));
+            Files.write(file.toPath(), "{\"lvlWandH\": [\"3\", \"5\"], \"lvlTiles\": \"WWWWWWHCCEWWWWW\"}".getBytes());
+            Board second = Board.levelTemplate(file);
+            assertNotSame(first, second);
+            assertEquals(2, second.getTreasureRemainingAmount());
+            assertSame(second, Board.levelTemplate(file));
+
+            FileCache<String> cache = new FileCache<>();
+            assertEquals("a", cache.get(file, f -> "a"));
+            assertEquals("a", cache.get(file, f -> "b"));
+            assertTrue(file.setLastModified(file.lastModified() - 60000));
+            assertEquals("c", cache.get(file, f -> "c"));
+            assertEquals(1, cache.size());
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Checks that the level catalogue indexes the levels folder and a level pack, and that a prefetched level is
+     * parsed before it is played
+     * @throws Exception if the level pack can't be written or the prefetch fails
+     */
+    @Test
+    public void testLevelCatalogue() throws Exception {
+        LevelCatalogue catalogue = LevelCatalogue.getDefault();
+        assertEquals(4, catalogue.getLevels().size());
+        assertEquals(2, catalogue.getPlayableLevels().size());
+        LevelCatalogue.Entry level2 = catalogue.get(2);
+        assertEquals("Level 2", level2.getName());
+        assertEquals(20, level2.getWidth());
+        assertEquals(19, level2.getHeight());
+        assertEquals(new Board(2).getTreasureRemainingAmount(), level2.getTreasure());
+        assertEquals(LevelCatalogue.DEFAULT_TIME_LIMIT, level2.getTimeLimit());
+        assertSame(level2, catalogue.next(1));
+        assertSame(catalogue.get(1), catalogue.next(-1));
+        assertNull(catalogue.next(2));
+        assertThrows(IllegalArgumentException.class, () -> new Board(3));
+
+        File pack = Files.createTempDirectory("pack").toFile();
+        File file = new File(pack, "level7.json");
+        File broken = new File(pack, "level8.json");
+        File badTiles = new File(pack, "level9.json");
+        try {
+            Files.write(file.toPath(), ("{\"lvlWandH\": [\"3\", \"4\"], \"lvlName\": \"Tiny\", "
+                    + "\"lvlTime\": \"30\", \"lvlTiles\": \"WWWWWHCEWWWW\"}").getBytes());
+            Files.write(broken.toPath(), "{\"lvlWandH\": [\"3\", \"x\"]".getBytes());
+            Files.write(badTiles.toPath(), ("{\"lvlWandH\": [\"3\", \"4\"], \"lvlName\": \"Bad\", "
+                    + "\"lvlTiles\": \"WWWWWH!EWWWW\"}").getBytes());
+            LevelCatalogue packCatalogue = new LevelCatalogue(pack);
+            assertEquals(2, packCatalogue.getLevels().size()); // the level with a broken header is left out
+            // only the header is read, so broken tiles are found when the level is played
+            assertEquals("Bad", packCatalogue.get(9).getName());
+            assertThrows(IllegalArgumentException.class, () -> packCatalogue.get(9).newBoard(1));
+            LevelCatalogue.Entry tiny = packCatalogue.get(7);
+            assertEquals("Tiny", tiny.getName());
+            assertEquals(30, tiny.getTimeLimit());
+            assertEquals(1, tiny.getTreasure());
+            assertSame(tiny, packCatalogue.next(1));
+            Board parsed = packCatalogue.prefetch(tiny).get();
+            assertSame(parsed, Board.levelTemplate(file));
+            assertEquals(parsed.toString(), tiny.newBoard(1).toString());
+        } finally {
+            file.delete();
+            broken.delete();
+            badTiles.delete();
+            pack.delete();
+        }
+    }
+
+    /**
+     * Checks that planning bug moves in parallel gives exactly the same game as moving the bugs one at a time
+     */
+    @Test
+    public void testParallelTickMatchesSequential(){
+        Board sequential = new Board(ParallelTickBenchmark.crowdedLevel(60, 60, 1500, 7), 7);
+        Board parallel = new Board(ParallelTickBenchmark.crowdedLevel(60, 60, 1500, 7), 7);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            parallel.setTickPool(pool);
+            ParallelTickBenchmark.run(sequential, 40);
+            ParallelTickBenchmark.run(parallel, 40);
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(sequential.toString(), parallel.toString());
+        assertEquals(sequential.getOtherCharacterMoves(), parallel.getOtherCharacterMoves());
+    }
+
     /**
      * Check that the bug has moved to the correct tile
      */
@@ -197,16 +881,9 @@ public class MazeTests {
         int row = bug.getRow();
         int col = bug.getCol();
         multipleMoves(board, "RRRRRRR");
-        for(String move: board.getOtherCharacterMoves().get(0)){
-            if(move.equals("left")){
-                col--;
-            }else if(move.equals("right")){
-                col++;
-            }else if(move.equals("up")){
-                row--;
-            }else if(move.equals("down")){
-                row++;
-            }
+        for(Direction move: board.getOtherCharacterMoves().get(0)){
+            row += move.getRowChange();
+            col += move.getColChange();
         }
         assertTrue(board.getTileArray()[row][col].getCharacter() instanceof UserGeneratedCharacter);
     }
@@ -284,14 +961,14 @@ public class MazeTests {
     public void checkMoves(){
         Board board = new Board(2);
         multipleMoves(board, "RU");
-        List<String> moves = board.getChipMoves();
-        assertEquals("right", moves.get(0));
-        assertEquals("up", moves.get(1));
-        List<List<String>> otherCharactersMoves = board.getOtherCharacterMoves();
+        List<Direction> moves = board.getChipMoves();
+        assertEquals(Direction.RIGHT, moves.get(0));
+        assertEquals(Direction.UP, moves.get(1));
+        List<List<Direction>> otherCharactersMoves = board.getOtherCharacterMoves();
         assertEquals(2, otherCharactersMoves.get(0).size());
         board.clearMoves();
         assertEquals(0, board.getChipMoves().size());
-        List<List<String>> otherCharacters = board.getOtherCharacterMoves();
+        List<List<Direction>> otherCharacters = board.getOtherCharacterMoves();
         for(int i = 0; i < otherCharacters.size(); i++) {
             assertEquals(0, otherCharacters.get(i).size());
         }
@@ -338,6 +1015,43 @@ public class MazeTests {
         assertEquals("Y", new LockedDoor(Color.yellow).getLetter());
     }
 
+    /**
+     * Checks that the text writer can stream a region of the board to a Writer and colour it for terminals
+     */
+    @Test
+    public void checkBoardTextWriter() throws IOException {
+        Board board = new Board(-1);
+        StringWriter whole = new StringWriter();
+        board.textWriter().write(whole);
+        assertEquals(board.toString(), whole.toString());
+
+        BoardTextWriter writer = board.textWriter();
+        writer.setRegion(1, 1, 2, 3);
+        StringBuilder region = new StringBuilder();
+        writer.write(region);
+        assertEquals("|C| |W|\n|W|R|W|\n", region.toString());
+
+        writer.setAnsi(true);
+        StringBuilder coloured = new StringBuilder();
+        writer.write(coloured);
+        assertEquals(region.toString(), coloured.toString().replaceAll("\u001b\\[[0-9;]*m", ""));
+        assertTrue(coloured.toString().contains("\u001b[31mR\u001b[0m"));
+        assertThrows(IndexOutOfBoundsException.class, () -> writer.setRegion(5, 5, 10, 1));
+    }
+
+    /**
+     * Checks that directions convert to and from the names used in save files
+     */
+    @Test
+    public void checkDirectionNames() {
+        for (Direction dir : Direction.values()) {
+            assertEquals(dir, Direction.fromString(dir.toString()));
+            assertEquals(dir, Direction.fromChange(dir.getRowChange(), dir.getColChange()));
+        }
+        assertNull(Direction.fromChange(1, 1));
+        assertThrows(IllegalArgumentException.class, () -> Direction.fromString("north"));
+    }
+
     /**
      * Check that the dimensions of the board are correct
      */
@@ -370,6 +1084,47 @@ public class MazeTests {
         assertEquals(new SingleUseTile().toString(), "SingleUseTile");
     }
 
+    /**
+     * Builds a level from rows of the letters used by Board.toString, with H for chip and U for a bug
+     * @param rows the rows of the level
+     * @return the tiles of the level
+     */
+    private static Tile[][] levelFromText(String... rows) {
+        Tile[][] tiles = new Tile[rows.length][rows[0].length()];
+        for (int i = 0; i < rows.length; i++) {
+            for (int j = 0; j < rows[i].length(); j++) {
+                char c = rows[i].charAt(j);
+                String doors = "RGBY", keys = "rgby";
+                if (c == 'W') {
+                    tiles[i][j] = new WallTile();
+                } else if (c == 'E') {
+                    tiles[i][j] = new Exit();
+                } else if (c == 'I') {
+                    tiles[i][j] = new InfoField();
+                } else if (c == 'S') {
+                    tiles[i][j] = new SingleUseTile();
+                } else if (doors.indexOf(c) >= 0) {
+                    tiles[i][j] = new LockedDoor(PackedBoard.colourOf(doors.indexOf(c)));
+                } else {
+                    FreeTile tile = new FreeTile();
+                    if (keys.indexOf(c) >= 0) {
+                        tile.setItem(new Key(PackedBoard.colourOf(keys.indexOf(c))));
+                    } else if (c == 'C') {
+                        tile.setItem(new Treasure());
+                    } else if (c == 'X') {
+                        tile.setItem(new ExitLock());
+                    } else if (c == 'H') {
+                        tile.setCharacter(new Chip(i, j));
+                    } else if (c == 'U') {
+                        tile.setCharacter(new UserBug(i, j));
+                    }
+                    tiles[i][j] = tile;
+                }
+            }
+        }
+        return tiles;
+    }
+
     /**
      * This method moves chip according to some string of letters.
      * If one move is invalid it throws an assertion exception.
@@ -0,0 +1,227 @@
+package Maze;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A bounded journal of reversible changes made to the board, used to undo and redo turns.
+ * Every change is stored as a delta (kind, target, old value, new value) in fixed size primitive ring buffers. The
+ * deltas of one turn are grouped by marking the first delta of each turn. Undoing a turn applies the old values of its
+ * deltas in reverse order and redoing it applies the new values in order, so both only touch what the turn changed.
+ * When the journal is full the oldest turns are dropped.
+ * @author Oscar Sykes 300486149
+ */
+class MoveJournal {
+
+    /**
+     * Applies a value from the journal back onto the board
+     */
+    interface Target {
+        /**
+         * @param kind the kind of delta
+         * @param target what the delta changes (a cell index, character slot, colour index etc. depending on kind)
+         * @param value the value to set
+         */
+        void apply(byte kind, int target, int value);
+    }
+
+    /**
+     * The kinds of delta that can be recorded
+     */
+    static final byte TILE = 0, ITEM = 1, SLOT = 2, POSITION = 3, KEYS = 4, FLAGS = 5, TREASURE = 6,
+            CHIP_MOVE = 7, OTHER_MOVE = 8, TURNS = 9;
+
+    /**
+     * The default number of deltas kept
+     */
+    static final int DEFAULT_CAPACITY = 1 << 16;
+
+    /**
+     * Bit set on the kind of the first delta of every turn
+     */
+    private static final byte TURN_START = (byte) 0x80;
+
+    /**
+     * Ring buffers holding the deltas
+     */
+    private final byte[] kinds;
+    private final int[] targets, oldValues, newValues;
+
+    /**
+     * Sequence numbers of the oldest delta kept, the next delta to undo + 1 and one past the newest delta that can be
+     * redone. Position i in the ring buffers holds the delta with sequence number s where s % capacity == i
+     */
+    private long first = 0, cursor = 0, end = 0;
+
+    /**
+     * Sequence number of the first delta of the turn being recorded, or -1 when no turn is being recorded
+     */
+    private long turnStart = -1;
+
+    /**
+     * Set while a turn is too big to fit in the journal, in which case it can't be undone
+     */
+    private boolean overflowed = false;
+
+    /**
+     * Set while deltas are being applied so the changes they cause aren't recorded again
+     */
+    private boolean applying = false;
+
+    /**
+     * @param capacity maximum number of deltas kept
+     */
+    MoveJournal(int capacity) {
+        Preconditions.checkArgument(capacity > 0);
+        kinds = new byte[capacity];
+        targets = new int[capacity];
+        oldValues = new int[capacity];
+        newValues = new int[capacity];
+    }
+
+    /**
+     * Starts recording a new turn. Once the turn records a change, turns that were undone can no longer be redone.
+     */
+    void beginTurn() {
+        Preconditions.checkState(turnStart < 0, "Turn already started");
+        turnStart = cursor;
+        overflowed = false;
+    }
+
+    /**
+     * @return whether a turn is currently being recorded
+     */
+    boolean inTurn() {
+        return turnStart >= 0;
+    }
+
+    /**
+     * @return whether any deltas have been recorded in the current turn
+     */
+    boolean turnHasDeltas() {
+        return inTurn() && (cursor > turnStart || overflowed);
+    }
+
+    /**
+     * Finishes the current turn. A turn that didn't change anything is not kept.
+     */
+    void endTurn() {
+        Preconditions.checkState(turnStart >= 0, "No turn started");
+        if (overflowed) {
+            clear(); // part of this turn was dropped so it can't be undone
+        }
+        turnStart = -1;
+        overflowed = false;
+    }
+
+    /**
+     * Records a change. Changes made outside of a turn or while the journal is applying deltas are ignored.
+     * @param kind the kind of delta
+     * @param target what the delta changes
+     * @param oldValue the value before the change
+     * @param newValue the value after the change
+     */
+    void record(byte kind, int target, int oldValue, int newValue) {
+        if (applying || turnStart < 0 || overflowed || oldValue == newValue) {
+            return;
+        }
+        int capacity = kinds.length;
+        if (cursor - first == capacity) {
+            dropOldestTurn();
+            if (cursor - first == capacity) {
+                overflowed = true;
+                return;
+            }
+        }
+        int i = (int) (cursor % capacity);
+        kinds[i] = cursor == turnStart ? (byte) (kind | TURN_START) : kind;
+        targets[i] = target;
+        oldValues[i] = oldValue;
+        newValues[i] = newValue;
+        cursor++;
+        end = cursor;
+    }
+
+    /**
+     * @return whether there is a finished turn that can be undone
+     */
+    boolean canUndo() {
+        return turnStart < 0 && cursor > first;
+    }
+
+    /**
+     * @return whether there is an undone turn that can be redone
+     */
+    boolean canRedo() {
+        return turnStart < 0 && end > cursor;
+    }
+
+    /**
+     * Undoes the most recent turn by applying the old values of its deltas in reverse order
+     * @param target the board to apply the values to
+     * @return whether there was a turn to undo
+     */
+    boolean undo(Target target) {
+        if (!canUndo()) {
+            return false;
+        }
+        applying = true;
+        try {
+            boolean startOfTurn;
+            do {
+                cursor--;
+                int i = (int) (cursor % kinds.length);
+                startOfTurn = (kinds[i] & TURN_START) != 0;
+                target.apply((byte) (kinds[i] & ~TURN_START), targets[i], oldValues[i]);
+            } while (!startOfTurn && cursor > first);
+        } finally {
+            applying = false;
+        }
+        return true;
+    }
+
+    /**
+     * Redoes the most recently undone turn by applying the new values of its deltas in order
+     * @param target the board to apply the values to
+     * @return whether there was a turn to redo
+     */
+    boolean redo(Target target) {
+        if (!canRedo()) {
+            return false;
+        }
+        applying = true;
+        try {
+            do {
+                int i = (int) (cursor % kinds.length);
+                target.apply((byte) (kinds[i] & ~TURN_START), targets[i], newValues[i]);
+                cursor++;
+            } while (cursor < end && (kinds[(int) (cursor % kinds.length)] & TURN_START) == 0);
+        } finally {
+            applying = false;
+        }
+        return true;
+    }
+
+    /**
+     * Forgets every recorded turn
+     */
+    void clear() {
+        first = cursor;
+        end = cursor;
+        if (turnStart >= 0) {
+            turnStart = cursor;
+        }
+    }
+
+    /**
+     * Drops the oldest complete turn to make room. The turn currently being recorded is never dropped.
+     */
+    private void dropOldestTurn() {
+        long limit = turnStart >= 0 ? turnStart : cursor;
+        if (first >= limit) {
+            return;
+        }
+        do {
+            first++;
+        } while (first < limit && (kinds[(int) (first % kinds.length)] & TURN_START) == 0);
+    }
+}
@@ -0,0 +1,962 @@
+package Maze;
+
+import Maze.Items.ExitLock;
+import Maze.Items.Item;
+import Maze.Items.Key;
+import Maze.Items.Treasure;
+import Maze.Tiles.*;
+import com.google.common.base.Preconditions;
+
+import java.awt.*;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Flat primitive storage for the board.
+ * Each cell is addressed by its row-major index (row * width + col) and is described by a tile code, an item code and
+ * a character slot. This replaces the grid of individually allocated Tile, Item and Character references so the game
+ * logic can work on a few contiguous arrays.
+ * The arrays are split into fixed size chunks that are only brought into memory when they are used, read from a
+ * level source for levels too big to load at once, and evicted again when the board has a memory budget.
+ * @author Oscar Sykes 300486149
+ */
+public class PackedBoard {
+
+    /**
+     * Tile codes, which are the ordinals of the matching TileKind. The four door codes are ordered red, green, blue,
+     * yellow so they can be offset by colour index
+     */
+    public static final byte FREE = 0, WALL = 1, EXIT = 2, INFO = 3, SINGLE_USE = 4,
+            DOOR_RED = 5, DOOR_GREEN = 6, DOOR_BLUE = 7, DOOR_YELLOW = 8;
+
+    /**
+     * Item codes. The four key codes are ordered red, green, blue, yellow so they can be offset by colour index
+     */
+    public static final byte NO_ITEM = 0, KEY_RED = 1, KEY_GREEN = 2, KEY_BLUE = 3, KEY_YELLOW = 4,
+            TREASURE = 5, EXIT_LOCK = 6;
+
+    /**
+     * Character slots. Slots from FIRST_OTHER_CHARACTER upwards refer to user generated characters in load order
+     */
+    public static final short NO_CHARACTER = 0, CHIP = 1, FIRST_OTHER_CHARACTER = 2;
+
+    /**
+     * Cells are stored in chunks of CHUNK_SIZE consecutive row-major cells. A chunk is only in memory once one of its
+     * cells has been used, so boards far bigger than the memory budget can be played.
+     */
+    public static final int CHUNK_BITS = 12, CHUNK_SIZE = 1 << CHUNK_BITS;
+
+    /**
+     * Mask of the position of a cell within its chunk
+     */
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    /**
+     * The number of words of a bitset layer covering one chunk
+     */
+    static final int LAYER_WORDS = CHUNK_SIZE / 64;
+
+    /**
+     * Index of the first tile layer and the first item layer of a chunk, and the number of layers. The item layer of
+     * NO_ITEM is used for "holds any item".
+     */
+    static final int TILE_LAYERS = 0, ITEM_LAYERS = DOOR_YELLOW + 1, LAYERS = ITEM_LAYERS + EXIT_LOCK + 1;
+
+    /**
+     * Roughly how much memory a chunk takes while it is in memory, in bytes
+     */
+    public static final int CHUNK_BYTES = CHUNK_SIZE * 4 + LAYERS * LAYER_WORDS * 8;
+
+    /**
+     * How much memory the chunks of a board read from a level source may take by default, in bytes
+     */
+    private static final long DEFAULT_SOURCE_BUDGET = Runtime.getRuntime().maxMemory() / 4;
+
+    /**
+     * The tile code and item code of every letter of the level file format, or -1 for invalid letters
+     */
+    private static final byte[] TILE_OF_LETTER = new byte[128], ITEM_OF_LETTER = new byte[128];
+
+    /**
+     * The level file letter of every item code, a space for NO_ITEM
+     */
+    private static final String ITEM_LETTERS = " rgbyCX";
+
+    /**
+     * Whether each letter stands for a character: H for chip, and every other ASCII letter that isn't a tile or an
+     * item for a user generated character (U for the built in bug, the rest for characters from level plugins)
+     */
+    private static final boolean[] CHARACTER_LETTER = new boolean[128];
+
+    static {
+        Arrays.fill(TILE_OF_LETTER, (byte) -1);
+        Arrays.fill(ITEM_OF_LETTER, (byte) -1);
+        String items = ITEM_LETTERS;
+        Preconditions.checkState(TileKind.values().length == DOOR_YELLOW + 1, "Tile codes don't match TileKind");
+        for (TileKind kind : TileKind.values()) {
+            TILE_OF_LETTER[kind.getFileLetter()] = kind.getCode();
+            ITEM_OF_LETTER[kind.getFileLetter()] = NO_ITEM;
+        }
+        for (byte code = KEY_RED; code < items.length(); code++) {
+            TILE_OF_LETTER[items.charAt(code)] = FREE;
+            ITEM_OF_LETTER[items.charAt(code)] = code;
+        }
+        for (char letter = 'A'; letter <= 'z'; letter++) {
+            if ((letter <= 'Z' || letter >= 'a') && TILE_OF_LETTER[letter] < 0) {
+                TILE_OF_LETTER[letter] = FREE;
+                ITEM_OF_LETTER[letter] = NO_ITEM;
+                CHARACTER_LETTER[letter] = true;
+            }
+        }
+    }
+
+    /**
+     * The number of columns and rows on the board respectively, and the number of cells
+     */
+    private final int width, height, size;
+
+    /**
+     * The chunks of the board indexed by chunk number (cell index >>> CHUNK_BITS), null while a chunk isn't in memory
+     */
+    private final Chunk[] chunks;
+
+    /**
+     * Where chunks that have never been in memory are read from, or null if the board started with every cell free
+     */
+    private final LevelSource source;
+
+    /**
+     * The cell chip starts in according to the source, or -1
+     */
+    private int sourceChipCell = -1;
+
+    /**
+     * The cells the other characters start in according to the source in row-major order, and their letters.
+     * A chunk read from the source gives the character in the i-th of these cells slot FIRST_OTHER_CHARACTER + i.
+     */
+    private int[] sourceCharacterCells = new int[0];
+    private byte[] sourceCharacterLetters = new byte[0];
+
+    /**
+     * The number of treasure in the source and the Zobrist hash of its cells, found while reading the whole source
+     * once so that a new board doesn't have to bring every chunk into memory to count or hash them
+     */
+    private int sourceTreasure;
+    private long sourceCellHash;
+
+    /**
+     * The numbers of the chunks in memory. The first residentCount entries are used
+     */
+    private final int[] residents;
+
+    /**
+     * The number of chunks in memory, the most chunks that may be in memory and the position in residents the next
+     * eviction looks at first
+     */
+    private int residentCount = 0, maxResident = Integer.MAX_VALUE, clockHand = 0;
+
+    /**
+     * File changed chunks are written to when they are evicted, created the first time it is needed
+     */
+    private RandomAccessFile spill;
+
+    /**
+     * The chunks whose latest contents are in the spill file
+     */
+    private final BitSet spilled = new BitSet();
+
+    /**
+     * Buffers reused to read letters from the source and to read and write the spill file
+     */
+    private byte[] letterBuffer, spillBuffer;
+
+    /**
+     * Creates an empty board where every cell is a FreeTile with no item or character
+     * @param width number of columns
+     * @param height number of rows
+     */
+    public PackedBoard(int width, int height) {
+        this(width, height, null);
+    }
+
+    /**
+     * Creates a board whose cells are read from a level source a chunk at a time when they are first used. The
+     * source is read once here to check it and find the characters. By default the chunks may use a quarter of the
+     * maximum heap, see setMemoryBudget.
+     * @param source the level to read
+     */
+    public PackedBoard(LevelSource source) {
+        this(Preconditions.checkNotNull(source).getWidth(), source.getHeight(), source);
+        findSourceCharacters(source);
+        setMemoryBudget(DEFAULT_SOURCE_BUDGET);
+    }
+
+    /**
+     * Reads every cell of a level source into a new board that doesn't keep the source, so the source can be closed
+     * as soon as this returns. The characters, treasure and cell hash of the source are found the same way as for a
+     * board that reads its chunks later.
+     * @param source the level to read
+     * @return a board holding every chunk of the level
+     */
+    public static PackedBoard readAll(LevelSource source) {
+        PackedBoard board = new PackedBoard(Preconditions.checkNotNull(source).getWidth(), source.getHeight(), null);
+        board.findSourceCharacters(source);
+        try {
+            for (int c = 0; c < board.chunks.length; c++) {
+                int first = c << CHUNK_BITS;
+                int cells = Math.min(CHUNK_SIZE, board.size - first);
+                byte[] tiles = new byte[CHUNK_SIZE], items = new byte[CHUNK_SIZE];
+                short[] slots = new short[CHUNK_SIZE];
+                board.readSource(source, first, cells, tiles, items, slots);
+                Chunk chunk = new Chunk(tiles, items, slots, cells);
+                // there is no source to read it from again, so it has to be spilled rather than dropped
+                chunk.dirty = true;
+                board.residents[board.residentCount++] = c;
+                board.chunks[c] = chunk;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Couldn't read level", e);
+        }
+        return board;
+    }
+
+    /**
+     * @param width number of columns
+     * @param height number of rows
+     * @param source where chunks are read from, or null
+     */
+    private PackedBoard(int width, int height, LevelSource source) {
+        Preconditions.checkArgument(width > 0 && height > 0);
+        Preconditions.checkArgument((long) width * height <= Integer.MAX_VALUE, "Board is too big");
+        this.width = width;
+        this.height = height;
+        this.size = width * height;
+        this.source = source;
+        this.chunks = new Chunk[(size + CHUNK_MASK) >>> CHUNK_BITS];
+        this.residents = new int[chunks.length];
+    }
+
+    /**
+     * @return a copy of this board that can be changed without affecting this one. It reads from the same source and
+     * has the same memory budget
+     */
+    public PackedBoard copy() {
+        PackedBoard copy = new PackedBoard(width, height, source);
+        copy.sourceChipCell = sourceChipCell;
+        copy.sourceCharacterCells = sourceCharacterCells;
+        copy.sourceCharacterLetters = sourceCharacterLetters;
+        copy.maxResident = maxResident;
+        synchronized (this) {
+            for (int c = 0; c < chunks.length; c++) {
+                Chunk chunk = chunks[c] == null && spilled.get(c) ? load(c) : chunks[c];
+                if (chunk != null) {
+                    // the copy has no spill file, so chunks read from this one's can't be dropped by the copy
+                    copy.chunks[c] = new Chunk(chunk, chunk.dirty || spilled.get(c));
+                    copy.residents[copy.residentCount++] = c;
+                }
+            }
+        }
+        copy.trim();
+        return copy;
+    }
+
+    /**
+     * Limits the memory used by the chunks of this board. Once the limit is reached a chunk that hasn't been used
+     * recently is evicted every time another one is needed. Unchanged chunks are simply dropped and read again from
+     * the source, changed ones are written to a temporary spill file first.
+     * @param bytes the most memory the chunks may use, at least one chunk is always kept
+     */
+    public synchronized void setMemoryBudget(long bytes) {
+        Preconditions.checkArgument(bytes > 0);
+        maxResident = (int) Math.max(1, Math.min(Integer.MAX_VALUE, bytes / CHUNK_BYTES));
+        trim();
+    }
+
+    /**
+     * @return the number of chunks in memory
+     */
+    public synchronized int getResidentChunks() {
+        return residentCount;
+    }
+
+    /**
+     * @return the number of chunks the board is split into
+     */
+    public int getChunkCount() {
+        return chunks.length;
+    }
+
+    /**
+     * @return whether chunks are read from a level source
+     */
+    public boolean hasSource() {
+        return source != null;
+    }
+
+    /**
+     * Makes sure the chunks around a cell are in memory, so a character coming within the radius doesn't have to
+     * wait for them to be read
+     * @param row row of the cell
+     * @param col column of the cell
+     * @param radius how many rows and columns around the cell are loaded
+     */
+    public void prefetch(int row, int col, int radius) {
+        int top = Math.max(0, row - radius), bottom = Math.min(height - 1, row + radius);
+        int left = Math.max(0, col - radius), right = Math.min(width - 1, col + radius);
+        for (int i = top; i <= bottom; i++) {
+            for (int c = index(i, left) >>> CHUNK_BITS; c <= index(i, right) >>> CHUNK_BITS; c++) {
+                chunk(c << CHUNK_BITS);
+            }
+        }
+    }
+
+    /**
+     * @return the number of columns
+     */
+    public int getWidth() { return width; }
+
+    /**
+     * @return the number of rows
+     */
+    public int getHeight() { return height; }
+
+    /**
+     * @return the total number of cells
+     */
+    public int size() { return size; }
+
+    /**
+     * @param row row of the cell
+     * @param col column of the cell
+     * @return the row-major index of the cell
+     */
+    public int index(int row, int col) {
+        return row * width + col;
+    }
+
+    /**
+     * @param index row-major index of a cell
+     * @return the row of the cell
+     */
+    public int rowOf(int index) { return index / width; }
+
+    /**
+     * @param index row-major index of a cell
+     * @return the column of the cell
+     */
+    public int colOf(int index) { return index % width; }
+
+    /**
+     * @param index row-major index of a cell
+     * @return the tile code of the cell
+     */
+    public byte getTile(int index) { return chunk(index).tiles[index & CHUNK_MASK]; }
+
+    /**
+     * @param index row-major index of a cell
+     * @param code the new tile code of the cell
+     */
+    public void setTile(int index, byte code) {
+        Preconditions.checkArgument(code >= FREE && code <= DOOR_YELLOW, "Invalid tile code: %s", code);
+        chunk(index).setTile(index & CHUNK_MASK, code);
+    }
+
+    /**
+     * @param index row-major index of a cell
+     * @return the item code of the cell
+     */
+    public byte getItem(int index) { return chunk(index).items[index & CHUNK_MASK]; }
+
+    /**
+     * @param index row-major index of a cell
+     * @param code the new item code of the cell
+     */
+    public void setItem(int index, byte code) {
+        Preconditions.checkArgument(code >= NO_ITEM && code <= EXIT_LOCK, "Invalid item code: %s", code);
+        chunk(index).setItem(index & CHUNK_MASK, code);
+    }
+
+    /**
+     * @param index row-major index of a cell
+     * @return the character slot of the cell
+     */
+    public short getCharacter(int index) { return chunk(index).slots[index & CHUNK_MASK]; }
+
+    /**
+     * @param index row-major index of a cell
+     * @param slot the new character slot of the cell
+     */
+    public void setCharacter(int index, short slot) {
+        Chunk chunk = chunk(index);
+        chunk.slots[index & CHUNK_MASK] = slot;
+        chunk.dirty = true;
+    }
+
+    /**
+     * @param layer a tile layer (TILE_LAYERS + tile code) or an item layer (ITEM_LAYERS + item code)
+     * @param word index of a word, word w covering cells w * 64 to w * 64 + 63
+     * @return the word of the layer
+     */
+    long layerWord(int layer, int word) {
+        return chunk(word << 6).layers[layer * LAYER_WORDS + (word & (LAYER_WORDS - 1))];
+    }
+
+    /**
+     * @param index row-major index of a cell
+     * @return whether the cell's tile kind lets characters other than chip in and there is no item on it
+     */
+    boolean isBugEnterable(int index) {
+        Chunk chunk = chunk(index);
+        int i = index & CHUNK_MASK;
+        return TileKind.of(chunk.tiles[i]).isBugEnterable() && chunk.items[i] == NO_ITEM;
+    }
+
+    /**
+     * @return the cell chip starts in according to the level source, or -1 if there is no source or no chip
+     */
+    int getSourceChipCell() {
+        return sourceChipCell;
+    }
+
+    /**
+     * @return the number of characters other than chip in the level source
+     */
+    int getSourceCharacterCount() {
+        return sourceCharacterCells.length;
+    }
+
+    /**
+     * @return the number of treasure in the level source
+     */
+    int getSourceTreasure() {
+        return sourceTreasure;
+    }
+
+    /**
+     * @return the Zobrist hash of the cells of the level source, without the board size or chip's keys
+     */
+    long getSourceCellHash() {
+        return sourceCellHash;
+    }
+
+    /**
+     * @param i index of a character other than chip, in row-major order
+     * @return the cell the character starts in
+     */
+    int getSourceCharacterCell(int i) {
+        return sourceCharacterCells[i];
+    }
+
+    /**
+     * @param i index of a character other than chip, in row-major order
+     * @return the letter of the character in the level source
+     */
+    byte getSourceCharacterLetter(int i) {
+        return sourceCharacterLetters[i];
+    }
+
+    /**
+     * @return the level source chunks are read from, or null
+     */
+    LevelSource getSource() {
+        return source;
+    }
+
+    /**
+     * Finds the chunk holding a cell, reading it if it isn't in memory
+     * @param index row-major index of a cell
+     * @return the chunk holding the cell
+     */
+    private Chunk chunk(int index) {
+        Chunk chunk = chunks[index >>> CHUNK_BITS];
+        if (chunk == null) {
+            return load(index >>> CHUNK_BITS);
+        }
+        if (!chunk.used) {
+            chunk.used = true;
+        }
+        return chunk;
+    }
+
+    /**
+     * Brings a chunk into memory, from the spill file if it was changed before being evicted, otherwise from the
+     * source or as free cells. Chunks are only read while holding the lock, so characters planning their moves in
+     * parallel can share the board. Evicted chunks are never changed again, so a thread still reading one sees
+     * valid cells.
+     * @param c number of the chunk
+     * @return the chunk
+     */
+    private synchronized Chunk load(int c) {
+        Chunk chunk = chunks[c];
+        if (chunk != null) {
+            return chunk;
+        }
+        while (residentCount >= maxResident) {
+            evict();
+        }
+        int first = c << CHUNK_BITS;
+        int cells = Math.min(CHUNK_SIZE, size - first);
+        byte[] tiles = new byte[CHUNK_SIZE], items = new byte[CHUNK_SIZE];
+        short[] slots = new short[CHUNK_SIZE];
+        try {
+            if (spilled.get(c)) {
+                readSpill(c, tiles, items, slots);
+            } else if (source != null) {
+                readSource(source, first, cells, tiles, items, slots);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Couldn't read chunk " + c, e);
+        }
+        chunk = new Chunk(tiles, items, slots, cells);
+        residents[residentCount++] = c;
+        chunks[c] = chunk;
+        return chunk;
+    }
+
+    /**
+     * Evicts chunks until no more than the allowed number are in memory
+     */
+    private synchronized void trim() {
+        while (residentCount > maxResident) {
+            evict();
+        }
+    }
+
+    /**
+     * Evicts one chunk that hasn't been used since the clock hand last passed it
+     */
+    private void evict() {
+        while (true) {
+            if (clockHand >= residentCount) {
+                clockHand = 0;
+            }
+            int c = residents[clockHand];
+            Chunk chunk = chunks[c];
+            if (chunk.used) {
+                chunk.used = false;
+                clockHand++;
+                continue;
+            }
+            if (chunk.dirty) {
+                writeSpill(c, chunk);
+            }
+            chunks[c] = null;
+            residents[clockHand] = residents[--residentCount];
+            return;
+        }
+    }
+
+    /**
+     * Decodes the letters of a chunk read from the source
+     * @param source the source to read
+     * @param first index of the first cell of the chunk
+     * @param cells the number of cells in the chunk
+     * @param tiles where the tile codes are put
+     * @param items where the item codes are put
+     * @param slots where the character slots are put
+     * @throws IOException if the source can't be read
+     */
+    private void readSource(LevelSource source, int first, int cells, byte[] tiles, byte[] items, short[] slots)
+            throws IOException {
+        if (letterBuffer == null) {
+            letterBuffer = new byte[CHUNK_SIZE];
+        }
+        source.read(first, letterBuffer, cells);
+        for (int i = 0; i < cells; i++) {
+            int letter = letterBuffer[i];
+            Preconditions.checkState(tileCodeOfLetter(letter) >= 0, "Level changed while it was played");
+            tiles[i] = TILE_OF_LETTER[letter];
+            items[i] = ITEM_OF_LETTER[letter];
+            if (letter == 'H') {
+                slots[i] = CHIP;
+            } else if (isCharacterLetter(letter)) {
+                int id = Arrays.binarySearch(sourceCharacterCells, first + i);
+                Preconditions.checkState(id >= 0, "Level changed while it was played");
+                slots[i] = (short) (FIRST_OTHER_CHARACTER + id);
+            }
+        }
+    }
+
+    /**
+     * Reads the whole source once, checking every letter and finding where the characters start
+     * @param source the source to read
+     */
+    private void findSourceCharacters(LevelSource source) {
+        byte[] letters = new byte[CHUNK_SIZE];
+        int[] cells = new int[16];
+        byte[] characterLetters = new byte[16];
+        int count = 0;
+        try {
+            for (int first = 0; first < size; first += CHUNK_SIZE) {
+                int length = Math.min(CHUNK_SIZE, size - first);
+                source.read(first, letters, length);
+                for (int i = 0; i < length; i++) {
+                    int letter = letters[i];
+                    Preconditions.checkArgument(tileCodeOfLetter(letter) >= 0, "Invalid letter in level: %s",
+                            (char) letter);
+                    if (TILE_OF_LETTER[letter] != FREE || ITEM_OF_LETTER[letter] != NO_ITEM) {
+                        sourceCellHash ^= ZobristKeys.tile(first + i, TILE_OF_LETTER[letter])
+                                ^ ZobristKeys.item(first + i, ITEM_OF_LETTER[letter]);
+                        if (ITEM_OF_LETTER[letter] == TREASURE) {
+                            sourceTreasure++;
+                        }
+                    }
+                    if (letter == 'H') {
+                        Preconditions.checkArgument(sourceChipCell < 0, "Level has more than one chip");
+                        sourceChipCell = first + i;
+                        sourceCellHash ^= ZobristKeys.character(first + i, CHIP);
+                    } else if (isCharacterLetter(letter)) {
+                        if (count == cells.length) {
+                            cells = Arrays.copyOf(cells, count * 2);
+                            characterLetters = Arrays.copyOf(characterLetters, count * 2);
+                        }
+                        sourceCellHash ^= ZobristKeys.character(first + i,
+                                (short) (FIRST_OTHER_CHARACTER + count));
+                        cells[count] = first + i;
+                        characterLetters[count++] = (byte) letter;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Couldn't read level", e);
+        }
+        sourceCharacterCells = Arrays.copyOf(cells, count);
+        sourceCharacterLetters = Arrays.copyOf(characterLetters, count);
+    }
+
+    /**
+     * Writes a changed chunk to the spill file
+     * @param c number of the chunk
+     * @param chunk the chunk
+     */
+    private void writeSpill(int c, Chunk chunk) {
+        try {
+            if (spill == null) {
+                File file = File.createTempFile("chunks", ".spill");
+                file.deleteOnExit();
+                spill = new RandomAccessFile(file, "rw");
+                spillBuffer = new byte[CHUNK_SIZE * 4];
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(spillBuffer);
+            buffer.put(chunk.tiles).put(chunk.items).asShortBuffer().put(chunk.slots);
+            spill.seek((long) c * spillBuffer.length);
+            spill.write(spillBuffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Couldn't write chunk " + c, e);
+        }
+        spilled.set(c);
+    }
+
+    /**
+     * Reads a chunk back from the spill file
+     * @param c number of the chunk
+     * @param tiles where the tile codes are put
+     * @param items where the item codes are put
+     * @param slots where the character slots are put
+     * @throws IOException if the spill file can't be read
+     */
+    private void readSpill(int c, byte[] tiles, byte[] items, short[] slots) throws IOException {
+        spill.seek((long) c * spillBuffer.length);
+        spill.readFully(spillBuffer);
+        ByteBuffer.wrap(spillBuffer).get(tiles).get(items).asShortBuffer().get(slots);
+    }
+
+    /**
+     * A chunk of cells with the bitset layers of its tiles and items. The arrays are filled before the chunk is
+     * published, so other threads always see a complete chunk.
+     */
+    private static final class Chunk {
+
+        /**
+         * Tile codes, item codes and character slots of the cells in the chunk
+         */
+        final byte[] tiles, items;
+        final short[] slots;
+
+        /**
+         * LAYERS bitset layers of LAYER_WORDS words each, one per tile code and one per item code
+         */
+        final long[] layers;
+
+        /**
+         * Whether the chunk was changed since it was read, so it has to be spilled before it is evicted
+         */
+        boolean dirty;
+
+        /**
+         * Set whenever the chunk is used and cleared by the eviction clock
+         */
+        boolean used = true;
+
+        /**
+         * Creates a chunk and builds its layers
+         * @param tiles tile codes
+         * @param items item codes
+         * @param slots character slots
+         * @param cells the number of cells of the board in the chunk
+         */
+        Chunk(byte[] tiles, byte[] items, short[] slots, int cells) {
+            this.tiles = tiles;
+            this.items = items;
+            this.slots = slots;
+            this.layers = new long[LAYERS * LAYER_WORDS];
+            for (int i = 0; i < cells; i++) {
+                set(TILE_LAYERS + tiles[i], i);
+                if (items[i] != NO_ITEM) {
+                    set(ITEM_LAYERS + items[i], i);
+                    set(ITEM_LAYERS + NO_ITEM, i);
+                }
+            }
+        }
+
+        /**
+         * Copies a chunk
+         * @param other the chunk to copy
+         * @param dirty whether the copy counts as changed
+         */
+        Chunk(Chunk other, boolean dirty) {
+            this.tiles = other.tiles.clone();
+            this.items = other.items.clone();
+            this.slots = other.slots.clone();
+            this.layers = other.layers.clone();
+            this.dirty = dirty;
+        }
+
+        /**
+         * @param i position of a cell in the chunk
+         * @param code the new tile code of the cell
+         */
+        void setTile(int i, byte code) {
+            clear(TILE_LAYERS + tiles[i], i);
+            set(TILE_LAYERS + code, i);
+            tiles[i] = code;
+            dirty = true;
+        }
+
+        /**
+         * @param i position of a cell in the chunk
+         * @param code the new item code of the cell
+         */
+        void setItem(int i, byte code) {
+            if (items[i] != NO_ITEM) {
+                clear(ITEM_LAYERS + items[i], i);
+                clear(ITEM_LAYERS + NO_ITEM, i);
+            }
+            if (code != NO_ITEM) {
+                set(ITEM_LAYERS + code, i);
+                set(ITEM_LAYERS + NO_ITEM, i);
+            }
+            items[i] = code;
+            dirty = true;
+        }
+
+        /**
+         * @param layer a layer
+         * @param i position of the cell whose bit is set
+         */
+        private void set(int layer, int i) {
+            layers[layer * LAYER_WORDS + (i >>> 6)] |= 1L << i;
+        }
+
+        /**
+         * @param layer a layer
+         * @param i position of the cell whose bit is cleared
+         */
+        private void clear(int layer, int i) {
+            layers[layer * LAYER_WORDS + (i >>> 6)] &= ~(1L << i);
+        }
+    }
+
+    /**
+     * @param code a tile code
+     * @return whether the code is one of the four door codes
+     */
+    public static boolean isDoor(byte code) {
+        return code >= DOOR_RED && code <= DOOR_YELLOW;
+    }
+
+    /**
+     * @param code an item code
+     * @return whether the code is one of the four key codes
+     */
+    public static boolean isKey(byte code) {
+        return code >= KEY_RED && code <= KEY_YELLOW;
+    }
+
+    /**
+     * @param colour colour of a key or door
+     * @return the colour index (red, green, blue, yellow)
+     */
+    public static int colourIndex(Color colour) {
+        for (int i = 0; i < Colours.COLOURS.length; i++) {
+            if (Colours.COLOURS[i] == colour) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Invalid key colour: " + colour);
+    }
+
+    /**
+     * @param colourIndex index returned by colourIndex
+     * @return the colour with the given index
+     */
+    public static Color colourOf(int colourIndex) {
+        return Colours.COLOURS[colourIndex];
+    }
+
+    /**
+     * Holds the colours used by keys and doors, indexed by colour index. The board itself only stores colour
+     * indices, so the colours (and the AWT classes behind them) are only loaded once tiles or items are asked for.
+     */
+    private static final class Colours {
+        static final Color[] COLOURS = {Color.red, Color.green, Color.blue, Color.yellow};
+    }
+
+    /**
+     * @param letter a letter of the level file format
+     * @return the tile code the letter stands for, FREE for items and characters, or -1 if it isn't a valid letter
+     */
+    public static byte tileCodeOfLetter(int letter) {
+        return letter >= 0 && letter < TILE_OF_LETTER.length ? TILE_OF_LETTER[letter] : -1;
+    }
+
+    /**
+     * @param letter a letter of the level file format
+     * @return the item code the letter stands for, NO_ITEM for tiles and characters, or -1 if it isn't a valid letter
+     */
+    public static byte itemCodeOfLetter(int letter) {
+        return letter >= 0 && letter < ITEM_OF_LETTER.length ? ITEM_OF_LETTER[letter] : -1;
+    }
+
+    /**
+     * @param tile a tile code
+     * @param item an item code, which must be NO_ITEM unless the tile is FREE
+     * @return the letter of the level file format for a cell without a character
+     */
+    public static char fileLetterOf(byte tile, byte item) {
+        Preconditions.checkElementIndex(tile, DOOR_YELLOW + 1);
+        Preconditions.checkElementIndex(item, EXIT_LOCK + 1);
+        Preconditions.checkArgument(item == NO_ITEM || tile == FREE, "Only free tiles hold items");
+        return item == NO_ITEM ? TileKind.of(tile).getFileLetter() : ITEM_LETTERS.charAt(item);
+    }
+
+    /**
+     * @param letter a letter of the level file format
+     * @return whether the letter stands for a character, chip included
+     */
+    public static boolean isCharacterLetter(int letter) {
+        return letter >= 0 && letter < CHARACTER_LETTER.length && CHARACTER_LETTER[letter];
+    }
+
+    /**
+     * Encodes a tile array produced by the persistence module.
+     * Characters found on the tiles are assigned slots in row-major order, chip always getting the CHIP slot
+     * @param tiles the tile array to encode
+     * @return the packed equivalent of the tile array
+     */
+    public static PackedBoard fromTiles(Tile[][] tiles) {
+        Preconditions.checkNotNull(tiles);
+        Preconditions.checkArgument(tiles.length > 0 && tiles[0].length > 0);
+        PackedBoard packed = new PackedBoard(tiles[0].length, tiles.length);
+        short nextSlot = FIRST_OTHER_CHARACTER;
+        for (int i = 0; i < packed.height; i++) {
+            for (int j = 0; j < packed.width; j++) {
+                Tile tile = Preconditions.checkNotNull(tiles[i][j]);
+                int index = packed.index(i, j);
+                packed.setTile(index, tileCode(tile));
+                if (tile instanceof FreeTile) {
+                    packed.setItem(index, itemCode(((FreeTile) tile).getItem()));
+                }
+                Character character = tile.getCharacter();
+                if (character instanceof Chip) {
+                    packed.setCharacter(index, CHIP);
+                } else if (character instanceof UserGeneratedCharacter) {
+                    packed.setCharacter(index, nextSlot++);
+                }
+            }
+        }
+        return packed;
+    }
+
+    /**
+     * @param tile a tile object
+     * @return the tile code of the tile
+     */
+    public static byte tileCode(Tile tile) {
+        TileKind kind = tile.getKind();
+        Preconditions.checkArgument(kind != null, "Unknown tile type: %s", tile);
+        return kind.getCode();
+    }
+
+    /**
+     * @param item an item object, or null
+     * @return the item code of the item
+     */
+    public static byte itemCode(Item item) {
+        if (item == null) {
+            return NO_ITEM;
+        } else if (item instanceof Key) {
+            return (byte) (KEY_RED + colourIndex(((Key) item).getColour()));
+        } else if (item instanceof Treasure) {
+            return TREASURE;
+        } else if (item instanceof ExitLock) {
+            return EXIT_LOCK;
+        }
+        throw new IllegalArgumentException("Unknown item type: " + item);
+    }
+
+    /**
+     * Makes a tile for a tile code. Characters are not set on the tile.
+     * @param code tile code
+     * @return the shared tile of the kind for walls and doors, which no character can stand on, otherwise a new tile
+     * of the corresponding type
+     */
+    public static Tile newTile(byte code) {
+        Preconditions.checkArgument(code >= FREE && code <= DOOR_YELLOW, "Unknown tile code: %s", code);
+        return TileKind.of(code).newTile();
+    }
+
+    /**
+     * Builds a new item object for an item code
+     * @param code item code
+     * @return an item of the corresponding type or null for NO_ITEM
+     */
+    public static Item newItem(byte code) {
+        if (code == NO_ITEM) {
+            return null;
+        } else if (isKey(code)) {
+            return new Key(colourOf(code - KEY_RED));
+        } else if (code == TREASURE) {
+            return new Treasure();
+        } else if (code == EXIT_LOCK) {
+            return new ExitLock();
+        }
+        throw new IllegalArgumentException("Unknown item code: " + code);
+    }
+
+    /**
+     * Returns the letter used by the boards toString method for a cell, ignoring any character standing on it
+     * @param index row-major index of a cell
+     * @return letter representing the tile or the item on it
+     */
+    public char letter(int index) {
+        byte tile = getTile(index);
+        if (tile == FREE) {
+            switch (getItem(index)) {
+                case KEY_RED: return 'r';
+                case KEY_GREEN: return 'g';
+                case KEY_BLUE: return 'b';
+                case KEY_YELLOW: return 'y';
+                case TREASURE: return 'C';
+                case EXIT_LOCK: return 'X';
+                default: return ' ';
+            }
+        }
+        return TileKind.of(tile).getLetter();
+    }
+}
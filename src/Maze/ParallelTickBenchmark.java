@@ -0,0 +1,103 @@
+package Maze;
+
+import Maze.Tiles.FreeTile;
+import Maze.Tiles.Tile;
+import Maze.Tiles.WallTile;
+import Persistance.UserBug;
+import com.google.common.base.Preconditions;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Measures how the parallel tick scales with the number of threads on a generated level crowded with bugs.
+ * Every run uses the same seed and chip moves and its final board is compared with the sequential run, so the
+ * benchmark also checks that the parallel tick gives the same game.
+ * Usage: ParallelTickBenchmark [width] [height] [bugs] [ticks]
+ * @author Oscar Sykes 300486149
+ */
+public class ParallelTickBenchmark {
+
+    /**
+     * The seed used by every run
+     */
+    private static final long SEED = 20200101L;
+
+    /**
+     * @param args optional width, height, number of bugs and number of ticks
+     */
+    public static void main(String[] args) {
+        int width = args.length > 0 ? Integer.parseInt(args[0]) : 400;
+        int height = args.length > 1 ? Integer.parseInt(args[1]) : 400;
+        int bugs = args.length > 2 ? Integer.parseInt(args[2]) : 20000;
+        int ticks = args.length > 3 ? Integer.parseInt(args[3]) : 200;
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.printf("%dx%d board, %d bugs, %d ticks, %d cores%n", width, height, bugs, ticks, cores);
+
+        Board sequential = new Board(crowdedLevel(width, height, bugs, SEED), SEED);
+        double baseline = run(sequential, ticks);
+        System.out.printf("sequential: %.3f ms/tick%n", baseline);
+        for (int threads = 1; threads <= cores; threads *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                Board board = new Board(crowdedLevel(width, height, bugs, SEED), SEED);
+                board.setTickPool(pool);
+                double time = run(board, ticks);
+                boolean same = board.toString().equals(sequential.toString());
+                System.out.printf("%2d threads: %.3f ms/tick, speedup %.2fx, same result: %b%n",
+                        threads, time, baseline / time, same);
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Plays a number of ticks, chip walking back and forth in its pocket
+     * @param board the board to play on
+     * @param ticks the number of ticks
+     * @return the average time per tick in milliseconds
+     */
+    static double run(Board board, int ticks) {
+        long start = System.nanoTime();
+        for (int i = 0; i < ticks; i++) {
+            boolean moved = board.moveChip(i % 2 == 0 ? Direction.RIGHT : Direction.LEFT);
+            assert moved;
+        }
+        return (System.nanoTime() - start) / 1e6 / ticks;
+    }
+
+    /**
+     * Generates a level surrounded by walls with bugs scattered over it. Chip starts in the top left corner in a two
+     * tile pocket the bugs can't reach, so the level can be ticked forever by moving chip right then left.
+     * @param width number of columns, at least 5
+     * @param height number of rows, at least 5
+     * @param bugs number of bugs to place
+     * @param seed seed used to place the bugs
+     * @return the tiles of the level
+     */
+    public static Tile[][] crowdedLevel(int width, int height, int bugs, long seed) {
+        Preconditions.checkArgument(width >= 5 && height >= 5);
+        Tile[][] tiles = new Tile[height][width];
+        for (int i = 0; i < height; i++) {
+            for (int j = 0; j < width; j++) {
+                boolean border = i == 0 || j == 0 || i == height - 1 || j == width - 1;
+                boolean pocket = (i == 1 && j == 3) || (i == 2 && j <= 3);
+                tiles[i][j] = border || pocket ? WallTile.SHARED : new FreeTile();
+            }
+        }
+        tiles[1][1].setCharacter(new Chip(1, 1));
+        int free = (width - 2) * (height - 4); // rows below the pocket
+        Preconditions.checkArgument(bugs <= free, "Too many bugs for the board");
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int placed = 0; placed < bugs; ) {
+            int i = 3 + random.nextInt(height - 4);
+            int j = 1 + random.nextInt(width - 2);
+            if (tiles[i][j].getCharacter() == null) {
+                tiles[i][j].setCharacter(new UserBug(i, j));
+                placed++;
+            }
+        }
+        return tiles;
+    }
+}
@@ -0,0 +1,212 @@
+package Maze;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Plays games without the GUI, timer thread or renderer, so levels and bots can be tested at scale.
+ * Each level is parsed once and kept as an unplayed template board. Every game starts from a copy of the template, so
+ * creating a board is a few array copies instead of reading the level file. Batches of games are spread over a fork
+ * join pool and every game is played on its own board, so a batch gives the same results however many threads run it.
+ * The template stores colours as colour indices and makes no tile or item objects, so playing games here doesn't load
+ * any AWT classes. Only the tile view (getTile and getTileArray) makes the colours, through the Key and LockedDoor
+ * objects it builds.
+ * @author Oscar Sykes 300486149
+ */
+public class SimulationEngine {
+
+    /**
+     * Chooses chip's moves from the current state of the board, for example a bot being tested
+     */
+    public interface Agent {
+        /**
+         * @param board the board being played
+         * @return the direction chip should move in, or null to stop playing. NO_MOVE isn't allowed
+         */
+        Direction nextMove(Board board);
+    }
+
+    /**
+     * A game to play: a level, a seed and either a fixed list of inputs or an agent choosing the inputs
+     */
+    public static final class Game {
+
+        /**
+         * The level and seed of the game
+         */
+        private final int level;
+        private final long seed;
+
+        /**
+         * The inputs played in order, or null if an agent chooses them
+         */
+        private final Direction[] inputs;
+
+        /**
+         * The agent choosing the inputs, or null if the inputs are fixed
+         */
+        private final Agent agent;
+
+        /**
+         * The most inputs an agent can play
+         */
+        private final int maxMoves;
+
+        /**
+         * @param level the level of the game
+         * @param seed the seed of the game
+         * @param inputs the fixed inputs, or null
+         * @param agent the agent, or null
+         * @param maxMoves the most inputs an agent can play
+         */
+        private Game(int level, long seed, Direction[] inputs, Agent agent, int maxMoves) {
+            this.level = level;
+            this.seed = seed;
+            this.inputs = inputs;
+            this.agent = agent;
+            this.maxMoves = maxMoves;
+        }
+
+        /**
+         * @param level the level of the game
+         * @param seed the seed of the game
+         * @param inputs the directions chip is moved in, in order. Inputs after the game ends are ignored
+         * @return a game that plays a fixed list of inputs
+         */
+        public static Game of(int level, long seed, List<Direction> inputs) {
+            Direction[] copy = inputs.toArray(new Direction[0]);
+            for (Direction dir : copy) {
+                Preconditions.checkArgument(dir != null && dir != Direction.NO_MOVE, "Invalid input " + dir);
+            }
+            return new Game(level, seed, copy, null, copy.length);
+        }
+
+        /**
+         * @param level the level of the game
+         * @param seed the seed of the game
+         * @param agent the agent choosing chip's moves. Agents shared between games must be thread safe
+         * @param maxMoves the most inputs the agent can play
+         * @return a game played by an agent
+         */
+        public static Game of(int level, long seed, Agent agent, int maxMoves) {
+            Preconditions.checkNotNull(agent);
+            Preconditions.checkArgument(maxMoves >= 0);
+            return new Game(level, seed, null, agent, maxMoves);
+        }
+    }
+
+    /**
+     * Batches are split until each fork join task plays at most this many games
+     */
+    private static final int GAMES_PER_TASK = 16;
+
+    /**
+     * Pool the games of a batch are played on
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates an engine that plays batches on the common pool, using every core
+     */
+    public SimulationEngine() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param pool pool the games of a batch are played on
+     */
+    public SimulationEngine(ForkJoinPool pool) {
+        this.pool = Preconditions.checkNotNull(pool);
+    }
+
+    /**
+     * Creates a board for a level, copied from the level's parsed template
+     * @param level number of the level
+     * @param seed seed of the random source used by the characters on the board
+     * @return a new board in the level's starting state
+     */
+    public Board newBoard(int level, long seed) {
+        return new Board(level, seed);
+    }
+
+    /**
+     * Plays one game on the calling thread
+     * @param game the game to play
+     * @return the outcome of the game
+     */
+    public SimulationResult play(Game game) {
+        Preconditions.checkNotNull(game);
+        Board board = newBoard(game.level, game.seed);
+        int rejected = 0;
+        for (int i = 0; i < game.maxMoves && board.isChipAlive() && !board.isLevelFinished(); i++) {
+            Direction dir = game.inputs != null ? game.inputs[i] : game.agent.nextMove(board);
+            if (dir == null) {
+                break; // the agent has stopped
+            }
+            if (!board.moveChip(dir)) {
+                rejected++;
+            }
+        }
+        return new SimulationResult(game.level, board, rejected);
+    }
+
+    /**
+     * Plays a batch of games in parallel
+     * @param games the games to play
+     * @return the outcome of every game, in the same order as the games
+     */
+    public List<SimulationResult> playAll(List<Game> games) {
+        Game[] batch = games.toArray(new Game[0]);
+        SimulationResult[] results = new SimulationResult[batch.length];
+        pool.invoke(new PlayGames(batch, results, 0, batch.length));
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Plays a range of the games in a batch, splitting the range in half until it is small
+     */
+    private class PlayGames extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The games of the batch and where their outcomes go
+         */
+        private final Game[] games;
+        private final SimulationResult[] results;
+
+        /**
+         * The first game played and one past the last game played
+         */
+        private final int from, to;
+
+        /**
+         * @param games the games of the batch
+         * @param results where the outcomes go
+         * @param from the first game played
+         * @param to one past the last game played
+         */
+        PlayGames(Game[] games, SimulationResult[] results, int from, int to) {
+            this.games = games;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= GAMES_PER_TASK) {
+                for (int i = from; i < to; i++) {
+                    results[i] = play(games[i]);
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new PlayGames(games, results, from, middle), new PlayGames(games, results, middle, to));
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package Maze;
+
+/**
+ * The outcome of one game played by the SimulationEngine.
+ * @author Oscar Sykes 300486149
+ */
+public final class SimulationResult {
+
+    /**
+     * The level and seed the game was played with
+     */
+    private final int level;
+    private final long seed;
+
+    /**
+     * Whether chip reached the exit and whether chip was still alive at the end
+     */
+    private final boolean levelFinished, chipAlive;
+
+    /**
+     * The amount of treasure collected and the amount left on the board at the end
+     */
+    private final int treasureCollected, treasureRemaining;
+
+    /**
+     * The number of chip moves that were made and the number of inputs that were rejected as invalid moves
+     */
+    private final int moves, rejectedMoves;
+
+    /**
+     * Records the state of a board at the end of a game
+     * @param level the level the game was played on
+     * @param board the board at the end of the game
+     * @param rejectedMoves the number of inputs that were rejected as invalid moves
+     */
+    SimulationResult(int level, Board board, int rejectedMoves) {
+        this.level = level;
+        this.seed = board.getSeed();
+        this.levelFinished = board.isLevelFinished();
+        this.chipAlive = board.isChipAlive();
+        this.treasureCollected = board.getTreasureCollectedAmount();
+        this.treasureRemaining = board.getTreasureRemainingAmount();
+        this.moves = board.getChipMoves().size();
+        this.rejectedMoves = rejectedMoves;
+    }
+
+    /**
+     * @return the level the game was played on
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * @return the seed the game was played with
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return whether chip reached the exit
+     */
+    public boolean isLevelFinished() {
+        return levelFinished;
+    }
+
+    /**
+     * @return whether chip was still alive at the end of the game
+     */
+    public boolean isChipAlive() {
+        return chipAlive;
+    }
+
+    /**
+     * @return the amount of treasure collected
+     */
+    public int getTreasureCollected() {
+        return treasureCollected;
+    }
+
+    /**
+     * @return the amount of treasure left on the board
+     */
+    public int getTreasureRemaining() {
+        return treasureRemaining;
+    }
+
+    /**
+     * @return the number of chip moves that were made
+     */
+    public int getMoves() {
+        return moves;
+    }
+
+    /**
+     * @return the number of inputs that were rejected because chip couldn't move that way
+     */
+    public int getRejectedMoves() {
+        return rejectedMoves;
+    }
+
+    /**
+     * @return a one line summary, for example "level 1 seed 5: finished, 3 treasure, 40 moves (2 rejected)"
+     */
+    public String toString() {
+        String outcome = levelFinished ? "finished" : chipAlive ? "unfinished" : "dead";
+        return "level " + level + " seed " + seed + ": " + outcome + ", " + treasureCollected + " treasure, "
+                + moves + " moves (" + rejectedMoves + " rejected)";
+    }
+}
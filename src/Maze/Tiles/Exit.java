@@ -8,9 +8,10 @@ package Maze.Tiles;
 public class Exit extends Tile {
 
     /**
-     * @return the name of the Exit image
+     * @return the kind of the tile
      */
-    public String toString() {
-        return "ExitTile";
+    @Override
+    public TileKind getKind() {
+        return TileKind.EXIT;
     }
 }
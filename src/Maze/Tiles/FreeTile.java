@@ -28,9 +28,10 @@ public class FreeTile extends Tile {
     }
 
     /**
-     * @return the name of the FreeTile image
+     * @return the kind of the tile
      */
-    public String toString() {
-        return "FreeTile";
+    @Override
+    public TileKind getKind() {
+        return TileKind.FREE;
     }
 }
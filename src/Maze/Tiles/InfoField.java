@@ -8,7 +8,10 @@ package Maze.Tiles;
 public class InfoField extends Tile {
 
     /**
-     * @return the name of the InfoField image
+     * @return the kind of the tile
      */
-    public String toString(){ return "InfoField"; }
+    @Override
+    public TileKind getKind() {
+        return TileKind.INFO;
+    }
 }
@@ -15,15 +15,55 @@ public class LockedDoor extends Tile {
      */
     private final Color colour;
 
+    /**
+     * the kind of door, which depends on the colour
+     */
+    private final TileKind kind;
+
     /**
      * checks whether the provided colour is valid and then constructs the LockedDoor object
      *
      * @param colour the colour of the key needed to unlock the door
      */
     public LockedDoor(Color colour) {
+        this(colour, false);
+    }
+
+    /**
+     * @param colour the colour of the key needed to unlock the door
+     * @param shared whether this is a shared instance
+     */
+    private LockedDoor(Color colour, boolean shared) {
+        super(shared);
+        this.colour = colour;
+        this.kind = TileKind.door(colourIndex(colour));
+    }
+
+    /**
+     * @param colour colour of a door
+     * @return the colour index of the colour (red, green, blue, yellow)
+     */
+    private static int colourIndex(Color colour) {
         Preconditions.checkArgument(colour == Color.red || colour == Color.blue || colour == Color.green
                 || colour == Color.yellow);
-        this.colour = colour;
+        return colour == Color.red ? 0 : colour == Color.green ? 1 : colour == Color.blue ? 2 : 3;
+    }
+
+    /**
+     * @param colour the colour of the key needed to unlock the door
+     * @return the door of that colour shared by every cell holding one
+     */
+    public static LockedDoor shared(Color colour) {
+        return Shared.DOORS[colourIndex(colour)];
+    }
+
+    /**
+     * @param colourIndex the colour index of the key needed to unlock the door (red, green, blue, yellow)
+     * @return the door of that colour shared by every cell holding one
+     */
+    public static LockedDoor shared(int colourIndex) {
+        Preconditions.checkElementIndex(colourIndex, Shared.DOORS.length);
+        return Shared.DOORS[colourIndex];
     }
 
     /**
@@ -34,22 +74,19 @@ public class LockedDoor extends Tile {
     }
 
     /**
-     * @return the name of the LockedDoor images with a given colour
-     */
-    public String toString() {
-        if (colour == Color.red) {
-            return "LockedDoorRed";
-        }
-        if (colour == Color.blue) {
-            return "LockedDoorBlue";
-        }
-        if (colour == Color.green) {
-            return "LockedDoorGreen";
-        }
-        if (colour == Color.yellow) {
-            return "LockedDoorYellow";
-        }
-        assert false; // this should be unreachable
-        return null;
+     * @return the kind of door, which depends on the colour
+     */
+    @Override
+    public TileKind getKind() {
+        return kind;
+    }
+
+    /**
+     * Holds the doors shared by every cell holding a door of their colour, in the order red, green, blue, yellow.
+     * They are only made when a door tile is first asked for.
+     */
+    private static final class Shared {
+        static final LockedDoor[] DOORS = {new LockedDoor(Color.red, true), new LockedDoor(Color.green, true),
+                new LockedDoor(Color.blue, true), new LockedDoor(Color.yellow, true)};
     }
 }
@@ -6,9 +6,10 @@ package Maze.Tiles;
  */
 public class SingleUseTile extends Tile{
     /**
-     * @return the name of the image that renderer uses to draw
+     * @return the kind of the tile
      */
-    public String toString(){
-        return "SingleUseTile";
+    @Override
+    public TileKind getKind() {
+        return TileKind.SINGLE_USE;
     }
 }
@@ -2,12 +2,13 @@ package Maze.Tiles;
 
 import Maze.Character;
 import Maze.Chip;
-import Maze.Items.Item;
-
-import java.awt.*;
+import com.google.common.base.Preconditions;
 
 /**
  * A superclass that the tiles in the game implement
+ * Which character is in which cell is kept by the board. The character of a tile only mirrors it for code that works
+ * with tile objects, so walls and doors, which no character can stand on, have shared instances used by every cell
+ * holding one. Changing a cell to a wall only swaps a reference.
  *
  * @author Oscar Sykes 300486149
  */
@@ -17,6 +18,32 @@ public class Tile {
      */
     Character character;
 
+    /**
+     * Whether this is a shared instance, which can't hold a character
+     */
+    private final boolean shared;
+
+    /**
+     * Creates a tile of its own
+     */
+    public Tile() {
+        this(false);
+    }
+
+    /**
+     * @param shared whether this is a shared instance, which can't hold a character
+     */
+    protected Tile(boolean shared) {
+        this.shared = shared;
+    }
+
+    /**
+     * @return whether this is an instance shared between cells, which can't hold a character
+     */
+    public boolean isShared() {
+        return shared;
+    }
+
     /**
      * @return whether this tile contains the chip character
      */
@@ -35,17 +62,26 @@ public class Tile {
      * @param character the character in the tile. If the tile doesn't contain a character this is null.
      */
     public void setCharacter(Character character) {
+        Preconditions.checkState(!shared || character == null, "A shared tile can't hold a character");
         this.character = character;
     }
 
     /**
      * This method is implemented in Tile subclasses
      *
-     * @return The name of a tile object.
+     * @return the kind of the tile, which describes how it behaves
+     */
+    public TileKind getKind() {
+        return null;
+    }
+
+    /**
+     * @return The name of the tile's image, taken from its kind
      **/
     public String toString() {
-        assert false; // this should never be reached
-        return null;
+        TileKind kind = getKind();
+        assert kind != null; // this should never be reached
+        return kind == null ? null : kind.getSprite();
     }
 
     /**
@@ -59,37 +95,12 @@ public class Tile {
     public String getLetter() {
         if(character != null){
             return character.getLetter();
-        } else if (this instanceof FreeTile) {
-            Item item = ((FreeTile) this).getItem();
-            if (item != null) {
-                return item.getLetter();
-            }
-            return " ";
-        } else if (this instanceof Exit) {
-            return "E";
-        } else if (this instanceof InfoField) {
-            return "I";
-        } else if (this instanceof LockedDoor) {
-            LockedDoor l = (LockedDoor) this;
-            if (l.getColour() == Color.red) {
-                return "R";
-            }
-            if (l.getColour() == Color.green) {
-                return "G";
-            }
-            if (l.getColour() == Color.blue) {
-                return "B";
-            }
-            if (l.getColour() == Color.yellow) {
-                return "Y";
-            }
-        } else if (this instanceof WallTile) {
-            return "W";
-        } else if (this instanceof SingleUseTile){
-            return "S";
+        } else if (this instanceof FreeTile && ((FreeTile) this).getItem() != null) {
+            return ((FreeTile) this).getItem().getLetter();
         }
-        assert false; // this should be unreachable
-        return null;
+        TileKind kind = getKind();
+        assert kind != null; // this should be unreachable
+        return kind == null ? null : String.valueOf(kind.getLetter());
     }
 
 }
@@ -0,0 +1,224 @@
+package Maze.Tiles;
+
+import java.util.function.Supplier;
+
+/**
+ * Registry of the kinds of tile. Each kind's ordinal is the tile code used by the packed board, and the kind holds
+ * everything the game needs to know about its tiles: who may enter them, what they turn into when chip enters or
+ * leaves them, their letters, their sprite and how to make one. Code that used to test a tile's class looks the kind
+ * up instead, so adding a kind of tile only means adding a constant here and a Tile subclass.
+ *
+ * @author Oscar Sykes 300486149
+ */
+public enum TileKind {
+    FREE('F', ' ', "FreeTile", Flags.CHIP | Flags.BUG, -1, null, null, FreeTile::new),
+    WALL('W', 'W', "WallTile", Flags.SHAREABLE, -1, null, null, () -> WallTile.SHARED),
+    EXIT('E', 'E', "ExitTile", Flags.CHIP | Flags.FINISHES_LEVEL, -1, null, null, Exit::new),
+    INFO('I', 'I', "InfoField", Flags.CHIP | Flags.SHOWS_INFO, -1, null, null, InfoField::new),
+    SINGLE_USE('S', 'S', "SingleUseTile", Flags.CHIP, -1, null, "WALL", SingleUseTile::new),
+    DOOR_RED('R', 'R', "LockedDoorRed", Flags.CHIP | Flags.SHAREABLE, 0, "FREE", null,
+            () -> LockedDoor.shared(0)),
+    DOOR_GREEN('G', 'G', "LockedDoorGreen", Flags.CHIP | Flags.SHAREABLE, 1, "FREE", null,
+            () -> LockedDoor.shared(1)),
+    DOOR_BLUE('B', 'B', "LockedDoorBlue", Flags.CHIP | Flags.SHAREABLE, 2, "FREE", null,
+            () -> LockedDoor.shared(2)),
+    DOOR_YELLOW('Y', 'Y', "LockedDoorYellow", Flags.CHIP | Flags.SHAREABLE, 3, "FREE", null,
+            () -> LockedDoor.shared(3));
+
+    /**
+     * Bits of a kind's flags
+     */
+    private static final class Flags {
+        static final int CHIP = 1, BUG = 2, SHAREABLE = 4, FINISHES_LEVEL = 8, SHOWS_INFO = 16;
+    }
+
+    /**
+     * Every kind indexed by tile code
+     */
+    private static final TileKind[] KINDS = values();
+
+    /**
+     * The kind of every level file letter, or null for letters that aren't tiles
+     */
+    private static final TileKind[] BY_FILE_LETTER = new TileKind[128];
+
+    static {
+        for (TileKind kind : KINDS) {
+            BY_FILE_LETTER[kind.fileLetter] = kind;
+            kind.becomesOnEnter = kind.enterName == null ? null : valueOf(kind.enterName);
+            kind.becomesOnLeave = kind.leaveName == null ? null : valueOf(kind.leaveName);
+        }
+    }
+
+    /**
+     * The letter of the kind in level files and in the board's text form
+     */
+    private final char fileLetter, letter;
+
+    /**
+     * The name of the image drawn for the kind
+     */
+    private final String sprite;
+
+    /**
+     * The kind's Flags bits
+     */
+    private final int flags;
+
+    /**
+     * The colour index (red, green, blue, yellow) of the key chip uses up entering the tile, or -1
+     */
+    private final int keyColour;
+
+    /**
+     * Names of the kinds the tile turns into when chip enters and leaves it, resolved once every kind exists
+     */
+    private final String enterName, leaveName;
+
+    /**
+     * The kinds the tile turns into when chip enters and leaves it, or null if it stays the same
+     */
+    private TileKind becomesOnEnter, becomesOnLeave;
+
+    /**
+     * Makes tiles of the kind
+     */
+    private final Supplier<Tile> factory;
+
+    /**
+     * @param fileLetter letter in level files
+     * @param letter letter in the board's text form
+     * @param sprite name of the image drawn for the kind
+     * @param flags Flags bits
+     * @param keyColour colour index of the key used up entering the tile, or -1
+     * @param enterName name of the kind the tile turns into when chip enters it, or null
+     * @param leaveName name of the kind the tile turns into when chip leaves it, or null
+     * @param factory makes tiles of the kind
+     */
+    TileKind(char fileLetter, char letter, String sprite, int flags, int keyColour, String enterName,
+             String leaveName, Supplier<Tile> factory) {
+        this.fileLetter = fileLetter;
+        this.letter = letter;
+        this.sprite = sprite;
+        this.flags = flags;
+        this.keyColour = keyColour;
+        this.enterName = enterName;
+        this.leaveName = leaveName;
+        this.factory = factory;
+    }
+
+    /**
+     * @param code a tile code
+     * @return the kind with that code
+     */
+    public static TileKind of(byte code) {
+        return KINDS[code];
+    }
+
+    /**
+     * @param letter a letter of the level file format
+     * @return the kind of tile the letter stands for, or null if it stands for something on a free tile or nothing
+     */
+    public static TileKind ofFileLetter(char letter) {
+        return letter < BY_FILE_LETTER.length ? BY_FILE_LETTER[letter] : null;
+    }
+
+    /**
+     * @param colourIndex colour index of a door (red, green, blue, yellow)
+     * @return the kind of door of that colour
+     */
+    public static TileKind door(int colourIndex) {
+        return KINDS[DOOR_RED.ordinal() + colourIndex];
+    }
+
+    /**
+     * @return the tile code of the kind
+     */
+    public byte getCode() {
+        return (byte) ordinal();
+    }
+
+    /**
+     * @return the letter of the kind in level files
+     */
+    public char getFileLetter() {
+        return fileLetter;
+    }
+
+    /**
+     * @return the letter of the kind in the board's text form, a space for free tiles
+     */
+    public char getLetter() {
+        return letter;
+    }
+
+    /**
+     * @return the name of the image drawn for the kind
+     */
+    public String getSprite() {
+        return sprite;
+    }
+
+    /**
+     * @return whether chip may enter the tile, holding a key of colour getKeyColour if there is one
+     */
+    public boolean isChipEnterable() {
+        return (flags & Flags.CHIP) != 0;
+    }
+
+    /**
+     * @return whether characters other than chip may enter the tile when there is no item on it
+     */
+    public boolean isBugEnterable() {
+        return (flags & Flags.BUG) != 0;
+    }
+
+    /**
+     * @return whether no character can ever stand on the tile, so every cell holding it can use one shared instance
+     */
+    public boolean isShareable() {
+        return (flags & Flags.SHAREABLE) != 0;
+    }
+
+    /**
+     * @return whether chip entering the tile finishes the level
+     */
+    public boolean finishesLevel() {
+        return (flags & Flags.FINISHES_LEVEL) != 0;
+    }
+
+    /**
+     * @return whether chip entering the tile shows the level's information
+     */
+    public boolean showsInfo() {
+        return (flags & Flags.SHOWS_INFO) != 0;
+    }
+
+    /**
+     * @return the colour index of the key chip needs and uses up to enter the tile, or -1 if he doesn't need one
+     */
+    public int getKeyColour() {
+        return keyColour;
+    }
+
+    /**
+     * @return the kind the tile turns into when chip enters it, or null if it doesn't change
+     */
+    public TileKind becomesOnEnter() {
+        return becomesOnEnter;
+    }
+
+    /**
+     * @return the kind the tile turns into when chip leaves it, or null if it doesn't change
+     */
+    public TileKind becomesOnLeave() {
+        return becomesOnLeave;
+    }
+
+    /**
+     * @return a tile of this kind, the shared instance for shareable kinds and a new tile otherwise
+     */
+    public Tile newTile() {
+        return factory.get();
+    }
+}
@@ -8,9 +8,29 @@ package Maze.Tiles;
 public class WallTile extends Tile {
 
     /**
-     * @return the name of the WallTile image
+     * The wall tile shared by every cell that holds one without a character on it
      */
-    public String toString() {
-        return "WallTile";
+    public static final WallTile SHARED = new WallTile(true);
+
+    /**
+     * Creates a wall tile of its own, which can hold a character
+     */
+    public WallTile() {
+        super(false);
+    }
+
+    /**
+     * @param shared whether this is the shared instance
+     */
+    private WallTile(boolean shared) {
+        super(shared);
+    }
+
+    /**
+     * @return the kind of the tile
+     */
+    @Override
+    public TileKind getKind() {
+        return TileKind.WALL;
     }
 }
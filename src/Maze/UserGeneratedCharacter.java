@@ -1,11 +1,31 @@
 package Maze;
 
+import com.google.common.base.Preconditions;
+
+import java.util.SplittableRandom;
+
 /**
  * This defines the methods which a user added character must implement
  * This is used by the characters added by the persistence module
  * @author Oscar Sykes 300486149
  */
-public abstract class UserGeneratedCharacter extends Character{
+public abstract class UserGeneratedCharacter extends Character implements Cloneable{
+    /**
+     * The dense id given to this character by the board it is on, or -1 if it isn't on a board yet
+     */
+    private int id = -1;
+
+    /**
+     * The most times the default move(LegalMoves) asks moveDirection for a move before staying put
+     */
+    public static final int MAX_MOVE_ATTEMPTS = 16;
+
+    /**
+     * The random source this character should use for its choices. The board gives it a new source every turn, drawn
+     * from the board's seed, the character's id and the turn number, so games can be reproduced even after undo.
+     */
+    private SplittableRandom random = new SplittableRandom();
+
     /**
      * @param row row of the character
      * @param col column of the character
@@ -14,9 +34,80 @@ public abstract class UserGeneratedCharacter extends Character{
         super(row, col);
     }
 
+    /**
+     * @return the id given to this character by the board it is on, or -1 if it isn't on a board yet
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @param id the id given to this character by the board's character registry
+     */
+    void setId(int id) {
+        this.id = id;
+    }
+
+    /**
+     * @return the random source this character should use instead of Math.random so its moves can be reproduced
+     */
+    protected SplittableRandom getRandom() {
+        return random;
+    }
+
+    /**
+     * @param random the random source given to this character by the board it is on
+     */
+    void setRandom(SplittableRandom random) {
+        this.random = Preconditions.checkNotNull(random);
+    }
+
     /**
      * This method defines what direction the characters choose to move in
      * @return the direction the character is moving in (left, right, up, down, noMove)
      */
     public abstract String move();
+
+    /**
+     * Makes a copy of this character for a new board started from the same level, without loading the level again.
+     * The copy is a shallow clone that doesn't belong to any board yet. Characters holding mutable state of their own
+     * should override this and copy that state.
+     * @return a copy of this character in the same row and column
+     */
+    protected UserGeneratedCharacter copy() {
+        try {
+            UserGeneratedCharacter copy = (UserGeneratedCharacter) clone();
+            copy.id = -1;
+            return copy;
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e); // this class is Cloneable
+        }
+    }
+
+    /**
+     * The direction the character chooses to move in. By default this converts the name returned by move, characters
+     * that can choose a Direction directly should override this so the board never has to compare strings.
+     * @return the direction the character is moving in
+     */
+    public Direction moveDirection() {
+        return Direction.fromString(move());
+    }
+
+    /**
+     * Chooses a move given the moves that are legal this turn. The board always carries out the returned move, so it
+     * must be one of the legal moves, an illegal choice is treated as NO_MOVE.
+     * By default this draws from moveDirection until a legal direction comes up, giving up after MAX_MOVE_ATTEMPTS
+     * draws and staying put. Characters should override this to choose from the legal moves in a single draw.
+     * @param legalMoves the directions the character may move in this turn, always including NO_MOVE
+     * @return the direction the character is moving in
+     */
+    public Direction move(LegalMoves legalMoves) {
+        for (int i = 0; i < MAX_MOVE_ATTEMPTS; i++) {
+            Direction dir = moveDirection();
+            if (legalMoves.contains(dir)) {
+                return dir;
+            }
+        }
+        return Direction.NO_MOVE;
+    }
 }
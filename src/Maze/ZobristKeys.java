@@ -0,0 +1,102 @@
+package Maze;
+
+/**
+ * The random keys used to fingerprint the state of a board with a Zobrist hash.
+ * The hash of a state is the XOR of one key for every (cell, tile code), (cell, item code), (cell, character slot) and
+ * (key colour, count) in it, so changing one feature only needs two XORs. Keys are derived on the fly by mixing the
+ * feature with SplitMix64 instead of being stored in tables, so huge boards don't need a table per cell, and every
+ * board uses the same keys so the hashes of different boards can be compared. Empty features (free tiles, cells
+ * without an item or character and colours chip has no keys of) have key 0 so they don't need to be hashed.
+ * @author Oscar Sykes 300486149
+ */
+final class ZobristKeys {
+
+    /**
+     * The kinds of feature a key is for
+     */
+    private static final int TILE = 0, ITEM = 1, CHARACTER = 2, KEYS = 3, SIZE = 4;
+
+    /**
+     * Not used, the keys are all static
+     */
+    private ZobristKeys() {
+    }
+
+    /**
+     * @param index index of a cell
+     * @param code a tile code
+     * @return the key of the cell holding the tile
+     */
+    static long tile(int index, byte code) {
+        return code == PackedBoard.FREE ? 0 : key(TILE, index, code);
+    }
+
+    /**
+     * @param index index of a cell
+     * @param code an item code
+     * @return the key of the cell holding the item
+     */
+    static long item(int index, byte code) {
+        return code == PackedBoard.NO_ITEM ? 0 : key(ITEM, index, code);
+    }
+
+    /**
+     * @param index index of a cell
+     * @param slot a character slot
+     * @return the key of the cell holding the character
+     */
+    static long character(int index, short slot) {
+        return slot == PackedBoard.NO_CHARACTER ? 0 : key(CHARACTER, index, slot);
+    }
+
+    /**
+     * @param colourIndex a colour index
+     * @param count the number of keys of that colour chip holds
+     * @return the key of chip holding that many keys of the colour
+     */
+    static long keys(int colourIndex, int count) {
+        return count == 0 ? 0 : key(KEYS, colourIndex, count);
+    }
+
+    /**
+     * Hashes a whole state by scanning every cell, used to start and check the incremental hash
+     * @param cells the cells of the board
+     * @param chip chip, whose keys are part of the state
+     * @return the hash of the state
+     */
+    static long hashOf(PackedBoard cells, Chip chip) {
+        long cellHash = 0;
+        for (int i = 0; i < cells.size(); i++) {
+            cellHash ^= tile(i, cells.getTile(i)) ^ item(i, cells.getItem(i)) ^ character(i, cells.getCharacter(i));
+        }
+        return hashOf(cells, cellHash, chip);
+    }
+
+    /**
+     * Hashes a whole state whose cells have already been hashed, such as a board still matching its level source
+     * @param cells the cells of the board
+     * @param cellHash the xor of the tile, item and character keys of every cell
+     * @param chip chip, whose keys are part of the state
+     * @return the hash of the state
+     */
+    static long hashOf(PackedBoard cells, long cellHash, Chip chip) {
+        long hash = key(SIZE, cells.getWidth(), cells.getHeight()) ^ cellHash;
+        for (int c = 0; c < 4; c++) {
+            hash ^= keys(c, chip.getKeyCount(c));
+        }
+        return hash;
+    }
+
+    /**
+     * @param kind the kind of feature
+     * @param index the cell or colour the feature is about
+     * @param value the code, slot or count of the feature
+     * @return a well mixed 64 bit key for the feature
+     */
+    private static long key(int kind, int index, int value) {
+        long z = ((long) index << 20 | (value & 0xFFFFL) << 4 | kind) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
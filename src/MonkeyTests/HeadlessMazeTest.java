@@ -194,7 +194,7 @@ public class HeadlessMazeTest extends Helper {
     public void test_nullChip() {
 
         try {
-            new Board(1).moveChip(null);
+            new Board(1).moveChip((String) null);
         } catch (NullPointerException e) {
             return;
         }
@@ -309,7 +309,7 @@ public class HeadlessMazeTest extends Helper {
         boolean isInvoked = false;
         try {
             // check whether null pointer is thrown when check 1st args
-            board.executeMove(null, board.getChip());
+            board.executeMove((String) null, board.getChip());
             isInvoked = true;
         } catch (NullPointerException e) {
             // assert should be true, if not then the method need the precondition check
@@ -11,6 +11,7 @@ import org.junit.Test;
 
 import Maze.Board;
 import Maze.Chip;
+import Maze.Direction;
 import Maze.UserGeneratedCharacter;
 import Maze.Items.ExitLock;
 import Maze.Items.Item;
@@ -748,7 +749,7 @@ public class MazeTest extends Helper {
     @Test
     public void test_getChipMoves() {
         Board board = new Board(2);
-        List<String> movementString = board.getChipMoves();
+        List<Direction> movementString = board.getChipMoves();
         assertTrue(movementString.isEmpty());// check it's empty
         /*
          * apply movements
@@ -761,16 +762,16 @@ public class MazeTest extends Helper {
          * assign movement strings
          */
         movementString = board.getChipMoves();
-        List<String> myMovementList = new ArrayList<String>();
+        List<Direction> myMovementList = new ArrayList<Direction>();
         for (int i = 0; i < myMovements.length(); i++) {
             if (myMovements.charAt(i) == 'w') {
-                myMovementList.add("up");
+                myMovementList.add(Direction.UP);
             } else if (myMovements.charAt(i) == 'a') {
-                myMovementList.add("left");
+                myMovementList.add(Direction.LEFT);
             } else if (myMovements.charAt(i) == 's') {
-                myMovementList.add("down");
+                myMovementList.add(Direction.DOWN);
             } else if (myMovements.charAt(i) == 'd') {
-                myMovementList.add("right");
+                myMovementList.add(Direction.RIGHT);
             }
         }
         /*
@@ -790,7 +791,7 @@ public class MazeTest extends Helper {
     public void test_otherCharacterMoves() {
         Board board = new Board(2);
         UserGeneratedCharacter bugs = board.getCharacters().get(0);
-        List<String> bugsMovements = board.getOtherCharacterMoves().get(0);
+        List<Direction> bugsMovements = board.getOtherCharacterMoves().get(0);
 
         context = new Context(multiMoveStrategySpecificied);
         String myMovements = "ddaaddaawswsddaaddaawsws";
@@ -799,16 +800,16 @@ public class MazeTest extends Helper {
          * assign movement strings
          */
         bugsMovements = board.getOtherCharacterMoves().get(0);
-        List<String> myMovementList = new ArrayList<String>();
+        List<Direction> myMovementList = new ArrayList<Direction>();
         for (int i = 0; i < myMovements.length(); i++) {
             if (myMovements.charAt(i) == 'w') {
-                myMovementList.add("up");
+                myMovementList.add(Direction.UP);
             } else if (myMovements.charAt(i) == 'a') {
-                myMovementList.add("left");
+                myMovementList.add(Direction.LEFT);
             } else if (myMovements.charAt(i) == 's') {
-                myMovementList.add("down");
+                myMovementList.add(Direction.DOWN);
             } else if (myMovements.charAt(i) == 'd') {
-                myMovementList.add("right");
+                myMovementList.add(Direction.RIGHT);
             }
         }
         /*
@@ -4,6 +4,7 @@ import com.google.common.base.Preconditions;
 
 import Maze.Board;
 import Maze.Character;
+import Maze.Direction;
 
 /**
  * Description: <br/>
@@ -25,17 +26,17 @@ public class MultiMoveStrategySpecificied implements MovementStrategy {
         // parse the string input and apply the movements times by times
         for (int i = 0; i < directions.length(); i++) {
             char c = directions.charAt(i);
-            String move = "";
+            Direction move;
             if (c == 'W' || c == 'w') {
-                move = "up";
+                move = Direction.UP;
             } else if (c == 'A' || c == 'a') {
-                move = "left";
+                move = Direction.LEFT;
             } else if (c == 'S' || c == 's') {
-                move = "down";
+                move = Direction.DOWN;
             } else if (c == 'D' || c == 'd') {
-                move = "right";
+                move = Direction.RIGHT;
             } else if (c == 'N' || c == 'n') {
-                move = "noMove";
+                move = Direction.NO_MOVE;
             } else {
                 System.err.println(
                         "Find a invalid movement character: " + c + ".\nJump to apply next char.");
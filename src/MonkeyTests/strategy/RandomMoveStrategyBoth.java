@@ -5,6 +5,7 @@ import com.google.common.base.Preconditions;
 import Maze.Board;
 import Maze.Character;
 import Maze.Chip;
+import Maze.Direction;
 
 /**
  * Description: <br/>
@@ -34,7 +35,7 @@ public class RandomMoveStrategyBoth implements MovementStrategy {
         int range = max - min + 1;
 
         // generate random numbers within 1 to 4(including)
-        int randomNumber = (int) (Math.random() * range) + min;
+        int randomNumber = board.getRandom().nextInt(range) + min;
         // check if the random value is in the range
         assert randomNumber >= 1 && randomNumber <= 4;
         assert randomNumber == 1 || randomNumber == 4 || randomNumber == 2
@@ -44,15 +45,15 @@ public class RandomMoveStrategyBoth implements MovementStrategy {
          * assign the direction and apply the move
          */
         // assign direction
-        String dir = "";
+        Direction dir = null;
         if (randomNumber == 1) {
-            dir = "up";
+            dir = Direction.UP;
         } else if (randomNumber == 2) {
-            dir = "left";
+            dir = Direction.LEFT;
         } else if (randomNumber == 3) {
-            dir = "right";
+            dir = Direction.RIGHT;
         } else if (randomNumber == 4) {
-            dir = "down";
+            dir = Direction.DOWN;
         }
         // apply it
         return board.moveChip(dir);
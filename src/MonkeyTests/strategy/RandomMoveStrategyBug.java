@@ -4,6 +4,7 @@ import com.google.common.base.Preconditions;
 
 import Maze.Board;
 import Maze.Character;
+import Maze.Direction;
 import Maze.UserGeneratedCharacter;
 
 /**
@@ -29,22 +30,22 @@ public class RandomMoveStrategyBug implements MovementStrategy {
         int min = 1;
         int range = max - min + 1;
         // generate random numbers within 1 to 5(including)
-        int randomNumber = (int) (Math.random() * range) + min;
+        int randomNumber = board.getRandom().nextInt(range) + min;
         /*
          * apply the move and assign the direction
          */
         // assign direction
-        String dir = "";
+        Direction dir = null;
         if (randomNumber == 1) {
-            dir = "up";
+            dir = Direction.UP;
         } else if (randomNumber == 2) {
-            dir = "left";
+            dir = Direction.LEFT;
         } else if (randomNumber == 3) {
-            dir = "right";
+            dir = Direction.RIGHT;
         } else if (randomNumber == 4) {
-            dir = "down";
+            dir = Direction.DOWN;
         } else if (randomNumber == 5) {
-            dir = "noMove";
+            dir = Direction.NO_MOVE;
         }
 
         return board.executeMove(dir, character);
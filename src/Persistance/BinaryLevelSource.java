@@ -0,0 +1,174 @@
+package Persistance;
+
+import Maze.LevelSource;
+import Maze.PackedBoard;
+import Maze.UserGeneratedCharacter;
+import com.google.common.base.Preconditions;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Reads a level in the binary level format through a memory mapped file, without parsing anything but the header.
+ * The format (version 1, big endian) is:
+ * a header of the magic number, the version, the width, the height, the number of characters and a CRC32 of the rest
+ * of the file, then one byte per cell in row-major order holding the cell's item code in the high four bits and its
+ * tile code in the low four bits, then one record per character of its cell index and its letter, in order of cell.
+ * Cells holding a character are free tiles without an item. LevelConverter writes files in this format.
+ * @author kainsamu
+ *
+ */
+public class BinaryLevelSource implements LevelSource {
+
+  /**
+   * The first four bytes of every binary level file, "CHLV".
+   */
+  public static final int MAGIC = 0x43484C56;
+
+  /**
+   * The version of the format read and written.
+   */
+  public static final short VERSION = 1;
+
+  /**
+   * The number of bytes of the header and of a character record.
+   */
+  static final int HEADER_BYTES = 24;
+  static final int CHARACTER_BYTES = 5;
+
+  /**
+   * The level file letter of every cell byte, or 0 for bytes that aren't valid cells.
+   */
+  private static final byte[] LETTER_OF_CELL = new byte[256];
+
+  static {
+    for (byte tile = 0; tile <= PackedBoard.DOOR_YELLOW; tile++) {
+      LETTER_OF_CELL[cellByte(tile, PackedBoard.NO_ITEM)] = (byte) PackedBoard.fileLetterOf(tile, PackedBoard.NO_ITEM);
+    }
+    for (byte item = PackedBoard.KEY_RED; item <= PackedBoard.EXIT_LOCK; item++) {
+      LETTER_OF_CELL[cellByte(PackedBoard.FREE, item)] = (byte) PackedBoard.fileLetterOf(PackedBoard.FREE, item);
+    }
+  }
+
+  /**
+   * The characters the level can use.
+   */
+  private final CharacterPlugins plugins;
+
+  /**
+   * The number of columns and rows of the level.
+   */
+  private final int width;
+  private final int height;
+
+  /**
+   * The cells of the mapped file.
+   */
+  private final ByteBuffer cells;
+
+  /**
+   * The cell index and letter of every character, in order of cell.
+   */
+  private final int[] characterCells;
+  private final byte[] characterLetters;
+
+  /**
+   * Maps a binary level file and checks its header and checksum.
+   * @param levelFile the level file
+   * @throws IOException if the file can't be read or isn't a valid binary level
+   */
+  public BinaryLevelSource(File levelFile) throws IOException {
+    Preconditions.checkNotNull(levelFile);
+    plugins = CharacterPlugins.forLevel(levelFile);
+    MappedByteBuffer map;
+    // the mapping stays valid after the channel is closed
+    try (FileChannel channel = FileChannel.open(levelFile.toPath(), StandardOpenOption.READ)) {
+      if (channel.size() < HEADER_BYTES || channel.size() > Integer.MAX_VALUE) {
+        throw new IOException("Not a binary level file");
+      }
+      map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    if (map.getInt(0) != MAGIC) {
+      throw new IOException("Not a binary level file");
+    }
+    if (map.getShort(4) != VERSION) {
+      throw new IOException("Unsupported binary level version " + map.getShort(4));
+    }
+    width = map.getInt(8);
+    height = map.getInt(12);
+    int characters = map.getInt(16);
+    long cellCount = (long) width * height;
+    if (width <= 0 || height <= 0 || characters < 0
+        || map.capacity() != HEADER_BYTES + cellCount + (long) characters * CHARACTER_BYTES) {
+      throw new IOException("Binary level file has the wrong length");
+    }
+    ByteBuffer body = map.duplicate();
+    body.position(HEADER_BYTES);
+    CRC32 crc = new CRC32();
+    crc.update(body);
+    if ((int) crc.getValue() != map.getInt(20)) {
+      throw new IOException("Binary level file is corrupted");
+    }
+    body.position(HEADER_BYTES).limit(HEADER_BYTES + (int) cellCount);
+    cells = body.slice();
+    characterCells = new int[characters];
+    characterLetters = new byte[characters];
+    int record = HEADER_BYTES + (int) cellCount;
+    for (int i = 0; i < characters; i++, record += CHARACTER_BYTES) {
+      characterCells[i] = map.getInt(record);
+      characterLetters[i] = map.get(record + 4);
+      if (characterCells[i] < 0 || characterCells[i] >= cellCount
+          || (i > 0 && characterCells[i] <= characterCells[i - 1])
+          || !PackedBoard.isCharacterLetter(characterLetters[i])
+          || cells.get(characterCells[i]) != cellByte(PackedBoard.FREE, PackedBoard.NO_ITEM)) {
+        throw new IOException("Invalid character record in binary level file");
+      }
+    }
+  }
+
+  /**
+   * @param tile a tile code
+   * @param item an item code
+   * @return the byte a cell with that tile and item is stored as
+   */
+  static int cellByte(byte tile, byte item) {
+    return item << 4 | tile;
+  }
+
+  @Override
+  public int getWidth() {
+    return width;
+  }
+
+  @Override
+  public int getHeight() {
+    return height;
+  }
+
+  @Override
+  public void read(int first, byte[] letters, int length) throws IOException {
+    Preconditions.checkPositionIndexes(first, first + length, width * height);
+    for (int i = 0; i < length; i++) {
+      byte letter = LETTER_OF_CELL[cells.get(first + i) & 0xFF];
+      if (letter == 0) {
+        throw new IOException("Invalid cell in binary level file");
+      }
+      letters[i] = letter;
+    }
+    int character = Arrays.binarySearch(characterCells, first);
+    for (character = character < 0 ? -character - 1 : character;
+        character < characterCells.length && characterCells[character] < first + length; character++) {
+      letters[characterCells[character] - first] = characterLetters[character];
+    }
+  }
+
+  @Override
+  public UserGeneratedCharacter newCharacter(byte letter, int row, int col) {
+    return plugins.newCharacter(letter, row, col);
+  }
+}
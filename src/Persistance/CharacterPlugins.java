@@ -0,0 +1,222 @@
+package Persistance;
+
+import Maze.FileCache;
+import Maze.PackedBoard;
+import Maze.UserGeneratedCharacter;
+import com.google.common.base.Preconditions;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+
+/**
+ * The user generated characters a level can use, by letter. U is always the built in UserBug; a level can add
+ * characters of its own with a plugin jar next to its level file (level2.jar for level2.json or level2.bin) whose
+ * manifest has a Character-Classes attribute such as "Z=Zombie Q=pets.Quokka". Each class must extend
+ * UserGeneratedCharacter and have a public (int row, int col) constructor.
+ * A jar's classes are loaded once into a class loader of their own, which resolves names only against the jar, the
+ * java classes and the game's Maze package, and are kept with their constructor handles until the jar changes.
+ * Characters are made through the handles, so restarting a level never loads or looks up a class again and moves are
+ * plain calls. The class loader only keeps plugins' class names apart from the game's and each other's; it isn't a
+ * sandbox, a plugin runs with the same permissions as the game, so only play levels whose jars you trust.
+ * @author kainsamu
+ *
+ */
+public class CharacterPlugins {
+
+  /**
+   * The manifest attribute mapping letters to character classes.
+   */
+  public static final String CHARACTER_CLASSES = "Character-Classes";
+
+  /**
+   * Makes characters of one kind.
+   */
+  public interface Factory {
+
+    /**
+     * Creates a character.
+     * @param row row the character starts in
+     * @param col column the character starts in
+     * @return the character
+     */
+    UserGeneratedCharacter newCharacter(int row, int col);
+  }
+
+  /**
+   * The characters of levels without a plugin jar.
+   */
+  private static final CharacterPlugins BUILT_IN = new CharacterPlugins();
+
+  /**
+   * Plugins of every jar loaded so far, one for each jar as it was last loaded.
+   */
+  private static final FileCache<CharacterPlugins> CACHE = new FileCache<>();
+
+  /**
+   * The factory of every letter, or null for letters that aren't characters of the level.
+   */
+  private final Factory[] factories = new Factory[128];
+
+  /**
+   * Creates the built in characters.
+   */
+  private CharacterPlugins() {
+    factories['U'] = UserBug::new;
+  }
+
+  /**
+   * Loads the characters of a plugin jar.
+   * @param jar the plugin jar
+   * @throws IOException if the jar can't be read or a character class is invalid
+   */
+  private CharacterPlugins(File jar) throws IOException {
+    this();
+    String classes;
+    try (JarFile file = new JarFile(jar)) {
+      Manifest manifest = file.getManifest();
+      classes = manifest == null ? null : manifest.getMainAttributes().getValue(CHARACTER_CLASSES);
+    }
+    if (classes == null) {
+      return;
+    }
+    // never closed, the classes are used for as long as the game runs
+    ClassLoader loader = new PluginClassLoader(jar.toURI().toURL());
+    for (String mapping : classes.trim().split("\\s+")) {
+      String[] parts = mapping.split("=");
+      if (parts.length != 2 || parts[0].length() != 1 || !PackedBoard.isCharacterLetter(parts[0].charAt(0))
+          || parts[0].charAt(0) == 'H' || parts[0].charAt(0) == 'U') {
+        throw new IOException("Invalid character mapping in " + jar + ": " + mapping);
+      }
+      factories[parts[0].charAt(0)] = load(loader, parts[1], parts[0]);
+    }
+  }
+
+  /**
+   * Finds the characters a level can use, loading its plugin jar if it has one that hasn't been loaded since it
+   * last changed.
+   * @param levelFile the level file
+   * @return the level's characters
+   * @throws IOException if the plugin jar can't be loaded
+   */
+  public static CharacterPlugins forLevel(File levelFile) throws IOException {
+    Preconditions.checkNotNull(levelFile);
+    String name = levelFile.getName();
+    int dot = name.lastIndexOf('.');
+    File jar = new File(levelFile.getParentFile(), (dot < 0 ? name : name.substring(0, dot)) + ".jar");
+    if (!jar.isFile()) {
+      return BUILT_IN;
+    }
+    try {
+      return CACHE.get(jar, f -> {
+        try {
+          return new CharacterPlugins(f);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    } catch (UncheckedIOException e) {
+      throw new IOException("Couldn't load plugin jar " + jar, e.getCause());
+    }
+  }
+
+  /**
+   * This is a method that will return the factory of a character letter.
+   * @param letter a letter of the level file format
+   * @return the factory of the character, or null if the level has no character with that letter
+   */
+  public Factory getFactory(int letter) {
+    return letter >= 0 && letter < factories.length ? factories[letter] : null;
+  }
+
+  /**
+   * This is a method that will return whether a letter can be used in the level's tiles.
+   * @param letter a letter of the level file format
+   * @return whether the letter is a tile, an item, chip or one of the level's characters
+   */
+  public boolean isLevelLetter(int letter) {
+    return PackedBoard.tileCodeOfLetter(letter) >= 0
+        && (!PackedBoard.isCharacterLetter(letter) || letter == 'H' || getFactory(letter) != null);
+  }
+
+  /**
+   * Creates a character of the level.
+   * @param letter the letter of the character
+   * @param row row the character starts in
+   * @param col column the character starts in
+   * @return the character
+   */
+  public UserGeneratedCharacter newCharacter(int letter, int row, int col) {
+    Factory factory = getFactory(letter);
+    Preconditions.checkArgument(factory != null, "Unknown character: %s", (char) letter);
+    return factory.newCharacter(row, col);
+  }
+
+  /**
+   * Loads a character class and makes a factory from its constructor handle.
+   * @param loader the jar's class loader
+   * @param className name of the class
+   * @param letter the letter the class is mapped to, which its characters must return from getLetter
+   * @return the factory
+   * @throws IOException if the class can't be loaded or isn't a valid character
+   */
+  private static Factory load(ClassLoader loader, String className, String letter) throws IOException {
+    MethodHandle constructor;
+    try {
+      Class<? extends UserGeneratedCharacter> type =
+          Class.forName(className, true, loader).asSubclass(UserGeneratedCharacter.class);
+      constructor = MethodHandles.publicLookup()
+          .findConstructor(type, MethodType.methodType(void.class, int.class, int.class))
+          .asType(MethodType.methodType(UserGeneratedCharacter.class, int.class, int.class));
+    } catch (ReflectiveOperationException | ClassCastException | LinkageError e) {
+      throw new IOException("Invalid character class " + className, e);
+    }
+    Factory factory = (row, col) -> {
+      try {
+        return (UserGeneratedCharacter) constructor.invokeExact(row, col);
+      } catch (RuntimeException | Error e) {
+        throw e;
+      } catch (Throwable e) {
+        throw new IllegalStateException("Character constructor threw " + e, e);
+      }
+    };
+    if (!letter.equals(factory.newCharacter(0, 0).getLetter())) {
+      throw new IOException("Character class " + className + " doesn't use the letter " + letter);
+    }
+    return factory;
+  }
+
+  /**
+   * The class loader of a plugin jar. Names are resolved against the java classes, the Maze package (the character
+   * API) and the jar, so a plugin's classes can't clash with the game's other packages or with other levels' plugins.
+   * This is namespace isolation only: the game's loader is still reachable through the Maze classes.
+   */
+  private static class PluginClassLoader extends URLClassLoader {
+
+    /**
+     * The loader the game's classes come from.
+     */
+    private final ClassLoader game = CharacterPlugins.class.getClassLoader();
+
+    /**
+     * @param jar the plugin jar
+     */
+    PluginClassLoader(URL jar) {
+      super(new URL[] {jar}, null);
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+      if (name.startsWith("Maze.")) {
+        return game.loadClass(name);
+      }
+      return super.loadClass(name, resolve);
+    }
+  }
+}
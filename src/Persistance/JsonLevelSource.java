@@ -0,0 +1,410 @@
+package Persistance;
+
+import Maze.LevelSource;
+import Maze.UserGeneratedCharacter;
+import com.google.common.base.Preconditions;
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads a level in the json format of the level files a part at a time, for levels too big to parse as a whole.
+ * The file is scanned once to find the dimensions and where the lvlTiles string starts, after that runs of tiles are
+ * read straight from that offset in the file. Run-length encoded tiles (see RunLengthTiles) are decoded as they are
+ * read, starting from the nearest of the checkpoints noted while scanning.
+ * @author kainsamu
+ *
+ */
+public class JsonLevelSource implements LevelSource, Closeable {
+
+  /**
+   * Strings longer than this are skipped instead of being kept while scanning.
+   */
+  private static final int MAX_KEPT_STRING = 64;
+
+  /**
+   * The number of cells between checkpoints of run-length encoded tiles.
+   */
+  private static final int CHECKPOINT_CELLS = 4096;
+
+  /**
+   * The characters the level can use.
+   */
+  private final CharacterPlugins plugins;
+
+  /**
+   * The number of columns and rows of the level.
+   */
+  private final int width;
+  private final int height;
+
+  /**
+   * The optional lvlName and lvlTime of the level, or null if the file has none.
+   */
+  private String name;
+  private String time;
+
+  /**
+   * Offset in the file of the first letter of lvlTiles.
+   */
+  private final long tilesOffset;
+
+  /**
+   * For run-length encoded tiles, the offset in the file of the run holding every CHECKPOINT_CELLS-th cell and the
+   * number of cells of that run before it. Null for plain tiles.
+   */
+  private final long[] checkpointOffsets;
+  private final int[] checkpointSkips;
+
+  /**
+   * The level file, kept open while the level is played.
+   */
+  private final RandomAccessFile file;
+
+  /**
+   * Scans a level file.
+   * @param levelFile the level file
+   * @throws IOException if the file can't be read or isn't a valid level
+   */
+  public JsonLevelSource(File levelFile) throws IOException {
+    Preconditions.checkNotNull(levelFile);
+    List<String> dimensions = new ArrayList<>();
+    String encoding = null;
+    long offset = -1;
+    long cells = 0;
+    boolean digits = false;
+    long[] offsets = new long[16];
+    int[] skips = new int[16];
+    int checkpoints = 0;
+    plugins = CharacterPlugins.forLevel(levelFile);
+    try (InputStream in = new BufferedInputStream(new FileInputStream(levelFile))) {
+      long position = 0;
+      String key = null;
+      String lastString = null;
+      boolean inArray = false;
+      int c;
+      while ((c = in.read()) != -1) {
+        position++;
+        if (c == '"') {
+          long start = position;
+          boolean tiles = "lvlTiles".equals(key);
+          long runStart = start;
+          long count = 0;
+          boolean counted = false;
+          StringBuilder text = new StringBuilder();
+          while ((c = in.read()) != '"') {
+            if (c == -1 || c == '\\') {
+              throw new IOException("Unsupported string in level file");
+            }
+            if (tiles) {
+              // note where the runs crossing each checkpoint start, counting the cells as runs
+              if (!counted) {
+                runStart = position;
+              }
+              if (c >= '0' && c <= '9') {
+                digits = counted = true;
+                count = count * 10 + (c - '0');
+              } else {
+                if (counted && count == 0) {
+                  throw new IOException("Empty run in lvlTiles");
+                }
+                if (!plugins.isLevelLetter(c)) {
+                  throw new IOException("Unknown letter in lvlTiles: " + (char) c);
+                }
+                long run = counted ? count : 1;
+                for (long checkpoint = (long) checkpoints * CHECKPOINT_CELLS; checkpoint < cells + run;
+                    checkpoint += CHECKPOINT_CELLS) {
+                  if (checkpoints == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, checkpoints * 2);
+                    skips = Arrays.copyOf(skips, checkpoints * 2);
+                  }
+                  offsets[checkpoints] = runStart;
+                  skips[checkpoints++] = (int) (checkpoint - cells);
+                }
+                cells += run;
+                counted = false;
+                count = 0;
+              }
+              if (count > Integer.MAX_VALUE || cells > Integer.MAX_VALUE) {
+                throw new IOException("lvlTiles is too long");
+              }
+            }
+            position++;
+            if (text.length() < MAX_KEPT_STRING) {
+              text.append((char) c);
+            }
+          }
+          position++;
+          if (counted) {
+            throw new IOException("lvlTiles ends with a count");
+          }
+          if (inArray && "lvlWandH".equals(key)) {
+            dimensions.add(text.toString());
+          } else if (tiles) {
+            offset = start;
+          } else if ("lvlName".equals(key)) {
+            name = text.toString();
+          } else if ("lvlTime".equals(key)) {
+            time = text.toString();
+          } else if ("lvlEncoding".equals(key)) {
+            encoding = text.toString();
+          }
+          lastString = text.toString();
+        } else if (c == ':') {
+          key = lastString;
+        } else if (c == ',' && !inArray) {
+          key = null;
+        } else if (c == '[') {
+          inArray = true;
+        } else if (c == ']') {
+          inArray = false;
+        }
+      }
+    }
+    if (dimensions.size() != 2 || offset < 0) {
+      throw new IOException("Level file has no lvlWandH or lvlTiles");
+    }
+    // the first dimension is the number of rows, the same as JsonParser.getLvl
+    height = Integer.parseInt(dimensions.get(0));
+    width = Integer.parseInt(dimensions.get(1));
+    if (width <= 0 || height <= 0 || cells != (long) width * height) {
+      throw new IOException("lvlTiles doesn't match lvlWandH");
+    }
+    if (RunLengthTiles.ENCODING.equals(encoding)) {
+      checkpointOffsets = Arrays.copyOf(offsets, checkpoints);
+      checkpointSkips = Arrays.copyOf(skips, checkpoints);
+    } else if (encoding == null && !digits) {
+      checkpointOffsets = null;
+      checkpointSkips = null;
+    } else {
+      throw new IOException("Unsupported lvlTiles encoding");
+    }
+    tilesOffset = offset;
+    file = new RandomAccessFile(levelFile, "r");
+  }
+
+  @Override
+  public int getWidth() {
+    return width;
+  }
+
+  @Override
+  public int getHeight() {
+    return height;
+  }
+
+  /**
+   * This is a method that will return the name of the level.
+   * @return the level's lvlName, or null if it doesn't have one
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * This is a method that will return how long the player has to finish the level.
+   * @return the level's lvlTime in seconds, or -1 if it doesn't have one
+   * @throws IOException if lvlTime isn't a number
+   */
+  public int getTimeLimit() throws IOException {
+    return timeLimit(time);
+  }
+
+  /**
+   * This is a method that will read the fields of a level file that come before its tiles: lvlWandH, lvlName and
+   * lvlTime. Reading stops where lvlTiles starts, so the tiles aren't read or checked and the level's plugin jar
+   * isn't loaded. Level files put these fields before lvlTiles, any that come after it are left out.
+   * @param levelFile the level file
+   * @return the header of the level
+   * @throws IOException if the file can't be read or has no valid lvlWandH before lvlTiles
+   */
+  public static Header readHeader(File levelFile) throws IOException {
+    Preconditions.checkNotNull(levelFile);
+    List<String> dimensions = new ArrayList<>();
+    String name = null;
+    String time = null;
+    try (InputStream in = new BufferedInputStream(new FileInputStream(levelFile))) {
+      String key = null;
+      String lastString = null;
+      boolean inArray = false;
+      int c;
+      while ((c = in.read()) != -1) {
+        if (c == '"') {
+          if ("lvlTiles".equals(key)) {
+            break;
+          }
+          StringBuilder text = new StringBuilder();
+          while ((c = in.read()) != '"') {
+            if (c == -1 || c == '\\') {
+              throw new IOException("Unsupported string in level file");
+            }
+            if (text.length() < MAX_KEPT_STRING) {
+              text.append((char) c);
+            }
+          }
+          if (inArray && "lvlWandH".equals(key)) {
+            dimensions.add(text.toString());
+          } else if ("lvlName".equals(key)) {
+            name = text.toString();
+          } else if ("lvlTime".equals(key)) {
+            time = text.toString();
+          }
+          lastString = text.toString();
+        } else if (c == ':') {
+          key = lastString;
+        } else if (c == ',' && !inArray) {
+          key = null;
+        } else if (c == '[') {
+          inArray = true;
+        } else if (c == ']') {
+          inArray = false;
+        }
+      }
+      if (c == -1) {
+        throw new IOException("Level file has no lvlTiles");
+      }
+    }
+    if (dimensions.size() != 2) {
+      throw new IOException("Level file has no lvlWandH before lvlTiles");
+    }
+    try {
+      // the first dimension is the number of rows, the same as JsonParser.getLvl
+      Header header = new Header(Integer.parseInt(dimensions.get(1)), Integer.parseInt(dimensions.get(0)), name,
+          timeLimit(time));
+      if (header.width <= 0 || header.height <= 0) {
+        throw new IOException("lvlWandH isn't positive");
+      }
+      return header;
+    } catch (NumberFormatException e) {
+      throw new IOException("lvlWandH isn't a number", e);
+    }
+  }
+
+  /**
+   * This is a method that will parse the lvlTime of a level.
+   * @param time the level's lvlTime, or null
+   * @return the time limit in seconds, or -1 if there is no lvlTime
+   * @throws IOException if lvlTime isn't a number
+   */
+  private static int timeLimit(String time) throws IOException {
+    try {
+      return time == null ? -1 : Integer.parseInt(time);
+    } catch (NumberFormatException e) {
+      throw new IOException("lvlTime isn't a number", e);
+    }
+  }
+
+  /**
+   * The fields of a level file that come before its tiles.
+   */
+  public static final class Header {
+
+    /**
+     * The number of columns and rows of the level.
+     */
+    private final int width;
+    private final int height;
+
+    /**
+     * The level's lvlName, or null if it doesn't have one.
+     */
+    private final String name;
+
+    /**
+     * The level's lvlTime in seconds, or -1 if it doesn't have one.
+     */
+    private final int timeLimit;
+
+    /**
+     * @param width the number of columns
+     * @param height the number of rows
+     * @param name the lvlName, or null
+     * @param timeLimit the lvlTime in seconds, or -1
+     */
+    private Header(int width, int height, String name, int timeLimit) {
+      this.width = width;
+      this.height = height;
+      this.name = name;
+      this.timeLimit = timeLimit;
+    }
+
+    /**
+     * This is a method that will return the number of columns of the level.
+     * @return the number of columns
+     */
+    public int getWidth() {
+      return width;
+    }
+
+    /**
+     * This is a method that will return the number of rows of the level.
+     * @return the number of rows
+     */
+    public int getHeight() {
+      return height;
+    }
+
+    /**
+     * This is a method that will return the name of the level.
+     * @return the level's lvlName, or null if it doesn't have one
+     */
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * This is a method that will return how long the player has to finish the level.
+     * @return the level's lvlTime in seconds, or -1 if it doesn't have one
+     */
+    public int getTimeLimit() {
+      return timeLimit;
+    }
+  }
+
+  @Override
+  public synchronized void read(int first, byte[] letters, int length) throws IOException {
+    Preconditions.checkPositionIndexes(first, first + length, width * height);
+    if (checkpointOffsets == null) {
+      file.seek(tilesOffset + first);
+      file.readFully(letters, 0, length);
+      return;
+    }
+    int checkpoint = first / CHECKPOINT_CELLS;
+    file.seek(checkpointOffsets[checkpoint]);
+    // the stream isn't closed, that would close the file
+    RunLengthTiles.Decoder decoder = new RunLengthTiles.Decoder(new InputStreamReader(
+        new BufferedInputStream(Channels.newInputStream(file.getChannel())), StandardCharsets.US_ASCII));
+    decoder.skip(checkpointSkips[checkpoint] + first - (long) checkpoint * CHECKPOINT_CELLS);
+    for (int i = 0; i < length; i++) {
+      int letter = decoder.next();
+      if (letter == -1) {
+        throw new IOException("lvlTiles ends too early");
+      }
+      letters[i] = (byte) letter;
+    }
+  }
+
+  @Override
+  public UserGeneratedCharacter newCharacter(byte letter, int row, int col) {
+    return plugins.newCharacter(letter, row, col);
+  }
+
+  /**
+   * Closes the level file.
+   * @throws IOException if it can't be closed
+   */
+  @Override
+  public void close() throws IOException {
+    file.close();
+  }
+}
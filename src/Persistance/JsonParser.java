@@ -4,17 +4,16 @@ import Maze.Chip;
 import Maze.Items.ExitLock;
 import Maze.Items.Key;
 import Maze.Items.Treasure;
-import Maze.Tiles.Exit;
 import Maze.Tiles.FreeTile;
-import Maze.Tiles.InfoField;
-import Maze.Tiles.LockedDoor;
-import Maze.Tiles.SingleUseTile;
 import Maze.Tiles.Tile;
-import Maze.Tiles.WallTile;
+import Maze.Tiles.TileKind;
 import java.awt.Color;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringReader;
 import javax.json.Json;
 import javax.json.JsonArray;
 import javax.json.JsonObject;
@@ -27,21 +26,42 @@ import javax.json.JsonReader;
  */
 public class JsonParser {
 
+  /**
+   * This is a method that will return the file a level is stored in.
+   * @param s int for level number
+   * @return the level file
+   */
+  public static File levelFile(int s) {
+    return new File("levels/level" + s + ".json");
+  }
+
   /**
    * This is a method that will return an array of tiles, ready for a game to be played.
+   * Tiles are made by their TileKind, so walls and doors are the shared instances of their type.
+   * The file is read once and closed; Board keeps the parsed level, so this is only called when a level is first
+   * played or its file has changed.
    * @param s int for level number
    * @return Tile array
    */
   public static Tile[][] getLvl(int s) {
+    return getLvl(levelFile(s));
+  }
+
+  /**
+   * This is a method that will return an array of tiles from a level file, such as one found by the level catalogue.
+   * Run-length encoded tiles ("lvlEncoding": "rle") are decoded one cell at a time into the array.
+   * Characters other than chip are made by the level's CharacterPlugins.
+   * @param file the level file
+   * @return Tile array
+   */
+  public static Tile[][] getLvl(File file) {
 
     Tile[][] tiles;
 
-    InputStream fis;
-    try {
-      fis = new FileInputStream("levels/level" + s + ".json");
-      JsonReader reader = Json.createReader(fis);
+    try (InputStream fis = new FileInputStream(file);
+        JsonReader reader = Json.createReader(fis)) {
       JsonObject lvlObject = reader.readObject();
-      reader.close();
+      CharacterPlugins plugins = CharacterPlugins.forLevel(file);
 
       JsonArray lvldimens = lvlObject.getJsonArray("lvlWandH");
       String width = lvldimens.getString(0);
@@ -49,28 +69,29 @@ public class JsonParser {
 
       int wid = Integer.parseInt(height);
       int hei = Integer.parseInt(width);
+      String lvlTiles = lvlObject.getString("lvlTiles");
+      String encoding = lvlObject.getString("lvlEncoding", null);
+      RunLengthTiles.Decoder decoder = null;
+      if (RunLengthTiles.ENCODING.equals(encoding)) {
+        decoder = new RunLengthTiles.Decoder(new StringReader(lvlTiles));
+      } else if (encoding != null || lvlTiles.length() != wid * hei) {
+        System.out.println("Corrupted file");
+        return null;
+      }
 
       tiles = new Tile[hei][wid];
 
       for (int i = 0; i < hei; i++) {
         for (int j = 0; j < wid; j++) {
-          char c = lvlObject.getString("lvlTiles").charAt(i * wid + j);
-          if (c == 'W') {
-            tiles[i][j] = new WallTile();
-          } else if (c == 'I') {
-            tiles[i][j] = new InfoField();
-          } else if (c == 'R') {
-            tiles[i][j] = new LockedDoor(Color.red);
-          } else if (c == 'G') {
-            tiles[i][j] = new LockedDoor(Color.green);
-          } else if (c == 'B') {
-            tiles[i][j] = new LockedDoor(Color.blue);
-          } else if (c == 'E') {
-            tiles[i][j] = new Exit();
-          } else if (c == 'Y') {
-            tiles[i][j] = new LockedDoor(Color.yellow);
-          } else if (c == 'S') {
-            tiles[i][j] = new SingleUseTile();
+          int letter = decoder == null ? lvlTiles.charAt(i * wid + j) : decoder.next();
+          if (letter == -1) {
+            System.out.println("Corrupted file");
+            return null;
+          }
+          char c = (char) letter;
+          TileKind kind = TileKind.ofFileLetter(c);
+          if (kind != null && kind != TileKind.FREE) {
+            tiles[i][j] = kind.newTile();
           } else {
             tiles[i][j] = new FreeTile();
             FreeTile tile = (FreeTile) tiles[i][j];
@@ -89,9 +110,8 @@ public class JsonParser {
             } else if (c == 'H') {
               Chip chip = new Chip(i, j);
               tile.setCharacter(chip);
-            } else if (c == 'U') {
-              UserBug b = new UserBug(i, j);
-              tile.setCharacter(b);
+            } else if (plugins.getFactory(c) != null) {
+              tile.setCharacter(plugins.getFactory(c).newCharacter(i, j));
             } else if (c != 'F') {
               System.out.println("Corrupted file");
                assert false;
@@ -100,10 +120,16 @@ public class JsonParser {
         }
       }
 
+      if (decoder != null && decoder.next() != -1) {
+        System.out.println("Corrupted file");
+        return null;
+      }
       return tiles;
 
     } catch (FileNotFoundException e) {
       System.out.println("No such file");
+    } catch (IOException e) {
+      System.out.println("Couldn't read file");
     }
 
     return null;
@@ -0,0 +1,132 @@
+package Persistance;
+
+import Maze.LevelSource;
+import Maze.PackedBoard;
+import com.google.common.base.Preconditions;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Converts json level files to the binary level format read by BinaryLevelSource.
+ * Levels are read a part at a time through a level source, so converting a large level never builds a json tree.
+ * Usage: LevelConverter [level.json ...], converting every json level in the levels folder when no file is given.
+ * Each level is written next to its json file with the extension .bin.
+ * @author kainsamu
+ *
+ */
+public class LevelConverter {
+
+  /**
+   * The number of cells read from the source at a time.
+   */
+  private static final int RUN = 1 << 16;
+
+  /**
+   * Converts level files.
+   * @param args json level files to convert
+   * @throws IOException if a level can't be read or written
+   */
+  public static void main(String[] args) throws IOException {
+    File[] files;
+    if (args.length > 0) {
+      files = Arrays.stream(args).map(File::new).toArray(File[]::new);
+    } else {
+      files = new File("levels").listFiles((dir, name) -> name.endsWith(".json"));
+      Preconditions.checkState(files != null, "No levels folder");
+    }
+    for (File json : files) {
+      File bin = binaryFile(json);
+      long start = System.nanoTime();
+      try (JsonLevelSource source = new JsonLevelSource(json)) {
+        convert(source, bin);
+      }
+      System.out.printf("%s -> %s: %d bytes to %d bytes in %.1f ms%n", json, bin, json.length(), bin.length(),
+          (System.nanoTime() - start) / 1e6);
+    }
+  }
+
+  /**
+   * This is a method that will return the binary file a json level file is converted to.
+   * @param json the json level file
+   * @return the binary level file
+   */
+  public static File binaryFile(File json) {
+    String name = json.getName();
+    int dot = name.lastIndexOf('.');
+    return new File(json.getParentFile(), (dot < 0 ? name : name.substring(0, dot)) + ".bin");
+  }
+
+  /**
+   * Writes a level in the binary level format.
+   * @param source the level
+   * @param file the file written, replacing any file already there
+   * @throws IOException if the level can't be read, has a letter that isn't a tile, an item, chip or one of the
+   *     characters the file will be read with, or the file can't be written
+   */
+  public static void convert(LevelSource source, File file) throws IOException {
+    Preconditions.checkNotNull(source);
+    Preconditions.checkNotNull(file);
+    // the characters of the plugin jar next to the binary file, which it will be read with
+    CharacterPlugins plugins = CharacterPlugins.forLevel(file);
+    int cellCount = source.getWidth() * source.getHeight();
+    byte[] letters = new byte[RUN];
+    ByteBuffer cells = ByteBuffer.allocate(RUN);
+    ByteBuffer characters = ByteBuffer.allocate(64 * BinaryLevelSource.CHARACTER_BYTES);
+    int characterCount = 0;
+    CRC32 crc = new CRC32();
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      channel.position(BinaryLevelSource.HEADER_BYTES);
+      for (int first = 0; first < cellCount; first += RUN) {
+        int length = Math.min(RUN, cellCount - first);
+        source.read(first, letters, length);
+        cells.clear();
+        for (int i = 0; i < length; i++) {
+          byte letter = letters[i];
+          byte tile = PackedBoard.tileCodeOfLetter(letter);
+          if (!plugins.isLevelLetter(letter)) {
+            throw new IOException("Invalid letter in level: " + (char) letter);
+          }
+          if (PackedBoard.isCharacterLetter(letter)) {
+            if (characters.remaining() < BinaryLevelSource.CHARACTER_BYTES) {
+              characters = ByteBuffer.allocate(characters.capacity() * 2).put(characters.flip());
+            }
+            characters.putInt(first + i).put(letter);
+            characterCount++;
+          }
+          cells.put((byte) BinaryLevelSource.cellByte(tile, PackedBoard.itemCodeOfLetter(letter)));
+        }
+        cells.flip();
+        crc.update(cells.duplicate());
+        writeFully(channel, cells);
+      }
+      characters.flip();
+      crc.update(characters.duplicate());
+      writeFully(channel, characters);
+      ByteBuffer header = ByteBuffer.allocate(BinaryLevelSource.HEADER_BYTES);
+      header.putInt(BinaryLevelSource.MAGIC).putShort(BinaryLevelSource.VERSION).putShort((short) 0)
+          .putInt(source.getWidth()).putInt(source.getHeight()).putInt(characterCount)
+          .putInt((int) crc.getValue());
+      header.flip();
+      channel.position(0);
+      writeFully(channel, header);
+    }
+  }
+
+  /**
+   * Writes all of a buffer to a channel.
+   * @param channel the channel written to
+   * @param buffer the bytes written
+   * @throws IOException if the channel can't be written
+   */
+  private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+}
@@ -3,6 +3,7 @@ package Persistance;
 import org.junit.Test;
 
 import Maze.Board;
+import Maze.Character;
 import Maze.Chip;
 import Maze.Items.ExitLock;
 import Maze.Items.Key;
@@ -14,11 +15,29 @@ import Maze.Tiles.LockedDoor;
 import Maze.Tiles.SingleUseTile;
 import Maze.Tiles.Tile;
 import Maze.Tiles.WallTile;
+import Maze.UserGeneratedCharacter;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.awt.*;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.stream.Stream;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
 
 
 /**
@@ -76,6 +95,141 @@ public class PersistanceTests {
 	        assertTrue(result.equals(expected));
 	 	}
 	 
+	 	/**
+	 	 * Test a level converted to the binary format plays the same as the json level, and corruption is caught.
+	 	 * @throws IOException if the level can't be converted
+	 	 */
+	 	@Test
+	 	public void testBinaryLevel() throws IOException {
+	 		File bin = File.createTempFile("level2", ".bin");
+	 		try {
+	 			try (JsonLevelSource json = new JsonLevelSource(JsonParser.levelFile(2))) {
+	 				LevelConverter.convert(json, bin);
+	 			}
+	 			Board board = new Board(new BinaryLevelSource(bin), 3);
+	 			assertEquals(new Board(2, 3).toString(), board.toString());
+	 			try (RandomAccessFile file = new RandomAccessFile(bin, "rw")) {
+	 				file.seek(30);
+	 				int cell = file.read();
+	 				file.seek(30);
+	 				file.write(cell ^ 1);
+	 			}
+	 			assertThrows(IOException.class, () -> new BinaryLevelSource(bin));
+	 		} finally {
+	 			bin.delete();
+	 		}
+	 	}
+
+	 	/**
+	 	 * Test run-length encoded tiles load the same as plain tiles, through the parser and read a part at a time.
+	 	 * @throws IOException if a level can't be written or read
+	 	 */
+	 	@Test
+	 	public void testRunLengthTiles() throws IOException {
+	 		assertEquals("5W2FC", RunLengthTiles.encode("WWWWWFFC"));
+	 		StringBuilder plain = new StringBuilder();
+	 		for (int i = 0; i < 100; i++) {
+	 			for (int j = 0; j < 150; j++) {
+	 				boolean wall = i == 0 || i == 99 || j == 0 || j == 149 || (i % 7 == 0 && j % 40 != 5);
+	 				plain.append(i == 1 && j == 1 ? 'H' : i == 50 && j == 77 ? 'C' : wall ? 'W' : 'F');
+	 			}
+	 		}
+	 		File rle = File.createTempFile("rle", ".json");
+	 		try {
+	 			String encoded = RunLengthTiles.encode(plain);
+	 			assertTrue(encoded.length() * 20 < plain.length());
+	 			try (FileWriter out = new FileWriter(rle)) {
+	 				out.write("{\"lvlWandH\": [\"100\", \"150\"], \"lvlEncoding\": \"rle\", \"lvlTiles\": \""
+	 						+ encoded + "\"}");
+	 			}
+	 			Tile[][] loaded = JsonParser.getLvl(rle);
+	 			StringBuilder result = new StringBuilder();
+	 			for (Tile[] row : loaded) {
+	 				for (Tile t : row) {
+	 					result.append(tileConverter(t));
+	 				}
+	 			}
+	 			assertEquals(plain.toString().replace('H', 'F').replace('C', 'F'), result.toString());
+	 			try (JsonLevelSource source = new JsonLevelSource(rle)) {
+	 				byte[] letters = new byte[5000];
+	 				for (int first : new int[] {0, 4095, 4096, 9000, 14999}) {
+	 					int length = Math.min(letters.length, 15000 - first);
+	 					source.read(first, letters, length);
+	 					assertEquals(plain.substring(first, first + length), new String(letters, 0, length, "US-ASCII"));
+	 				}
+	 				assertEquals(new Board(loaded, 1).toString(), new Board(source, 1).toString());
+	 			}
+	 		} finally {
+	 			rle.delete();
+	 		}
+	 	}
+
+	 	/**
+	 	 * Test a character from a level's plugin jar is loaded in its own class loader, once, and plays on a board.
+	 	 * @throws Exception if the plugin can't be built or loaded
+	 	 */
+	 	@Test
+	 	public void testCharacterPlugins() throws Exception {
+	 		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+	 		if (compiler == null) {
+	 			return; // plugins can't be built without a JDK
+	 		}
+	 		Path dir = Files.createTempDirectory("plugin");
+	 		try {
+	 			Path source = dir.resolve("zombie/Zombie.java");
+	 			Files.createDirectories(source.getParent());
+	 			Files.write(source, ("package zombie; import Maze.*; public class Zombie extends UserGeneratedCharacter {"
+	 					+ " public Zombie(int row, int col) { super(row, col); }"
+	 					+ " public String move() { return \"noMove\"; }"
+	 					+ " public String getLetter() { return \"Z\"; } }").getBytes());
+	 			String api = new File(UserGeneratedCharacter.class.getProtectionDomain().getCodeSource().getLocation()
+	 					.toURI()).getPath();
+	 			assertEquals(0, compiler.run(null, null, null, "-cp", api, source.toString()));
+	 			Manifest manifest = new Manifest();
+	 			manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+	 			manifest.getMainAttributes().putValue(CharacterPlugins.CHARACTER_CLASSES, "Z=zombie.Zombie");
+	 			try (JarOutputStream jar = new JarOutputStream(
+	 					Files.newOutputStream(dir.resolve("level9.jar")), manifest)) {
+	 				jar.putNextEntry(new JarEntry("zombie/Zombie.class"));
+	 				jar.write(Files.readAllBytes(dir.resolve("zombie/Zombie.class")));
+	 			}
+	 			File level = dir.resolve("level9.json").toFile();
+	 			Files.write(level.toPath(), "{\"lvlWandH\": [\"3\", \"5\"], \"lvlTiles\": \"WWWWWWHZUWWWWWW\"}".getBytes());
+
+	 			Tile[][] loaded = JsonParser.getLvl(level);
+	 			Character zombie = loaded[1][2].getCharacter();
+	 			assertEquals("Z", zombie.getLetter());
+	 			assertTrue(loaded[1][3].getCharacter() instanceof UserBug);
+	 			ClassLoader loader = zombie.getClass().getClassLoader();
+	 			assertNotSame(UserBug.class.getClassLoader(), loader);
+	 			assertSame(UserGeneratedCharacter.class, zombie.getClass().getSuperclass());
+	 			assertThrows(ClassNotFoundException.class, () -> Class.forName("Persistance.UserBug", false, loader));
+	 			assertSame(CharacterPlugins.forLevel(level), CharacterPlugins.forLevel(level));
+	 			assertSame(zombie.getClass(), JsonParser.getLvl(level)[1][2].getCharacter().getClass());
+	 			try (JsonLevelSource streamed = new JsonLevelSource(level)) {
+	 				Board board = new Board(streamed, 1);
+	 				assertEquals(new Board(loaded, 1).toString(), board.toString());
+	 				assertTrue(board.toString().contains("Z"));
+	 				// a binary file is read with the jar next to it, and other.bin has none
+	 				assertThrows(IOException.class, () -> LevelConverter.convert(streamed, dir.resolve("other.bin").toFile()));
+	 			}
+	 			File typo = dir.resolve("level10.json").toFile();
+	 			Files.write(typo.toPath(), "{\"lvlWandH\": [\"1\", \"3\"], \"lvlTiles\": \"HQE\"}".getBytes());
+	 			assertThrows(IOException.class, () -> new JsonLevelSource(typo));
+	 			manifest.getMainAttributes().putValue(CharacterPlugins.CHARACTER_CLASSES, "U=zombie.Zombie");
+	 			try (JarOutputStream jar = new JarOutputStream(
+	 					Files.newOutputStream(dir.resolve("level10.jar")), manifest)) {
+	 				jar.putNextEntry(new JarEntry("zombie/Zombie.class"));
+	 				jar.write(Files.readAllBytes(dir.resolve("zombie/Zombie.class")));
+	 			}
+	 			assertThrows(IOException.class, () -> CharacterPlugins.forLevel(typo)); // U is always the built in bug
+	 		} finally {
+	 			try (Stream<Path> files = Files.walk(dir)) {
+	 				files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+	 			}
+	 		}
+	 	}
+
 	 /**
 	   * This is a helper method for the tests, it converts tiles to their string state.
 	 * @param t returns the tile array.
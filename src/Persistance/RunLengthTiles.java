@@ -0,0 +1,128 @@
+package Persistance;
+
+import com.google.common.base.Preconditions;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * The run-length encoding of lvlTiles, used by level files with "lvlEncoding": "rle".
+ * Each run is a letter of the level file format, preceded by the number of cells it covers when that is more than
+ * one, so "5W2FC" is "WWWWWFFC". A plain lvlTiles string has no digits, so it is also a valid encoding of itself.
+ * @author kainsamu
+ *
+ */
+public class RunLengthTiles {
+
+  /**
+   * The value of lvlEncoding for run-length encoded tiles.
+   */
+  public static final String ENCODING = "rle";
+
+  /**
+   * This is a method that will return the run-length encoding of a plain lvlTiles string.
+   * @param tiles the letters of the cells
+   * @return the encoded tiles
+   */
+  public static String encode(CharSequence tiles) {
+    Preconditions.checkNotNull(tiles);
+    StringBuilder encoded = new StringBuilder();
+    for (int i = 0; i < tiles.length(); ) {
+      char letter = tiles.charAt(i);
+      Preconditions.checkArgument(!Character.isDigit(letter), "Digits can't be encoded");
+      int run = 1;
+      while (i + run < tiles.length() && tiles.charAt(i + run) == letter) {
+        run++;
+      }
+      if (run > 1) {
+        encoded.append(run);
+      }
+      encoded.append(letter);
+      i += run;
+    }
+    return encoded.toString();
+  }
+
+  /**
+   * Decodes encoded tiles one cell at a time as they are read, without building the plain string.
+   */
+  public static class Decoder {
+
+    /**
+     * Where the encoded tiles are read from, positioned at the start of a run.
+     */
+    private final Reader in;
+
+    /**
+     * The letter of the current run and the number of its cells not returned yet.
+     */
+    private int letter;
+    private long remaining;
+
+    /**
+     * @param in where the encoded tiles are read from, positioned at the start of a run. It should be buffered.
+     */
+    public Decoder(Reader in) {
+      this.in = Preconditions.checkNotNull(in);
+    }
+
+    /**
+     * This is a method that will return the letter of the next cell.
+     * @return the letter, or -1 at the end of the encoded tiles (the end of the reader or a closing quote)
+     * @throws IOException if the reader throws one or a run is malformed
+     */
+    public int next() throws IOException {
+      if (remaining == 0 && !nextRun()) {
+        return -1;
+      }
+      remaining--;
+      return letter;
+    }
+
+    /**
+     * Skips cells without returning their letters.
+     * @param cells the number of cells to skip
+     * @throws IOException if the reader throws one, a run is malformed or there are fewer cells left
+     */
+    public void skip(long cells) throws IOException {
+      while (cells > 0) {
+        if (remaining == 0 && !nextRun()) {
+          throw new IOException("Encoded tiles end too early");
+        }
+        long skipped = Math.min(cells, remaining);
+        remaining -= skipped;
+        cells -= skipped;
+      }
+    }
+
+    /**
+     * Reads the next run.
+     * @return whether there was one
+     * @throws IOException if the reader throws one or the run is malformed
+     */
+    private boolean nextRun() throws IOException {
+      long count = 0;
+      boolean counted = false;
+      int c = in.read();
+      while (c >= '0' && c <= '9') {
+        count = count * 10 + (c - '0');
+        counted = true;
+        if (count > Integer.MAX_VALUE) {
+          throw new IOException("Run too long in encoded tiles");
+        }
+        c = in.read();
+      }
+      if (c == -1 || c == '"') {
+        if (counted) {
+          throw new IOException("Encoded tiles end with a count");
+        }
+        return false;
+      }
+      if (counted && count == 0) {
+        throw new IOException("Empty run in encoded tiles");
+      }
+      letter = c;
+      remaining = counted ? count : 1;
+      return true;
+    }
+  }
+}
@@ -1,5 +1,7 @@
 package Persistance;
 
+import Maze.Direction;
+import Maze.LegalMoves;
 import Maze.UserGeneratedCharacter;
 
 /**
@@ -12,6 +14,11 @@ import Maze.UserGeneratedCharacter;
  */
 public class UserBug extends UserGeneratedCharacter {
 
+  /**
+   * Odds out of 16 of moveDirection choosing each direction, indexed by Direction ordinal.
+   */
+  private static final int[] MOVE_WEIGHTS = {4, 4, 3, 4, 1};
+
   /** 
  * Creator for the character.
  * @param row int for row of character
@@ -23,21 +30,35 @@ public class UserBug extends UserGeneratedCharacter {
 
   @Override
   public String move() {
-    Double rand = Math.random() * 8;
-    int num = (int) Math.round(rand);
+    return moveDirection().toString();
+  }
+
+  @Override
+  public Direction moveDirection() {
+    int num = (int) Math.round(getRandom().nextDouble() * 8);
     if (num == 0 || num == 1) {
-      return "up";
+      return Direction.UP;
     } else if (num == 2 || num == 3) {
-      return "left";
+      return Direction.LEFT;
     } else if (num == 4 || num == 5) {
-      return "right";
+      return Direction.RIGHT;
     } else if (num == 6 || num == 7) {
-      return "down";
+      return Direction.DOWN;
     } else {
-      return "noMove";
+      return Direction.NO_MOVE;
     }
   }
 
+  /**
+   * Picks a legal move in a single draw with the same odds moveDirection gives each direction.
+   * @param legalMoves the directions the bug may move in this turn
+   * @return the direction the bug moves in
+   */
+  @Override
+  public Direction move(LegalMoves legalMoves) {
+    return legalMoves.pick(getRandom().nextDouble(), MOVE_WEIGHTS);
+  }
+
   @Override
   public String getLetter() {
     return "U";
@@ -1,13 +1,17 @@
 package RecordAndReplay;
+import Maze.Direction;
 import Maze.UserGeneratedCharacter;
 import Application.RunnableThread;
 import Maze.Board;
+import Maze.BoardEvent;
+import Maze.BoardListener;
 import org.json.simple.JSONObject;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.io.File;
 import java.nio.charset.Charset;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -17,13 +21,23 @@ import java.util.List;
  * @author Ruiyang Zhang 300490953
  */
 @SuppressWarnings("unused")
-public class  RecordGame {
+public class  RecordGame implements BoardListener {
 
     /**
      * The File count
      */
     public int fileCount;
 
+    /**
+     * The board whose events are being counted
+     */
+    private Board countedBoard;
+
+    /**
+     * The number of events of each kind published by the counted board, indexed by ordinal
+     */
+    private final int[] eventCounts = new int[BoardEvent.values().length];
+
     /**
      * write actions recorded into a JSON object
      */
@@ -72,24 +86,32 @@ public class  RecordGame {
      	    int count = 0;
      	    obj.put("time",r.getSecond());
      	    obj.put("level",level);
+     	    put(obj, "seed", board.getSeed());
      	    obj.put("chips left",board.getTreasureRemainingAmount());
-            List<List<String>> otherMoves = board.getOtherCharacterMoves();
+     	    if(board == countedBoard) {
+     	        JSONObject events = new JSONObject();
+     	        for (BoardEvent event : BoardEvent.values()) {
+     	            put(events, event.toString(), eventCounts[event.ordinal()]);
+                }
+     	        put(obj, "events", events);
+            }
+            List<List<Direction>> otherMoves = board.getOtherCharacterMoves();
 
             for(int i = 0; i < board.getChipMoves().size(); i++) {
                 String m ="chipMovement"+count;
-                obj.put(m, board.getChipMoves().get(i));
+                obj.put(m, board.getChipMoves().get(i).toString());
                 count ++;
             }
             int count2 = 0;
             if(level ==2) {
                 for (int i = 0; i < otherMoves.size(); i++) {
-                    List<String> Moves = otherMoves.get(i);
+                    List<Direction> Moves = otherMoves.get(i);
                     List<UserGeneratedCharacter> characters = board.getCharacters();
                     obj.put("rowcharacter",characters.get(0).getRow());
                     obj.put("colcharacter",characters.get(0).getCol());
                     for (int j = 0; j < Moves.size(); j++) {
                         String om = "otherMovement" + count2;
-                        obj.put(om, Moves.get(j));
+                        obj.put(om, Moves.get(j).toString());
                         count2 ++;
                     }
                 }
@@ -102,4 +124,45 @@ public class  RecordGame {
              ex.printStackTrace();
          }
      }
+
+    /**
+     * Put a value into a json object, which json-simple only exposes as a raw map
+     *
+     * @param obj   the json object
+     * @param key   the key
+     * @param value the value
+     */
+    @SuppressWarnings("unchecked")
+    private static void put(JSONObject obj, String key, Object value) {
+        obj.put(key, value);
+    }
+
+    /**
+     * Count an event published by the board being played, restarting the counts when a new board is played
+     *
+     * @param board  the Board the event happened on
+     * @param event  the kind of event
+     * @param row    the row of the event
+     * @param col    the column of the event
+     * @param detail the detail of the event
+     */
+    @Override
+    public void boardChanged(Board board, BoardEvent event, int row, int col, int detail) {
+        if(board != countedBoard) {
+            countedBoard = board;
+            Arrays.fill(eventCounts, 0);
+        }
+        eventCounts[event.ordinal()]++;
+    }
+
+    /**
+     * Get the number of events of one kind counted for a board
+     *
+     * @param board the Board
+     * @param event the kind of event
+     * @return the number of events of that kind the board has published since it was subscribed to, 0 for any other board
+     */
+    public int getEventCount(Board board, BoardEvent event) {
+        return board == countedBoard ? eventCounts[event.ordinal()] : 0;
+    }
 }
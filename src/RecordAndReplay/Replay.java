@@ -7,6 +7,7 @@ import java.nio.file.Paths;
 import java.util.*;
 import javax.json.*;
 import Maze.Board;
+import Maze.Direction;
 import Maze.UserGeneratedCharacter;
 import Maze.Character;
 
@@ -22,12 +23,12 @@ public class Replay {
     /**
      * A list of string stores all the Movements for Chip.
      */
-    List<String>  movement;
+    List<Direction>  movement;
 
     /**
      * The Other character's movement, in this case , bug movement.
      */
-    List<String> otherMovement;
+    List<Direction> otherMovement;
 
     /**
      * The Bug character.
@@ -39,6 +40,11 @@ public class Replay {
      */
     int level;
 
+    /**
+     * The seed of the recorded board's random source, or null for recordings made before seeds were stored.
+     */
+    Long seed;
+
     /**
      * The Time left for the game.
      */
@@ -88,9 +94,10 @@ public class Replay {
                 int numOfOMove = object.getInt("steps2");
                 this.level = object.getInt("level");
                 this.time = object.getInt("time");
+                this.seed = object.containsKey("seed") ? object.getJsonNumber("seed").longValue() : null;
                 for (int i = 0; i < numOfMove; i++) {
                     move = object.getString("chipMovement" + i);
-                    this.movement.add(move);
+                    this.movement.add(Direction.fromString(move));
                 }
                 if (level == 2) {
                     int row = object.getInt("rowcharacter");
@@ -98,7 +105,7 @@ public class Replay {
 
                     for (int i = 0; i < numOfOMove; i++) {
                         move = object.getString("otherMovement" + i);
-                        this.otherMovement.add(move);
+                        this.otherMovement.add(Direction.fromString(move));
                     }
                 }
 
@@ -118,7 +125,7 @@ public class Replay {
      * @return the board
      */
     public Board autoReplay() {
-        Board b = new Board(level);
+        Board b = seed == null ? new Board(level) : new Board(level, seed);
         for(int i =0; i< movement.size(); i++) {
             b.executeMove(movement.get(i),b.getChip());
             if(level ==2) {
@@ -173,12 +180,19 @@ public class Replay {
      */
     public int getLevel(){return level;}
 
+    /**
+     * Get seed of the recorded game.
+     *
+     * @return the seed, or null if the recording doesn't have one
+     */
+    public Long getSeed(){return seed;}
+
     /**
      * Get movement list of game.
      *
      * @return the list
      */
-    public List<String> getMovement(){return movement;}
+    public List<Direction> getMovement(){return movement;}
 
     /**
      * Set replay speed of replay.
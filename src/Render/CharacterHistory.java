@@ -1,5 +1,6 @@
 package Render;
 
+import Maze.BoardView;
 import Maze.Character;
 import Maze.Tiles.Tile;
 
@@ -76,14 +77,14 @@ public class CharacterHistory {
      * Update the current position of the character
      * @param currentAbsoluteLeftRow - Top Left Row
      * @param currentAbsoluteTopColumn - Top Left Column
-     * @param tileArray - The board
+     * @param boardView - The board
      */
-    public void updatePosition(int currentAbsoluteLeftRow, int currentAbsoluteTopColumn, Tile[][] tileArray) {
+    public void updatePosition(int currentAbsoluteLeftRow, int currentAbsoluteTopColumn, BoardView boardView) {
         this.currentAbsoluteRow = character.getRow();
         this.currentAbsoluteColumn = character.getCol();
         this.currentRelativeRow = this.currentAbsoluteRow - currentAbsoluteLeftRow;
         this.currentRelativeColumn = this.currentAbsoluteColumn - currentAbsoluteTopColumn;
-        this.currentTile = tileArray[this.currentAbsoluteRow][this.currentAbsoluteColumn];
+        this.currentTile = boardView.getTile(this.currentAbsoluteRow, this.currentAbsoluteColumn);
     }
 
     /**
@@ -134,12 +134,12 @@ public class MazeRenderer {
         if(width<0 || height <0){
             throw new IllegalArgumentException("Error: width or height was negative");
         }
-        if(board.getTileArray() == null || board.getChip() == null){
-            throw new IllegalArgumentException("Error: board contained null values (Chip or TileArray");
+        if(board.getChip() == null){
+            throw new IllegalArgumentException("Error: board contained null values (Chip)");
         }
 
         // This section of the code initialises a few items for the drawing
-        Tile[][] tileArray = board.getTileArray();
+        BoardView boardView = board;
         Chip chip = board.getChip();
         //Calculate how large each tile is
         this.tileWidth = width / NUMBER_OF_VISIBLE_SQUARES;
@@ -147,12 +147,12 @@ public class MazeRenderer {
         //Set all the coordinates for this drawing
         this.currentAbsoluteChipRow = chip.getRow();
         this.currentAbsoluteChipColumn = chip.getCol();
-        centerChip(tileArray);
+        centerChip(boardView);
         this.currentRelativeChipRow = this.currentAbsoluteChipRow - this.currentAbsoluteLeftRow;
         this.currentRelativeChipColumn = this.currentAbsoluteChipColumn - this.currentAbsoluteTopColumn;
 
         for(Map.Entry<Character, CharacterHistory> entry : this.userGeneratedCharacters.entrySet()){
-            entry.getValue().updatePosition(this.currentAbsoluteLeftRow, this.currentAbsoluteTopColumn, tileArray);
+            entry.getValue().updatePosition(this.currentAbsoluteLeftRow, this.currentAbsoluteTopColumn, boardView);
         }
 
         //Special case of the first time drawing, need to initialise a few things so the methods can work
@@ -180,10 +180,10 @@ public class MazeRenderer {
             requires a different method of drawing
          */
         if(this.chipMoved) {
-            redrawMovement(chip, tileArray);
+            redrawMovement(chip, boardView);
         }
         else{
-            redrawNoMovement(tileArray);
+            redrawNoMovement(boardView);
         }
 
         //Update all the previous fields for next time
@@ -224,45 +224,45 @@ public class MazeRenderer {
 
     /** Redraw method to redraw the board after Chip has moved
      * @param chip - Chip
-     * @param tileArray - The board
+     * @param boardView - The board
      */
-    private void redrawMovement(Chip chip, Tile[][] tileArray){
-        if(chip == null || tileArray == null){throw new IllegalArgumentException("Null argument passed to redrawMovement");}
+    private void redrawMovement(Chip chip, BoardView boardView){
+        if(chip == null || boardView == null){throw new IllegalArgumentException("Null argument passed to redrawMovement");}
 
         Item toBePickedUp = null;
         String item = "";
         String[] pickupSequence = null;
-        if (itemLocations.get(tileArray[this.currentAbsoluteChipRow][this.currentAbsoluteChipColumn]) != null) {
-            toBePickedUp = itemLocations.get(tileArray[this.currentAbsoluteChipRow][this.currentAbsoluteChipColumn]);
-            itemLocations.remove(tileArray[this.currentAbsoluteChipRow][this.currentAbsoluteChipColumn]);
+        if (itemLocations.get(boardView.getTile(this.currentAbsoluteChipRow, this.currentAbsoluteChipColumn)) != null) {
+            toBePickedUp = itemLocations.get(boardView.getTile(this.currentAbsoluteChipRow, this.currentAbsoluteChipColumn));
+            itemLocations.remove(boardView.getTile(this.currentAbsoluteChipRow, this.currentAbsoluteChipColumn));
             item = toBePickedUp.toString();
             pickupSequence = generatePickupSequence(item);
         }
 
         this.direction = getMovementDirection();
-        centerChip(tileArray);
+        centerChip(boardView);
         this.chipInCenterRow = isChipInCenterRow();
         this.chipInCenterColumn = isChipInCenterColumn();
 
         if (((this.previousChipInCenterRow && this.chipInCenterRow) && (this.previousChipInCenterColumn && this.chipInCenterColumn))
                 || ((this.previousChipInCenterRow && this.chipInCenterRow) && (this.direction.equals("up") || this.direction.equals("down")))
                 || ((this.previousChipInCenterColumn && this.chipInCenterColumn) && (this.direction.equals("left") || this.direction.equals("right")))){
-            redrawMovementAll(tileArray);
-            redrawMovementNPCActors(tileArray);
+            redrawMovementAll(boardView);
+            redrawMovementNPCActors(boardView);
         }
         else if((!(this.previousChipInCenterRow && this.chipInCenterRow) && (this.direction.equals("up") || this.direction.equals("down")))
                 || (!(this.previousChipInCenterColumn && this.chipInCenterColumn) && (this.direction.equals("left") || this.direction.equals("right")))){
-            redrawMovementChip(tileArray, toBePickedUp, item);
-            redrawMovementNPCActors(tileArray);
+            redrawMovementChip(boardView, toBePickedUp, item);
+            redrawMovementNPCActors(boardView);
         }
 
         if (pickupSequence != null) { //If chip is picking up an item
-            drawAnimationSequence(pickupSequence, tileArray);
+            drawAnimationSequence(pickupSequence, boardView);
         }
 
 
-        if(tileArray[this.currentAbsoluteChipRow][this.currentAbsoluteChipColumn] instanceof Exit){
-            drawAnimationSequence(this.exitSequence, tileArray);
+        if(boardView.getTile(this.currentAbsoluteChipRow, this.currentAbsoluteChipColumn).getKind().finishesLevel()){
+            drawAnimationSequence(this.exitSequence, boardView);
         }
 
 
@@ -270,11 +270,11 @@ public class MazeRenderer {
 
     /**Redraw every actor if there was no movement since the last drawing
      *
-     * @param tileArray the board
+     * @param boardView the board
      */
-    private void redrawNoMovementNPCActors(Tile[][] tileArray) {
-        if(tileArray == null){
-            throw new NullPointerException("Null tileArray passed into redrawChipMovement");
+    private void redrawNoMovementNPCActors(BoardView boardView) {
+        if(boardView == null){
+            throw new NullPointerException("Null boardView passed into redrawChipMovement");
         }
         for(Map.Entry<Character, CharacterHistory> entry : this.userGeneratedCharacters.entrySet()){
             CharacterHistory charHist = entry.getValue();
@@ -286,11 +286,11 @@ public class MazeRenderer {
 
     /**Redraw every actor if there was movement since the last drawing
      *
-     * @param tileArray the board
+     * @param boardView the board
      */
-    private void redrawMovementNPCActors(Tile[][] tileArray) {
-        if(tileArray == null){
-            throw new NullPointerException("Null tileArray passed into redrawChipMovement");
+    private void redrawMovementNPCActors(BoardView boardView) {
+        if(boardView == null){
+            throw new NullPointerException("Null boardView passed into redrawChipMovement");
         }
         for(Map.Entry<Character, CharacterHistory> entry : this.userGeneratedCharacters.entrySet()){
             if((entry.getValue().getCurrentRelativeColumn() >= 0
@@ -395,97 +395,97 @@ public class MazeRenderer {
 
     /** This method is for when Chip moves over the tiles, as opposed to the tiles moving under Chip
      * This behaviour occurs when the map is small, or chip is near the edge of the map
-     * @param tileArray - The board
+     * @param boardView - The board
      * @param toBePickedUp - The potential item chip is about to pick up
      * @param item - The name of the item
      */
-    public void redrawMovementChip(Tile[][] tileArray, Item toBePickedUp, String item){
-        if(tileArray == null){
-            throw new NullPointerException("Null tileArray passed into redrawChipMovement");
+    public void redrawMovementChip(BoardView boardView, Item toBePickedUp, String item){
+        if(boardView == null){
+            throw new NullPointerException("Null boardView passed into redrawChipMovement");
         }
-        Tile previousTile = tileArray[this.previousAbsoluteChipRow][this.previousAbsoluteChipColumn];
-        Tile currentTile = tileArray[this.currentAbsoluteChipRow][this.currentAbsoluteChipColumn];
+        Tile previousTile = boardView.getTile(this.previousAbsoluteChipRow, this.previousAbsoluteChipColumn);
+        Tile currentTile = boardView.getTile(this.currentAbsoluteChipRow, this.currentAbsoluteChipColumn);
 
         try {
             redrawChipSquares(previousTile, currentTile, toBePickedUp, item);
             switch (this.direction) {
                 case "up":
                     drawImage("ChipBack", this.previousRelativeChipRow, this.currentRelativeChipColumn);
-                   // redrawNoMovementNPCActors(tileArray);
+                   // redrawNoMovementNPCActors(boardView);
                     Thread.sleep(movementCharacterSleepTime);
                     redrawChipSquares(previousTile, currentTile, toBePickedUp, item);
                     drawImage("ChipBackLeftLegUp", this.previousRelativeChipRow - 0.33, this.currentRelativeChipColumn);
-                    //redrawNoMovementNPCActors(tileArray);
+                    //redrawNoMovementNPCActors(boardView);
                     Thread.sleep(movementCharacterSleepTime);
                     redrawChipSquares(previousTile, currentTile, toBePickedUp, item);
                     drawImage("ChipBackRightLegUp", this.previousRelativeChipRow - 0.66, this.currentRelativeChipColumn);
-                    //redrawNoMovementNPCActors(tileArray);
+                    //redrawNoMovementNPCActors(boardView);
                     Thread.sleep(movementCharacterSleepTime);
                     redrawChipSquares(previousTile, currentTile, toBePickedUp, item);
                     drawImage("ChipBack", this.currentRelativeChipRow, this.currentRelativeChipColumn);
-                    //redrawNoMovementNPCActors(tileArray);
+                    //redrawNoMovementNPCActors(boardView);
                     this.lastChipImage = "ChipBack";
                     Thread.sleep(movementCharacterSleepTime);
                     break;
                 case "down":
                     drawImage("Chip", this.previousRelativeChipRow, this.currentRelativeChipColumn);
-                   // redrawNoMovementNPCActors(tileArray);
+                   // redrawNoMovementNPCActors(boardView);
                     Thread.sleep(movementCharacterSleepTime);
                     redrawChipSquares(previousTile, currentTile, toBePickedUp, item);
                     drawImage("ChipFrontLeftLegUp", this.previousRelativeChipRow + 0.33, this.currentRelativeChipColumn);
-                   // redrawNoMovementNPCActors(tileArray);
+                   // redrawNoMovementNPCActors(boardView);
                     Thread.sleep(movementCharacterSleepTime);
                     redrawChipSquares(previousTile, currentTile, toBePickedUp, item);
                     drawImage("ChipFrontRightLegUp", this.previousRelativeChipRow + 0.66, this.currentRelativeChipColumn);
-                   // redrawNoMovementNPCActors(tileArray);
+                   // redrawNoMovementNPCActors(boardView);
                     Thread.sleep(movementCharacterSleepTime);
                     redrawChipSquares(previousTile, currentTile, toBePickedUp, item);
                     drawImage("Chip", this.currentRelativeChipRow, this.currentRelativeChipColumn);
-                   // redrawNoMovementNPCActors(tileArray);
+                   // redrawNoMovementNPCActors(boardView);
                     this.lastChipImage = "Chip";
                     Thread.sleep(movementCharacterSleepTime);
                     break;
                 case "right":
                     drawImage("ChipRight", this.currentRelativeChipRow, this.previousRelativeChipColumn);
-                   // redrawNoMovementNPCActors(tileArray);
+                   // redrawNoMovementNPCActors(boardView);
                     Thread.sleep(movementCharacterSleepTime);
                     redrawChipSquares(previousTile, currentTile, toBePickedUp, item);
                     drawImage("ChipRightWalking", this.currentRelativeChipRow, this.previousRelativeChipColumn + 0.25);
-                   // redrawNoMovementNPCActors(tileArray);
+                   // redrawNoMovementNPCActors(boardView);
                     Thread.sleep(movementCharacterSleepTime);
                     redrawChipSquares(previousTile, currentTile, toBePickedUp, item);
                     drawImage("ChipRight", this.currentRelativeChipRow, this.previousRelativeChipColumn + 0.5);
-                   // redrawNoMovementNPCActors(tileArray);
+                   // redrawNoMovementNPCActors(boardView);
                     Thread.sleep(movementCharacterSleepTime);
                     redrawChipSquares(previousTile, currentTile, toBePickedUp, item);
                     drawImage("ChipRightWalking", this.currentRelativeChipRow, this.previousRelativeChipColumn + 0.75);
-                   // redrawNoMovementNPCActors(tileArray);
+                   // redrawNoMovementNPCActors(boardView);
                     Thread.sleep(movementCharacterSleepTime);
                     redrawChipSquares(previousTile, currentTile, toBePickedUp, item);
                     drawImage("ChipRight", this.currentRelativeChipRow, this.currentRelativeChipColumn);
-                   // redrawNoMovementNPCActors(tileArray);
+                   // redrawNoMovementNPCActors(boardView);
                     this.lastChipImage = "ChipRight";
                     Thread.sleep(movementCharacterSleepTime);
                     break;
                 case "left":
                     drawImage("ChipLeft", this.currentRelativeChipRow, this.previousRelativeChipColumn);
-                    //redrawNoMovementNPCActors(tileArray);
+                    //redrawNoMovementNPCActors(boardView);
                     Thread.sleep(movementCharacterSleepTime);
                     redrawChipSquares(previousTile, currentTile, toBePickedUp, item);
                     drawImage("ChipLeftWalking", this.currentRelativeChipRow, this.previousRelativeChipColumn - 0.25);
-                    //redrawNoMovementNPCActors(tileArray);
+                    //redrawNoMovementNPCActors(boardView);
                     Thread.sleep(movementCharacterSleepTime);
                     redrawChipSquares(previousTile, currentTile, toBePickedUp, item);
                     drawImage("ChipLeft", this.currentRelativeChipRow, this.previousRelativeChipColumn - 0.5);
-                    //redrawNoMovementNPCActors(tileArray);
+                    //redrawNoMovementNPCActors(boardView);
                     Thread.sleep(movementCharacterSleepTime);
                     redrawChipSquares(previousTile, currentTile, toBePickedUp, item);
                     drawImage("ChipLeftWalking", this.currentRelativeChipRow, this.previousRelativeChipColumn - 0.75);
-                    //redrawNoMovementNPCActors(tileArray);
+                    //redrawNoMovementNPCActors(boardView);
                     Thread.sleep(movementCharacterSleepTime);
                     redrawChipSquares(previousTile, currentTile, toBePickedUp, item);
                     drawImage("ChipLeft", this.currentRelativeChipRow, this.currentRelativeChipColumn);
-                    //redrawNoMovementNPCActors(tileArray);
+                    //redrawNoMovementNPCActors(boardView);
                     this.lastChipImage = "ChipLeft";
                     Thread.sleep(movementCharacterSleepTime);
                     break;
@@ -512,28 +512,28 @@ public class MazeRenderer {
      * This method is for when the board needs to move behind Chip, as opposed to chip moving
      * on the board, which occurs when chip is near the edge of the map
      * In this method chip stays in the same point on the screen
-     * @param tileArray - The board of tiles
+     * @param boardView - The board of tiles
      */
-    public void redrawMovementAll(Tile[][] tileArray) {
-        if (tileArray == null) {
-            throw new IllegalArgumentException("Null tileArray passed into redrawChipMovement");
+    public void redrawMovementAll(BoardView boardView) {
+        if (boardView == null) {
+            throw new IllegalArgumentException("Null boardView passed into redrawChipMovement");
         }
 
         try {
-            redrawMovementAllTiles(tileArray, 0, 0);
+            redrawMovementAllTiles(boardView, 0, 0);
             if (this.direction.equals("up")) {
                 drawImage("ChipBack", this.currentRelativeChipRow, this.currentRelativeChipColumn);
                 this.lastChipImage = "ChipBack";
                 Thread.sleep(movementAllSleepTime);
-                redrawMovementAllTiles(tileArray, 0.33, 0);
+                redrawMovementAllTiles(boardView, 0.33, 0);
                 drawImage("ChipBackLeftLegUp", this.currentRelativeChipRow, this.currentRelativeChipColumn);
                 this.lastChipImage = "ChipBackLeftLegUp";
                 Thread.sleep(movementAllSleepTime);
-                redrawMovementAllTiles(tileArray, 0.66, 0);
+                redrawMovementAllTiles(boardView, 0.66, 0);
                 drawImage("ChipBackRightLegUp", this.currentRelativeChipRow, this.currentRelativeChipColumn);
                 this.lastChipImage = "ChipBackRightLegUp";
                 Thread.sleep(movementAllSleepTime);
-                redrawMovementAllTiles(tileArray, 1, 0);
+                redrawMovementAllTiles(boardView, 1, 0);
                 drawImage("ChipBack", this.currentRelativeChipRow, this.currentRelativeChipColumn);
                 this.lastChipImage = "ChipBack";
                 Thread.sleep(movementAllSleepTime);
@@ -543,15 +543,15 @@ public class MazeRenderer {
                 drawImage("Chip", this.currentRelativeChipRow, this.currentRelativeChipColumn);
                 this.lastChipImage = "Chip";
                 Thread.sleep(movementAllSleepTime);
-                redrawMovementAllTiles(tileArray, -0.33, 0);
+                redrawMovementAllTiles(boardView, -0.33, 0);
                 drawImage("ChipFrontLeftLegUp", this.currentRelativeChipRow, this.currentRelativeChipColumn);
                 this.lastChipImage = "ChipFrontLeftLegUp";
                 Thread.sleep(movementAllSleepTime);
-                redrawMovementAllTiles(tileArray, -0.66, 0);
+                redrawMovementAllTiles(boardView, -0.66, 0);
                 drawImage("ChipFrontRightLegUp", this.currentRelativeChipRow, this.currentRelativeChipColumn);
                 this.lastChipImage = "ChipFrontRightLegUp";
                 Thread.sleep(movementAllSleepTime);
-                redrawMovementAllTiles(tileArray, -1, 0);
+                redrawMovementAllTiles(boardView, -1, 0);
                 drawImage("Chip", this.currentRelativeChipRow, this.currentRelativeChipColumn);
                 this.lastChipImage = "Chip";
                 Thread.sleep(movementAllSleepTime);
@@ -561,19 +561,19 @@ public class MazeRenderer {
                 drawImage("ChipRight", this.currentRelativeChipRow, this.currentRelativeChipColumn);
                 this.lastChipImage = "ChipRight";
                 Thread.sleep(movementAllSleepTime);
-                redrawMovementAllTiles(tileArray, 0, -0.25);
+                redrawMovementAllTiles(boardView, 0, -0.25);
                 drawImage("ChipRightWalking", this.currentRelativeChipRow, this.currentRelativeChipColumn);
                 this.lastChipImage = "ChipRightWalking";
                 Thread.sleep(movementAllSleepTime);
-                redrawMovementAllTiles(tileArray, 0, -0.5);
+                redrawMovementAllTiles(boardView, 0, -0.5);
                 drawImage("ChipRight", this.currentRelativeChipRow, this.currentRelativeChipColumn);
                 this.lastChipImage = "ChipRight";
                 Thread.sleep(movementAllSleepTime);
-                redrawMovementAllTiles(tileArray, 0, -0.75);
+                redrawMovementAllTiles(boardView, 0, -0.75);
                 drawImage("ChipRightWalking", this.currentRelativeChipRow, this.currentRelativeChipColumn);
                 this.lastChipImage = "ChipRightWalking";
                 Thread.sleep(movementAllSleepTime);
-                redrawMovementAllTiles(tileArray, 0, -1);
+                redrawMovementAllTiles(boardView, 0, -1);
                 drawImage("ChipRight", this.currentRelativeChipRow, this.currentRelativeChipColumn);
                 this.lastChipImage = "ChipRight";
                 Thread.sleep(movementAllSleepTime);
@@ -583,19 +583,19 @@ public class MazeRenderer {
                 drawImage("ChipLeft", this.currentRelativeChipRow, this.currentRelativeChipColumn);
                 this.lastChipImage = "ChipLeft";
                 Thread.sleep(movementAllSleepTime);
-                redrawMovementAllTiles(tileArray, 0, 0.25);
+                redrawMovementAllTiles(boardView, 0, 0.25);
                 drawImage("ChipLeftWalking", this.currentRelativeChipRow, this.currentRelativeChipColumn);
                 this.lastChipImage = "ChipLeftWalking";
                 Thread.sleep(movementAllSleepTime);
-                redrawMovementAllTiles(tileArray, 0, 0.5);
+                redrawMovementAllTiles(boardView, 0, 0.5);
                 drawImage("ChipLeft", this.currentRelativeChipRow, this.currentRelativeChipColumn);
                 this.lastChipImage = "ChipLeft";
                 Thread.sleep(movementAllSleepTime);
-                redrawMovementAllTiles(tileArray, 0, 0.75);
+                redrawMovementAllTiles(boardView, 0, 0.75);
                 drawImage("ChipLeftWalking", this.currentRelativeChipRow, this.currentRelativeChipColumn);
                 this.lastChipImage = "ChipLeftWalking";
                 Thread.sleep(movementAllSleepTime);
-                redrawMovementAllTiles(tileArray, 0, 1);
+                redrawMovementAllTiles(boardView, 0, 1);
                 drawImage("ChipLeft", this.currentRelativeChipRow, this.currentRelativeChipColumn);
                 this.lastChipImage = "ChipLeft";
                 Thread.sleep(movementAllSleepTime);
@@ -605,7 +605,7 @@ public class MazeRenderer {
 
     /** Redraw the entire board with a specified offset
      */
-    private void redrawMovementAllTiles(Tile[][] tileArray, double rowOffset, double columnOffset){
+    private void redrawMovementAllTiles(BoardView boardView, double rowOffset, double columnOffset){
         //Without this list, chip will be invisible once the tile he is standing on are drawn,
         //until the end of the method, which makes him flicker on the screen, this list and its subsequent uses fixes that
         List<CenterTile> centerTiles = new ArrayList<>();
@@ -622,7 +622,7 @@ public class MazeRenderer {
 
         for(int row = rowStart; row < rowEnd; row++){
             for(int column = columnStart; column < columnEnd; column++){
-                Tile currentTile = tileArray[this.previousAbsoluteLeftRow+row][this.previousAbsoluteTopColumn+column];
+                Tile currentTile = boardView.getTile(this.previousAbsoluteLeftRow+row, this.previousAbsoluteTopColumn+column);
                 if(currentTile == null){throw new NullPointerException("Error: Tile pulled from tile array was null in redrawMovementAllTiles");}
                 //if tile will be drawn under chip add to list
                 if((this.previousAbsoluteLeftRow + row == this.previousAbsoluteChipRow && this.previousAbsoluteTopColumn + column == this.previousAbsoluteChipColumn)
@@ -652,21 +652,21 @@ public class MazeRenderer {
     }
 
     /** Redraw method to redraw the board when no movement has occurred
-     * @param tileArray - The board
+     * @param boardView - The board
      */
-    private void redrawNoMovement(Tile[][] tileArray){
-        drawAllTiles(tileArray);
+    private void redrawNoMovement(BoardView boardView){
+        drawAllTiles(boardView);
         drawImage(this.lastChipImage, this.currentRelativeChipRow, this.currentRelativeChipColumn);
-        redrawNoMovementNPCActors(tileArray);
+        redrawNoMovementNPCActors(boardView);
 
     }
 
     /** Draws the animation of chip picking up an item
      * @param sequence - list of images to draw
-     * @param tileArray - The Board
+     * @param boardView - The Board
      */
-    public void drawAnimationSequence(String[] sequence, Tile[][] tileArray){
-        Tile currentTile = tileArray[currentAbsoluteChipRow][currentAbsoluteChipColumn];
+    public void drawAnimationSequence(String[] sequence, BoardView boardView){
+        Tile currentTile = boardView.getTile(currentAbsoluteChipRow, currentAbsoluteChipColumn);
         try{
             for (String string : sequence) {
                 Thread.sleep(this.pickupSleepTime);
@@ -719,20 +719,20 @@ public class MazeRenderer {
      * If chip is near the edge of the screen, it draws the screen so that chip is
      * as close to the center of the screen as possible whilst still
      * displaying a full screen
-     * @param tileArray - the array of tiles on the board
+     * @param boardView - the board
      */
-    private void centerChip(Tile[][] tileArray){
+    private void centerChip(BoardView boardView){
         if (this.currentAbsoluteChipColumn - NUMBER_OF_VISIBLE_SQUARES/2 < 0) {
             this.currentAbsoluteTopColumn = 0;
-        } else if (this.currentAbsoluteChipColumn + NUMBER_OF_VISIBLE_SQUARES/2 > tileArray[0].length - 1) {
-            this.currentAbsoluteTopColumn = tileArray[0].length - NUMBER_OF_VISIBLE_SQUARES;
+        } else if (this.currentAbsoluteChipColumn + NUMBER_OF_VISIBLE_SQUARES/2 > boardView.getBoardWidth() - 1) {
+            this.currentAbsoluteTopColumn = boardView.getBoardWidth() - NUMBER_OF_VISIBLE_SQUARES;
         } else {
             this.currentAbsoluteTopColumn = this.currentAbsoluteChipColumn - NUMBER_OF_VISIBLE_SQUARES/2;
         }
         if (this.currentAbsoluteChipRow - NUMBER_OF_VISIBLE_SQUARES/2 < 0) {
             this.currentAbsoluteLeftRow = 0;
-        } else if (this.currentAbsoluteChipRow + NUMBER_OF_VISIBLE_SQUARES/2 > tileArray.length - 1) {
-            this.currentAbsoluteLeftRow = tileArray.length - NUMBER_OF_VISIBLE_SQUARES;
+        } else if (this.currentAbsoluteChipRow + NUMBER_OF_VISIBLE_SQUARES/2 > boardView.getBoardHeight() - 1) {
+            this.currentAbsoluteLeftRow = boardView.getBoardHeight() - NUMBER_OF_VISIBLE_SQUARES;
         } else {
             this.currentAbsoluteLeftRow = this.currentAbsoluteChipRow - NUMBER_OF_VISIBLE_SQUARES/2;
         }
@@ -741,10 +741,10 @@ public class MazeRenderer {
     /** The most important method of the class, this loops through each tile in the displayed
      * part of the array and draws each tile
      */
-    private void drawAllTiles(Tile[][] tileArray){
+    private void drawAllTiles(BoardView boardView){
         for(int row = 0; row < NUMBER_OF_VISIBLE_SQUARES; row++){
             for(int column = 0; column < NUMBER_OF_VISIBLE_SQUARES; column++){
-                Tile currentTile = tileArray[this.currentAbsoluteLeftRow+row][this.currentAbsoluteTopColumn+column];
+                Tile currentTile = boardView.getTile(this.currentAbsoluteLeftRow+row, this.currentAbsoluteTopColumn+column);
                 if(currentTile == null){
                     throw new NullPointerException("Error: Tile pulled from tile array was null");
                 }
@@ -805,20 +805,20 @@ public class MazeRenderer {
         this.previousChipInCenterColumn = this.chipInCenterColumn;
         this.previousAbsoluteLeftRow = this.currentAbsoluteLeftRow;
         this.previousAbsoluteTopColumn = this.currentAbsoluteTopColumn;
-        initialiseItemLocations(board.getTileArray());
-        initialiseActorObjects(board.getCharacters(), board.getTileArray());
+        initialiseItemLocations(board);
+        initialiseActorObjects(board.getCharacters(), board);
     }
 
     /** This method finds all items in the board and adds them to a map
      * This is useful later on, as when chip moves to a tile that previously
      * had an item on it this will help show that, in order to draw the right images
-     * @param tileArray the array of the board
+     * @param boardView the board
      */
-    private void initialiseItemLocations(Tile[][] tileArray) {
-        if(tileArray == null){throw new IllegalArgumentException("Error: Passing initialiseItemLocations a null TileArray");}
-        for (Tile[] tiles : tileArray) {
-            for (int column = 0; column < tileArray[0].length; column++) {
-                Tile currentTile = tiles[column];
+    private void initialiseItemLocations(BoardView boardView) {
+        if(boardView == null){throw new IllegalArgumentException("Error: Passing initialiseItemLocations a null BoardView");}
+        for (int row = 0; row < boardView.getBoardHeight(); row++) {
+            for (int column = 0; column < boardView.getBoardWidth(); column++) {
+                Tile currentTile = boardView.getTile(row, column);
                 if (currentTile == null) {
                     throw new NullPointerException("Error: Tile pulled from tile array was null");
                 }
@@ -833,15 +833,15 @@ public class MazeRenderer {
      * It also initialises their locations
      * This is useful later on, to determine where each character is for movement
      * @param characters list of characters
-     * @param tileArray the array of tiles
+     * @param boardView the board
      */
-    private void initialiseActorObjects(List<UserGeneratedCharacter> characters, Tile[][] tileArray) {
+    private void initialiseActorObjects(List<UserGeneratedCharacter> characters, BoardView boardView) {
         for(UserGeneratedCharacter character: characters){
             int car = character.getRow();
             int cac = character.getCol();
             int crr = car-this.currentAbsoluteLeftRow;
             int crc = car-this.currentAbsoluteTopColumn;
-            Tile currentTile = tileArray[car][cac];
+            Tile currentTile = boardView.getTile(car, cac);
             CharacterHistory newUGC = new CharacterHistory(car, cac, crr, crc, "ActorUp1", character, currentTile);
             this.userGeneratedCharacters.put(character, newUGC);
         }
@@ -1,5 +1,9 @@
 package Render;
 
+import Maze.Board;
+import Maze.BoardEvent;
+import Maze.BoardListener;
+
 import javax.sound.sampled.AudioInputStream;
 import javax.sound.sampled.AudioSystem;
 import javax.sound.sampled.Clip;
@@ -14,11 +18,14 @@ import java.util.Map;
  * @author Daniel Marshall
  *
  */
-public class Music {
+public class Music implements BoardListener {
 
     private Map<String, Clip> audioClips;
     private final Map<String, Clip> currentlyPlaying;
 
+    /** If true, sounds triggered by board events are not played */
+    private boolean muted = false;
+
     /**Constructor for the music object
      */
     public Music() {
@@ -138,6 +145,27 @@ public class Music {
         }
     }
 
+    /**This method is used to mute or unmute the sounds triggered by board events
+     * @param muted - whether board events should stay silent
+     */
+    public void setMuted(boolean muted){
+        this.muted = muted;
+    }
+
+    /**Plays the pickup sound when chip picks up an item on a board this object is subscribed to
+     * @param board - the board the event happened on
+     * @param event - the kind of event
+     * @param row - the row of the event
+     * @param col - the column of the event
+     * @param detail - the detail of the event
+     */
+    @Override
+    public void boardChanged(Board board, BoardEvent event, int row, int col, int detail){
+        if(event == BoardEvent.ITEM_PICKED_UP && !muted){
+            playAudio("PickupSound");
+        }
+    }
+
     /**This method is used to stop playing the desired music clip
      * @param audioString - the audio to stop
      */